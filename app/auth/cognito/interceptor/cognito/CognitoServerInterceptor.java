@@ -3,9 +3,7 @@ package app.auth.cognito.interceptor.cognito;
 import app.auth.cognito.module.data.CognitoClientCredentialsSecret;
 import app.auth.cognito.module.data.CognitoStackOutputs;
 import app.auth.cognito.user.CognitoUser;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.gson.*;
+import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.google.inject.Inject;
 import dev.logos.auth.user.User;
@@ -13,18 +11,13 @@ import dev.logos.stack.aws.module.annotation.AwsRegion;
 import io.grpc.*;
 import io.jsonwebtoken.*;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.math.BigInteger;
-import java.net.URL;
+import java.lang.reflect.Type;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,11 +29,15 @@ public class CognitoServerInterceptor implements ServerInterceptor {
     public static final Metadata.Key<String> AUTHORIZATION_METADATA_KEY = Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
     public static final Metadata.Key<String> COOKIE_METADATA_KEY = Metadata.Key.of("logos-cookies", Metadata.ASCII_STRING_MARSHALLER);
     private static final String COGNITO_IDENTITY_POOL_URL_TEMPLATE = "https://cognito-idp.{region}.amazonaws.com/{userPoolId}/.well-known/jwks.json";
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+    private static final Gson GSON = new Gson();
+    private static final Type HEADER_TYPE = new TypeToken<Map<String, String>>() {
+    }.getType();
+    private static final Duration JWKS_REFRESH_INTERVAL = Duration.ofMinutes(15);
+    private static final Duration JWKS_MIN_FETCH_INTERVAL = Duration.ofSeconds(30);
 
-    private final Cache<String, PublicKey> keyCache = CacheBuilder.newBuilder()
-            .expireAfterWrite(1, TimeUnit.HOURS)
-            .maximumSize(100)
-            .build();
+    private final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(VERIFIED_TOKEN_CACHE_SIZE, Clock.systemUTC());
+    private final JwksManager jwksManager;
 
     private final String userPoolId;
     private final String clientId;
@@ -57,6 +54,16 @@ public class CognitoServerInterceptor implements ServerInterceptor {
         this.clientId = requireNonNull(clientCredentials.clientId());
         this.region = requireNonNull(region);
         this.logger = logger;
+        // Tokens signed by a key that has been rotated out must be verified again, and will then fail.
+        this.jwksManager = new JwksManager(
+                URI.create(COGNITO_IDENTITY_POOL_URL_TEMPLATE.replace("{region}", this.region)
+                                                             .replace("{userPoolId}", this.userPoolId)),
+                JWKS_REFRESH_INTERVAL,
+                JWKS_MIN_FETCH_INTERVAL,
+                Clock.systemUTC(),
+                logger,
+                verifiedTokenCache::retainKids);
+        this.jwksManager.start();
     }
 
     @Override
@@ -96,11 +103,14 @@ public class CognitoServerInterceptor implements ServerInterceptor {
     }
 
     protected Optional<User> authenticateUser(String token) {
+        Optional<User> verifiedUser = verifiedTokenCache.get(token);
+        if (verifiedUser.isPresent()) {
+            return verifiedUser;
+        }
+
         try {
             String headerJson = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]), StandardCharsets.UTF_8);
-            Gson gson = new Gson();
-            Map<String, String> headerMap = gson.fromJson(headerJson, new TypeToken<Map<String, String>>() {
-            }.getType());
+            Map<String, String> headerMap = GSON.fromJson(headerJson, HEADER_TYPE);
             String kid = headerMap.get("kid");
 
             Optional<PublicKey> optionalPublicKey = getPublicKey(kid, userPoolId, region);
@@ -124,49 +134,18 @@ public class CognitoServerInterceptor implements ServerInterceptor {
                 return Optional.empty();
             }
 
-            return Optional.of(new CognitoUser(token, payload));
-        } catch (ExpiredJwtException | IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            CognitoUser user = new CognitoUser(token, payload);
+            if (expiration != null) {
+                verifiedTokenCache.put(token, kid, user, expiration.toInstant());
+            }
+            return Optional.of(user);
+        } catch (ExpiredJwtException e) {
             logger.log(Level.SEVERE, "Failed to authenticate", e);
             return Optional.empty();
         }
     }
 
-    protected Optional<PublicKey> getPublicKey(String kid, String userPoolId, String region)
-            throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
-        PublicKey cachedKey = keyCache.getIfPresent(kid);
-        if (cachedKey != null) {
-            return Optional.of(cachedKey);
-        }
-
-        String url = COGNITO_IDENTITY_POOL_URL_TEMPLATE.replace("{region}", region).replace("{userPoolId}", userPoolId);
-        Gson gson = new Gson();
-
-        try (InputStreamReader reader = new InputStreamReader(new URL(url).openStream())) {
-            JsonObject jwkResponse = gson.fromJson(reader, JsonObject.class);
-            JsonArray keys = jwkResponse.getAsJsonArray("keys");
-
-            for (JsonElement keyElement : keys) {
-                JsonObject keyData = keyElement.getAsJsonObject();
-                if (kid.equals(keyData.get("kid").getAsString())) {
-                    RSAPublicKeySpec spec = new RSAPublicKeySpec(
-                            new BigInteger(1, Base64.getUrlDecoder().decode(keyData.get("n").getAsString())),
-                            new BigInteger(1, Base64.getUrlDecoder().decode(keyData.get("e").getAsString()))
-                    );
-                    KeyFactory kf = KeyFactory.getInstance("RSA");
-                    PublicKey publicKey = kf.generatePublic(spec);
-
-                    // Cache the key with a time-based expiration
-                    keyCache.put(kid, publicKey);
-                    return Optional.of(publicKey);
-                }
-            }
-        } catch (JsonSyntaxException e) {
-            logger.log(Level.SEVERE, "Error parsing the JWK response", e);
-        } catch (IllegalArgumentException e) {
-            logger.log(Level.SEVERE, "Invalid key specification", e);
-        }
-
-        logger.log(Level.SEVERE, "No key found in JWK set for kid: " + kid);
-        return Optional.empty();
+    protected Optional<PublicKey> getPublicKey(String kid, String userPoolId, String region) {
+        return jwksManager.getKey(kid);
     }
 }
@@ -23,6 +23,7 @@ public class CognitoServerInterceptorTest {
 
     private static class TestInterceptor extends CognitoServerInterceptor {
         private final PublicKey key;
+        private int publicKeyLookups = 0;
         TestInterceptor(PublicKey key) {
             super(new CognitoStackOutputs(USER_POOL_ID, "redir", "arn", "base", "signin"),
                   new CognitoClientCredentialsSecret(CLIENT_ID, "secret"),
@@ -33,6 +34,7 @@ public class CognitoServerInterceptorTest {
 
         @Override
         protected Optional<PublicKey> getPublicKey(String kid, String userPoolId, String region) {
+            publicKeyLookups++;
             return Optional.of(key);
         }
     }
@@ -75,4 +77,26 @@ public class CognitoServerInterceptorTest {
         String token = createToken(kp.getPrivate(), new Date(System.currentTimeMillis() + 10000), CLIENT_ID);
         assertTrue(interceptor.authenticateUser(token).isPresent());
     }
+
+    @Test
+    public void authenticateUser_reusesVerifiedToken() {
+        KeyPair kp = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        TestInterceptor interceptor = new TestInterceptor(kp.getPublic());
+
+        String token = createToken(kp.getPrivate(), new Date(System.currentTimeMillis() + 10000), CLIENT_ID);
+        assertTrue(interceptor.authenticateUser(token).isPresent());
+        assertTrue(interceptor.authenticateUser(token).isPresent());
+        assertEquals(1, interceptor.publicKeyLookups);
+    }
+
+    @Test
+    public void authenticateUser_doesNotCacheRejectedToken() {
+        KeyPair kp = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        TestInterceptor interceptor = new TestInterceptor(kp.getPublic());
+
+        String token = createToken(kp.getPrivate(), new Date(System.currentTimeMillis() + 10000), "other");
+        assertTrue(interceptor.authenticateUser(token).isEmpty());
+        assertTrue(interceptor.authenticateUser(token).isEmpty());
+        assertEquals(2, interceptor.publicKeyLookups);
+    }
 }
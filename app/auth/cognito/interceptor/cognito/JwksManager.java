@@ -0,0 +1,211 @@
+package app.auth.cognito.interceptor.cognito;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dev.logos.jfr.JwksFetchEvent;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the user pool's JSON Web Key Set and keeps it fresh off the request path.
+ * <p>
+ * {@link #start()} fetches the set on a background thread and then refreshes it every {@code refreshInterval}. A lookup
+ * only fetches inline for a {@code kid} it does not know, at most once per {@code minFetchInterval}, and
+ * concurrent fetches are collapsed into one. Unknown kids are remembered for {@code minFetchInterval} so a token with a
+ * bogus {@code kid} cannot force a fetch per request. When the endpoint fails, the last good set keeps being served and
+ * retries back off exponentially up to {@code refreshInterval}.
+ */
+class JwksManager {
+    private static final Gson GSON = new Gson();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    private static final int MAX_UNKNOWN_KIDS = 1_000;
+
+    private final URI jwksUri;
+    private final Duration refreshInterval;
+    private final Duration minFetchInterval;
+    private final Clock clock;
+    private final Logger logger;
+    private final Consumer<Set<String>> onKeySetFetched;
+    private final HttpClient httpClient;
+    private final Cache<String, Boolean> unknownKids;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile Instant nextFetchAllowedAt = Instant.MIN;
+    private CompletableFuture<Map<String, PublicKey>> inFlight;
+    private int consecutiveFailures = 0;
+    private ScheduledExecutorService scheduler;
+
+    JwksManager(
+            URI jwksUri,
+            Duration refreshInterval,
+            Duration minFetchInterval,
+            Clock clock,
+            Logger logger,
+            Consumer<Set<String>> onKeySetFetched
+    ) {
+        this.jwksUri = jwksUri;
+        this.refreshInterval = refreshInterval;
+        this.minFetchInterval = minFetchInterval;
+        this.clock = clock;
+        this.logger = logger;
+        this.onKeySetFetched = onKeySetFetched;
+        this.httpClient = HttpClient.newBuilder()
+                                    .connectTimeout(REQUEST_TIMEOUT)
+                                    .build();
+        this.unknownKids = CacheBuilder.newBuilder()
+                                       .expireAfterWrite(minFetchInterval)
+                                       .maximumSize(MAX_UNKNOWN_KIDS)
+                                       .build();
+    }
+
+    Optional<PublicKey> getKey(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key != null) {
+            return Optional.of(key);
+        }
+        if (kid == null || unknownKids.getIfPresent(kid) != null) {
+            return Optional.empty();
+        }
+
+        if (clock.instant().isBefore(nextFetchAllowedAt)) {
+            unknownKids.put(kid, true);
+            return Optional.empty();
+        }
+
+        key = refresh().get(kid);
+        if (key == null) {
+            logger.warning("No key found in JWK set for kid: " + kid);
+            unknownKids.put(kid, true);
+        }
+        return Optional.ofNullable(key);
+    }
+
+    /**
+     * Fetches the key set, or waits for the fetch already in progress. Returns the last good set if the fetch fails.
+     */
+    Map<String, PublicKey> refresh() {
+        CompletableFuture<Map<String, PublicKey>> future;
+        boolean fetching = false;
+        synchronized (this) {
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                fetching = true;
+            }
+            future = inFlight;
+        }
+
+        if (fetching) {
+            JwksFetchEvent fetchEvent = new JwksFetchEvent();
+            fetchEvent.begin();
+            try {
+                Map<String, PublicKey> fetched = fetch();
+                fetchEvent.keys = fetched.size();
+                keys = fetched;
+                unknownKids.invalidateAll();
+                synchronized (this) {
+                    consecutiveFailures = 0;
+                    nextFetchAllowedAt = clock.instant().plus(minFetchInterval);
+                }
+                onKeySetFetched.accept(fetched.keySet());
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                fetchEvent.failed = true;
+                logger.log(Level.SEVERE, "Failed to fetch JWK set from %s, serving %d cached keys".formatted(jwksUri, keys.size()), e);
+                synchronized (this) {
+                    consecutiveFailures++;
+                    nextFetchAllowedAt = clock.instant().plus(backoff());
+                }
+            } finally {
+                if (fetchEvent.shouldCommit()) {
+                    fetchEvent.uri = jwksUri.toString();
+                    fetchEvent.commit();
+                }
+                synchronized (this) {
+                    inFlight = null;
+                }
+                future.complete(keys);
+            }
+        }
+
+        return future.join();
+    }
+
+    private synchronized Duration backoff() {
+        Duration backoff = minFetchInterval.multipliedBy(1L << Math.min(consecutiveFailures, 20));
+        return backoff.compareTo(refreshInterval) < 0 ? backoff : refreshInterval;
+    }
+
+    /**
+     * Starts fetching the key set in the background, so the first requests need not wait for it. A lookup that arrives
+     * before the fetch completes waits for it rather than starting another.
+     */
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::refreshInBackground);
+    }
+
+    private void refreshInBackground() {
+        refresh();
+        Duration delay;
+        synchronized (this) {
+            delay = consecutiveFailures == 0 ? refreshInterval : backoff();
+        }
+        scheduler.schedule(this::refreshInBackground, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Map<String, PublicKey> fetch() throws Exception {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(jwksUri).timeout(REQUEST_TIMEOUT).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("JWK set request returned HTTP " + response.statusCode());
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        Map<String, PublicKey> fetched = new HashMap<>();
+        for (JsonElement keyElement : GSON.fromJson(response.body(), JsonObject.class).getAsJsonArray("keys")) {
+            JsonObject keyData = keyElement.getAsJsonObject();
+            String kid = keyData.get("kid").getAsString();
+            try {
+                RSAPublicKeySpec spec = new RSAPublicKeySpec(
+                        new BigInteger(1, Base64.getUrlDecoder().decode(keyData.get("n").getAsString())),
+                        new BigInteger(1, Base64.getUrlDecoder().decode(keyData.get("e").getAsString()))
+                );
+                fetched.put(kid, keyFactory.generatePublic(spec));
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Invalid key specification for kid: " + kid, e);
+            }
+        }
+        return Map.copyOf(fetched);
+    }
+}
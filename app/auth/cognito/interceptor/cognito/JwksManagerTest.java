@@ -0,0 +1,189 @@
+package app.auth.cognito.interceptor.cognito;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+public class JwksManagerTest {
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> body = new AtomicReference<>();
+    private final AtomicReference<CountDownLatch> release = new AtomicReference<>(new CountDownLatch(0));
+    private final List<Set<String>> fetchedKeySets = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jwks.json", exchange -> {
+            requests.incrementAndGet();
+            try {
+                release.get().await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private JwksManager manager() {
+        return new JwksManager(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/jwks.json"),
+                Duration.ofHours(1),
+                Duration.ofMinutes(1),
+                Clock.systemUTC(),
+                Logger.getLogger("test"),
+                fetchedKeySets::add);
+    }
+
+    private static String jwks(String... kids) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        List<String> keys = new ArrayList<>();
+        for (String kid : kids) {
+            KeyPair keyPair = generator.generateKeyPair();
+            RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+            keys.add("{\"kid\":\"%s\",\"kty\":\"RSA\",\"n\":\"%s\",\"e\":\"%s\"}".formatted(
+                    kid, base64(publicKey.getModulus()), base64(publicKey.getPublicExponent())));
+        }
+        return "{\"keys\":[" + String.join(",", keys) + "]}";
+    }
+
+    private static String base64(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0) {
+            bytes = java.util.Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Test
+    public void getKey_fetchesOnceForKnownKids() throws Exception {
+        body.set(jwks("kid-1", "kid-2"));
+        JwksManager manager = manager();
+
+        assertTrue(manager.getKey("kid-1").isPresent());
+        assertTrue(manager.getKey("kid-2").isPresent());
+        assertTrue(manager.getKey("kid-1").isPresent());
+        assertEquals(1, requests.get());
+        assertEquals(List.of(Set.of("kid-1", "kid-2")), fetchedKeySets);
+    }
+
+    @Test
+    public void getKey_collapsesConcurrentFetches() throws Exception {
+        body.set(jwks("kid-1"));
+        release.set(new CountDownLatch(1));
+        JwksManager manager = manager();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> manager.getKey("kid-1").isPresent()));
+            }
+            Thread.sleep(200);
+            release.get().countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void getKey_negativelyCachesUnknownKids() throws Exception {
+        body.set(jwks("kid-1"));
+        JwksManager manager = manager();
+
+        assertTrue(manager.getKey("kid-1").isPresent());
+        assertTrue(manager.getKey("bogus").isEmpty());
+        assertTrue(manager.getKey("bogus").isEmpty());
+        assertTrue(manager.getKey("other-bogus").isEmpty());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void refresh_keepsLastGoodKeySetWhenEndpointFails() throws Exception {
+        body.set(jwks("kid-1"));
+        JwksManager manager = manager();
+        assertTrue(manager.getKey("kid-1").isPresent());
+
+        status.set(500);
+        body.set("unavailable");
+        assertEquals(Set.of("kid-1"), manager.refresh().keySet());
+        assertTrue(manager.getKey("kid-1").isPresent());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void start_fetchesBeforeFirstLookup() throws Exception {
+        body.set(jwks("kid-1"));
+        JwksManager manager = manager();
+
+        manager.start();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (fetchedKeySets.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of(Set.of("kid-1")), fetchedKeySets);
+        assertTrue(manager.getKey("kid-1").isPresent());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void refresh_keepsInterruptWhenInterruptedWhileFetching() throws Exception {
+        body.set(jwks("kid-1"));
+        release.set(new CountDownLatch(1));
+        JwksManager manager = manager();
+
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(Set.of(), manager.refresh().keySet());
+            assertTrue(Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+            release.get().countDown();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package app.auth.cognito.interceptor.cognito;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import dev.logos.auth.user.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * ID tokens that have already passed verification, keyed by a SHA-256 digest of the token and each held until the
+ * token's {@code exp}.
+ * <p>
+ * The same token is resent for hours through the {@code logosIdToken} cookie, so this saves a signature verification
+ * on nearly every authenticated request. Entries signed by a key whose {@code kid} has left the JWKS are dropped by
+ * {@link #retainKids(Set)}.
+ */
+class VerifiedTokenCache {
+    private record Entry(String kid, User user, Instant expiresAt) {
+    }
+
+    private final Cache<String, Entry> entries;
+    private final Clock clock;
+
+    VerifiedTokenCache(long maximumSize, Clock clock) {
+        this.entries = CacheBuilder.newBuilder()
+                                   .maximumSize(maximumSize)
+                                   .build();
+        this.clock = clock;
+    }
+
+    Optional<User> get(String token) {
+        String digest = digest(token);
+        Entry entry = entries.getIfPresent(digest);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (!clock.instant().isBefore(entry.expiresAt())) {
+            entries.invalidate(digest);
+            return Optional.empty();
+        }
+        return Optional.of(entry.user());
+    }
+
+    void put(String token, String kid, User user, Instant expiresAt) {
+        if (clock.instant().isBefore(expiresAt)) {
+            entries.put(digest(token), new Entry(kid, user, expiresAt));
+        }
+    }
+
+    void retainKids(Set<String> kids) {
+        entries.asMap().values().removeIf(entry -> !kids.contains(entry.kid()));
+    }
+
+    long size() {
+        return entries.size();
+    }
+
+    private static String digest(String token) {
+        return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    }
+}
@@ -0,0 +1,102 @@
+package app.auth.cognito.interceptor.cognito;
+
+import dev.logos.auth.user.User;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class VerifiedTokenCacheTest {
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static class TestUser extends User {
+        @Override
+        public String getId() {
+            return "sub";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "name";
+        }
+
+        @Override
+        public Optional<String> getEmail() {
+            return Optional.empty();
+        }
+
+        @Override
+        public boolean isAuthenticated() {
+            return true;
+        }
+
+        @Override
+        public String getToken() {
+            return "token";
+        }
+    }
+
+    @Test
+    public void get_returnsUserUntilExpiry() {
+        TestClock clock = new TestClock();
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        User user = new TestUser();
+
+        cache.put("token", "kid", user, clock.instant().plusSeconds(60));
+        assertSame(user, cache.get("token").orElseThrow());
+
+        clock.advance(Duration.ofSeconds(60));
+        assertTrue(cache.get("token").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_ignoresExpiredToken() {
+        TestClock clock = new TestClock();
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+
+        cache.put("token", "kid", new TestUser(), clock.instant());
+        assertTrue(cache.get("token").isEmpty());
+    }
+
+    @Test
+    public void retainKids_evictsTokensSignedByRotatedKeys() {
+        TestClock clock = new TestClock();
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+
+        cache.put("old", "kid-1", new TestUser(), clock.instant().plusSeconds(60));
+        cache.put("new", "kid-2", new TestUser(), clock.instant().plusSeconds(60));
+        cache.retainKids(Set.of("kid-2"));
+
+        assertTrue(cache.get("old").isEmpty());
+        assertTrue(cache.get("new").isPresent());
+    }
+}
@@ -2,9 +2,12 @@ package app.auth.cognito.module;
 
 import app.auth.cognito.interceptor.cognito.CognitoServerInterceptor;
 import app.auth.cognito.interceptor.cookie.CookieServerInterceptor;
+import app.auth.cognito.module.annotation.CognitoHttpClient;
 import app.auth.cognito.module.data.CognitoClientCredentialsSecret;
 import app.auth.cognito.module.data.CognitoStackOutputs;
 import app.auth.cognito.module.data.StackOutputs;
+import app.auth.cognito.service.CognitoHttpClientOptions;
+import app.auth.cognito.service.CognitoHttpClients;
 import app.auth.cognito.service.CognitoService;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -15,9 +18,12 @@ import com.google.inject.Singleton;
 import com.google.inject.multibindings.OptionalBinder;
 import dev.logos.app.AppModule;
 import dev.logos.app.register.registerModule;
+import dev.logos.service.backend.server.ShutdownRegistry;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
 import dev.logos.stack.aws.module.EksModule.EksStack;
 import dev.logos.stack.aws.module.annotation.StackOutputsJson;
 import io.grpc.CallCredentials;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import software.amazon.awscdk.*;
 import software.amazon.awscdk.services.cognito.*;
 import software.amazon.awscdk.services.iam.Policy;
@@ -67,14 +73,28 @@ public class CognitoModule extends AppModule {
                       .toInstance(CognitoDomainOptions.builder().domainPrefix("logos"));
 
         OptionalBinder.newOptionalBinder(binder(), CallCredentials.class);
+
+        OptionalBinder.newOptionalBinder(binder(), CognitoHttpClientOptions.class)
+                      .setDefault()
+                      .toInstance(CognitoHttpClientOptions.DEFAULT);
+    }
+
+    @Provides
+    @Singleton
+    @CognitoHttpClient
+    CloseableHttpAsyncClient cognitoHttpClient(
+            CognitoHttpClientOptions options,
+            MetricRegistry metricRegistry,
+            ShutdownRegistry shutdownRegistry
+    ) {
+        // Closed gracefully once the servers have drained, so calls still finishing keep their connections.
+        return shutdownRegistry.register(CognitoHttpClients.create(options, metricRegistry));
     }
 
     @Provides
     @Singleton
-    SecretsManagerClient secretsManagerClient() {
-        SecretsManagerClient client = SecretsManagerClient.create();
-        Runtime.getRuntime().addShutdownHook(new Thread(client::close));
-        return client;
+    SecretsManagerClient secretsManagerClient(ShutdownRegistry shutdownRegistry) {
+        return shutdownRegistry.register(SecretsManagerClient.create());
     }
 
     @Provides
@@ -0,0 +1,12 @@
+package app.auth.cognito.module.annotation;
+
+import com.google.inject.BindingAnnotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@BindingAnnotation
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CognitoHttpClient {
+}
+
@@ -0,0 +1,35 @@
+package app.auth.cognito.service;
+
+import java.time.Duration;
+
+/**
+ * Settings for the pooled HTTP client {@link CognitoService} uses to call the user pool's token endpoint. Override the
+ * default binding with
+ * {@code OptionalBinder.newOptionalBinder(binder(), CognitoHttpClientOptions.class).setBinding().toInstance(...)}.
+ *
+ * @param maxConnections           connections kept open to the user pool domain
+ * @param connectTimeout           time allowed to open a connection, including the TLS handshake
+ * @param connectionRequestTimeout time a request waits to lease a connection from the pool
+ * @param responseTimeout          time allowed for the token endpoint to respond
+ * @param keepAlive                idle connections are closed after this long
+ */
+public record CognitoHttpClientOptions(
+        int maxConnections,
+        Duration connectTimeout,
+        Duration connectionRequestTimeout,
+        Duration responseTimeout,
+        Duration keepAlive
+) {
+    public static final CognitoHttpClientOptions DEFAULT = new CognitoHttpClientOptions(
+            20,
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(10),
+            Duration.ofMinutes(5));
+
+    public CognitoHttpClientOptions {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be positive, got " + maxConnections);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package app.auth.cognito.service;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds the pooled, keep-alive async HTTP client shared by every token exchange, so logins reuse connections to the
+ * user pool domain instead of paying for TCP and TLS setup each time.
+ */
+public final class CognitoHttpClients {
+    private CognitoHttpClients() {
+    }
+
+    public static CloseableHttpAsyncClient create(CognitoHttpClientOptions options, MetricRegistry metricRegistry) {
+        PoolingAsyncClientConnectionManager connectionManager =
+                PoolingAsyncClientConnectionManagerBuilder.create()
+                                                          .setMaxConnTotal(options.maxConnections())
+                                                          .setMaxConnPerRoute(options.maxConnections())
+                                                          .setDefaultConnectionConfig(
+                                                                  ConnectionConfig.custom()
+                                                                                  .setConnectTimeout(Timeout.ofMilliseconds(options.connectTimeout().toMillis()))
+                                                                                  .build())
+                                                          .build();
+
+        // Pending is the number of requests waiting for a lease; the others count connections.
+        poolGauge(metricRegistry, connectionManager, "leased", PoolStats::getLeased);
+        poolGauge(metricRegistry, connectionManager, "pending", PoolStats::getPending);
+        poolGauge(metricRegistry, connectionManager, "available", PoolStats::getAvailable);
+        poolGauge(metricRegistry, connectionManager, "max", PoolStats::getMax);
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                                                          .setConnectionManager(connectionManager)
+                                                          .setDefaultRequestConfig(
+                                                                  RequestConfig.custom()
+                                                                               .setConnectionRequestTimeout(Timeout.ofMilliseconds(options.connectionRequestTimeout().toMillis()))
+                                                                               .setResponseTimeout(Timeout.ofMilliseconds(options.responseTimeout().toMillis()))
+                                                                               .setConnectionKeepAlive(TimeValue.ofMilliseconds(options.keepAlive().toMillis()))
+                                                                               .build())
+                                                          .build();
+        client.start();
+        return client;
+    }
+
+    private static void poolGauge(
+            MetricRegistry metricRegistry,
+            PoolingAsyncClientConnectionManager connectionManager,
+            String state,
+            ToIntFunction<PoolStats> value
+    ) {
+        metricRegistry.gauge("logos_cognito_http_pool",
+                             "Connection pool of the Cognito token endpoint client, by state",
+                             Map.of("state", state),
+                             () -> value.applyAsInt(connectionManager.getTotalStats()));
+    }
+}
@@ -2,6 +2,7 @@ package app.auth.cognito.service;
 
 import app.auth.cognito.interceptor.cookie.CookieServerInterceptor;
 import app.auth.cognito.module.annotation.AuthenticationCookieDomain;
+import app.auth.cognito.module.annotation.CognitoHttpClient;
 import app.auth.cognito.module.data.CognitoClientCredentialsSecret;
 import app.auth.cognito.module.data.CognitoStackOutputs;
 import app.auth.proto.cognito.*;
@@ -12,37 +13,43 @@ import dev.logos.auth.user.User;
 import dev.logos.auth.user.UserContext;
 import io.grpc.Context;
 import io.grpc.stub.StreamObserver;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.util.EntityUtils;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.net.WWWFormCodec;
 import software.amazon.awssdk.http.HttpStatusCode;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static java.util.Objects.requireNonNull;
 
 public class CognitoService extends CognitoServiceGrpc.CognitoServiceImplBase implements Service {
     private static final String TOKEN_REQUEST_FAILURE_MSG = "Failed to retrieve a token.";
+    private static final Gson GSON = new Gson();
     private final CognitoStackOutputs cognitoStackOutputs;
     private final CognitoClientCredentialsSecret cognitoClientCredentialsSecret;
     private final String authenticationCookieDomain;
+    private final CloseableHttpAsyncClient httpClient;
 
     @Inject
     public CognitoService(
             final CognitoStackOutputs cognitoStackOutputs,
             final CognitoClientCredentialsSecret cognitoClientCredentialsSecret,
-            @AuthenticationCookieDomain final String authenticationCookieDomain
+            @AuthenticationCookieDomain final String authenticationCookieDomain,
+            @CognitoHttpClient final CloseableHttpAsyncClient httpClient
     ) {
         this.cognitoStackOutputs = cognitoStackOutputs;
         this.cognitoClientCredentialsSecret = cognitoClientCredentialsSecret;
         this.authenticationCookieDomain = authenticationCookieDomain;
+        this.httpClient = httpClient;
     }
 
     @Override
@@ -74,10 +81,16 @@ public class CognitoService extends CognitoServiceGrpc.CognitoServiceImplBase im
 
     @Override
     public void processAuthCode(ProcessAuthCodeRequest request, StreamObserver<ProcessAuthCodeResponse> responseObserver) {
-        try {
-            Tokens tokens = getTokens(request.getAuthCode(), responseObserver);
+        // The response is sent from the HTTP client's I/O thread, so the call's context has to be carried over to it.
+        Context context = Context.current();
+
+        getTokens(request.getAuthCode()).whenComplete((tokens, e) -> {
+            if (e != null) {
+                onFailedRequest(responseObserver, TOKEN_REQUEST_FAILURE_MSG, e);
+                return;
+            }
 
-            Context.current().withValue(
+            context.withValue(
                     CookieServerInterceptor.COOKIE_KEY,
                     String.join("|",
                             "logosIdToken=%s; Path=/; Domain=%s; Secure; HttpOnly; SameSite=None; Max-Age=28800".formatted(tokens.id_token, this.authenticationCookieDomain)//,
@@ -89,35 +102,48 @@ public class CognitoService extends CognitoServiceGrpc.CognitoServiceImplBase im
                                                .build());
                 responseObserver.onCompleted();
             }).run();
-        } catch (IOException e) {
-            onFailedRequest(responseObserver, TOKEN_REQUEST_FAILURE_MSG, e);
-        }
+        });
     }
 
-    private Tokens getTokens(String authCode, StreamObserver<ProcessAuthCodeResponse> responseObserver) throws IOException {
-        HttpPost tokenRequest = new HttpPost();
-        tokenRequest.setURI(URI.create(cognitoStackOutputs.cognitoUserPoolDomainBaseUrl() + "/oauth2/token"));
-        tokenRequest.setHeader("Content-Type", "application/x-www-form-urlencoded");
-        tokenRequest.setEntity(new UrlEncodedFormEntity(List.of(
-                new BasicNameValuePair("grant_type", "authorization_code"),
-                new BasicNameValuePair("code", authCode),
-                new BasicNameValuePair("client_id", cognitoClientCredentialsSecret.clientId()),
-                new BasicNameValuePair("client_secret", cognitoClientCredentialsSecret.clientSecret()),
-                new BasicNameValuePair("redirect_uri", cognitoStackOutputs.cognitoUserPoolDomainRedirectUrl())
-        )));
-        tokenRequest.setConfig(RequestConfig.custom()
-                                            .setConnectTimeout(10 * 1000)
-                                            .setConnectionRequestTimeout(10 * 1000)
-                                            .build());
-
-        try (CloseableHttpClient client = HttpClients.createDefault();
-             CloseableHttpResponse tokenResponse = client.execute(tokenRequest)) {
-            if (tokenResponse.getStatusLine().getStatusCode() != HttpStatusCode.OK) {
-                throw new IOException(EntityUtils.toString(tokenResponse.getEntity()));
+    private CompletableFuture<Tokens> getTokens(String authCode) {
+        SimpleHttpRequest tokenRequest =
+                SimpleRequestBuilder.post(URI.create(cognitoStackOutputs.cognitoUserPoolDomainBaseUrl() + "/oauth2/token"))
+                                    .setBody(WWWFormCodec.format(List.of(
+                                            new BasicNameValuePair("grant_type", "authorization_code"),
+                                            new BasicNameValuePair("code", authCode),
+                                            new BasicNameValuePair("client_id", cognitoClientCredentialsSecret.clientId()),
+                                            new BasicNameValuePair("client_secret", cognitoClientCredentialsSecret.clientSecret()),
+                                            new BasicNameValuePair("redirect_uri", cognitoStackOutputs.cognitoUserPoolDomainRedirectUrl())
+                                    ), StandardCharsets.UTF_8), ContentType.APPLICATION_FORM_URLENCODED)
+                                    .build();
+
+        CompletableFuture<Tokens> tokens = new CompletableFuture<>();
+        httpClient.execute(tokenRequest, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse tokenResponse) {
+                if (tokenResponse.getCode() != HttpStatusCode.OK) {
+                    tokens.completeExceptionally(new IOException(tokenResponse.getBodyText()));
+                    return;
+                }
+
+                try {
+                    tokens.complete(GSON.fromJson(tokenResponse.getBodyText(), Tokens.class));
+                } catch (RuntimeException e) {
+                    tokens.completeExceptionally(e);
+                }
             }
 
-            return new Gson().fromJson(EntityUtils.toString(tokenResponse.getEntity()), Tokens.class);
-        }
+            @Override
+            public void failed(Exception e) {
+                tokens.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                tokens.completeExceptionally(new IOException("Token request cancelled"));
+            }
+        });
+        return tokens;
     }
 
     private void runWithContext(Context context, Runnable runnable) {
@@ -1,15 +1,31 @@
 package app.auth.cognito.service;
 
+import app.auth.cognito.interceptor.cookie.CookieServerInterceptor;
 import app.auth.cognito.module.data.CognitoClientCredentialsSecret;
 import app.auth.cognito.module.data.CognitoStackOutputs;
 import app.auth.proto.cognito.GetCurrentUserRequest;
 import app.auth.proto.cognito.GetCurrentUserResponse;
+import app.auth.proto.cognito.ProcessAuthCodeRequest;
+import app.auth.proto.cognito.ProcessAuthCodeResponse;
+import com.sun.net.httpserver.HttpServer;
 import dev.logos.auth.user.User;
 import dev.logos.auth.user.UserContext;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
 import io.grpc.Context;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
@@ -21,7 +37,136 @@ public class CognitoServiceTest {
         return new CognitoService(
                 mock(CognitoStackOutputs.class),
                 mock(CognitoClientCredentialsSecret.class),
-                "example.com");
+                "example.com",
+                mock(CloseableHttpAsyncClient.class));
+    }
+
+    private static HttpServer tokenEndpoint(int status, String body, List<String> requestBodies) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/oauth2/token", exchange -> {
+            requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static CognitoService createService(HttpServer server, CloseableHttpAsyncClient httpClient) {
+        return new CognitoService(
+                new CognitoStackOutputs(
+                        "pool",
+                        "https://app.example.com/callback",
+                        "arn",
+                        "http://127.0.0.1:" + server.getAddress().getPort(),
+                        "signin"),
+                new CognitoClientCredentialsSecret("client", "secret"),
+                "example.com",
+                httpClient);
+    }
+
+    private static class RecordingObserver implements StreamObserver<ProcessAuthCodeResponse> {
+        final CompletableFuture<ProcessAuthCodeResponse> response = new CompletableFuture<>();
+
+        @Override
+        public void onNext(ProcessAuthCodeResponse value) {
+            response.complete(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            response.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+    @Test
+    public void processAuthCode_exchangesCodeOverPooledClient() throws Exception {
+        List<String> requestBodies = new CopyOnWriteArrayList<>();
+        HttpServer server = tokenEndpoint(200, """
+                {"access_token":"a","id_token":"i","refresh_token":"r","token_type":"Bearer","expires_in":3600}
+                """, requestBodies);
+        try (CloseableHttpAsyncClient httpClient =
+                     CognitoHttpClients.create(CognitoHttpClientOptions.DEFAULT, new MetricRegistry())) {
+            CognitoService service = createService(server, httpClient);
+
+            for (String code : List.of("code-1", "code-2")) {
+                RecordingObserver observer = new RecordingObserver();
+                service.processAuthCode(ProcessAuthCodeRequest.newBuilder().setAuthCode(code).build(), observer);
+                assertEquals(3600, observer.response.get(10, TimeUnit.SECONDS).getExpiresIn());
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        assertEquals(2, requestBodies.size());
+        assertTrue(requestBodies.get(0).contains("grant_type=authorization_code"));
+        assertTrue(requestBodies.get(0).contains("code=code-1"));
+    }
+
+    @Test
+    public void processAuthCode_respondsFromCallbackInCallContextWithCookie() throws Exception {
+        record Response(Thread thread, String callValue, String cookie) {
+        }
+        Context.Key<String> callKey = Context.key("call");
+        HttpServer server = tokenEndpoint(200, """
+                {"access_token":"a","id_token":"i","refresh_token":"r","token_type":"Bearer","expires_in":3600}
+                """, new CopyOnWriteArrayList<>());
+        try (CloseableHttpAsyncClient httpClient =
+                     CognitoHttpClients.create(CognitoHttpClientOptions.DEFAULT, new MetricRegistry())) {
+            CognitoService service = createService(server, httpClient);
+            CompletableFuture<Response> response = new CompletableFuture<>();
+            StreamObserver<ProcessAuthCodeResponse> observer = new StreamObserver<>() {
+                @Override
+                public void onNext(ProcessAuthCodeResponse value) {
+                    response.complete(new Response(
+                            Thread.currentThread(), callKey.get(), CookieServerInterceptor.COOKIE_KEY.get()));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    response.completeExceptionally(t);
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            };
+
+            Context.current().withValue(callKey, "call-1").run(() -> service.processAuthCode(
+                    ProcessAuthCodeRequest.newBuilder().setAuthCode("code").build(), observer));
+
+            Response seen = response.get(10, TimeUnit.SECONDS);
+            assertNotSame(Thread.currentThread(), seen.thread());
+            assertEquals("call-1", seen.callValue());
+            assertTrue(seen.cookie().startsWith("logosIdToken=i;"));
+            assertTrue(seen.cookie().contains("Domain=example.com"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void processAuthCode_failsWhenTokenEndpointRejectsCode() throws Exception {
+        HttpServer server = tokenEndpoint(400, "{\"error\":\"invalid_grant\"}", new CopyOnWriteArrayList<>());
+        try (CloseableHttpAsyncClient httpClient =
+                     CognitoHttpClients.create(CognitoHttpClientOptions.DEFAULT, new MetricRegistry())) {
+            CognitoService service = createService(server, httpClient);
+
+            RecordingObserver observer = new RecordingObserver();
+            service.processAuthCode(ProcessAuthCodeRequest.newBuilder().setAuthCode("bad").build(), observer);
+            ExecutionException e = assertThrows(ExecutionException.class,
+                                                () -> observer.response.get(10, TimeUnit.SECONDS));
+            assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(e.getCause()).getCode());
+        } finally {
+            server.stop(0);
+        }
     }
 
     @Test
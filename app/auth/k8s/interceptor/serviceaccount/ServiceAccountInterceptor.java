@@ -1,16 +1,30 @@
 package app.auth.k8s.interceptor.serviceaccount;
 
 import app.auth.k8s.machine.ServiceAccountMachine;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import dev.logos.auth.machine.Machine;
 import io.grpc.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.Optional;
 
 import static dev.logos.auth.machine.MachineContext.MACHINE_CONTEXT_KEY;
 
+@Singleton
 public class ServiceAccountInterceptor implements ServerInterceptor {
     public static final Metadata.Key<String> AUTHORIZATION_METADATA_KEY = Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 1_000;
+
+    // Machines whose tokens have passed verification, keyed by a SHA-256 digest of the token. Projected tokens are
+    // reused by internal callers for up to an hour, so this skips nearly every signature verification.
+    private final Cache<String, ServiceAccountMachine> verifiedMachines = CacheBuilder.newBuilder()
+            .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+            .build();
 
     @Inject
     public ServiceAccountInterceptor() {
@@ -28,7 +42,7 @@ public class ServiceAccountInterceptor implements ServerInterceptor {
 
         if (serviceAccountToken.isPresent()) {
             String token = serviceAccountToken.get();
-            Optional<ServiceAccountMachine> machine = ServiceAccountMachine.fromToken(token);
+            Optional<ServiceAccountMachine> machine = authenticateMachine(token);
             if (machine.isPresent()) {
                 ctx = ctx.withValue(MACHINE_CONTEXT_KEY, machine.get());
             }
@@ -36,4 +50,21 @@ public class ServiceAccountInterceptor implements ServerInterceptor {
 
         return Contexts.interceptCall(ctx, call, internalRequestHeaders, next);
     }
+
+    private Optional<ServiceAccountMachine> authenticateMachine(String token) {
+        String digest = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        ServiceAccountMachine cached = verifiedMachines.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.getExpiration().map(exp -> exp.after(new Date())).orElse(false)) {
+                return Optional.of(cached);
+            }
+            verifiedMachines.invalidate(digest);
+        }
+
+        Optional<ServiceAccountMachine> machine = ServiceAccountMachine.fromToken(token);
+        // Tokens without an expiry are verified on every call rather than cached indefinitely.
+        machine.filter(verified -> verified.getExpiration().isPresent())
+               .ifPresent(verified -> verifiedMachines.put(digest, verified));
+        return machine;
+    }
 }
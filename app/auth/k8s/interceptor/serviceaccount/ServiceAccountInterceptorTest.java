@@ -0,0 +1,118 @@
+package app.auth.k8s.interceptor.serviceaccount;
+
+import app.auth.k8s.machine.ServiceAccountMachine;
+import dev.logos.auth.machine.Machine;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static dev.logos.auth.machine.MachineContext.MACHINE_CONTEXT_KEY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+public class ServiceAccountInterceptorTest {
+    private final ServiceAccountInterceptor interceptor = new ServiceAccountInterceptor();
+    private final List<Machine> machinesSeen = new ArrayList<>();
+    private MockedStatic<ServiceAccountMachine> serviceAccountMachine;
+
+    @Before
+    public void mockVerification() {
+        serviceAccountMachine = mockStatic(ServiceAccountMachine.class);
+    }
+
+    @After
+    public void restoreVerification() {
+        serviceAccountMachine.close();
+    }
+
+    private static ServiceAccountMachine machine(Optional<Date> expiration) {
+        ServiceAccountMachine machine = mock(ServiceAccountMachine.class);
+        when(machine.getExpiration()).thenReturn(expiration);
+        return machine;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void call(String authorization) {
+        Metadata headers = new Metadata();
+        if (authorization != null) {
+            headers.put(ServiceAccountInterceptor.AUTHORIZATION_METADATA_KEY, authorization);
+        }
+        ServerCallHandler<String, String> next = mock(ServerCallHandler.class);
+        when(next.startCall(any(), any())).thenAnswer(invocation -> {
+            machinesSeen.add(MACHINE_CONTEXT_KEY.get());
+            return mock(ServerCall.Listener.class);
+        });
+
+        interceptor.interceptCall(mock(ServerCall.class), headers, next);
+    }
+
+    @Test
+    public void verifiedToken_isServedFromCacheUntilExpiry() {
+        ServiceAccountMachine verified = machine(Optional.of(new Date(System.currentTimeMillis() + 60_000)));
+        serviceAccountMachine.when(() -> ServiceAccountMachine.fromToken("token")).thenReturn(Optional.of(verified));
+
+        call("Bearer token");
+        call("Bearer token");
+        call("Bearer token");
+
+        serviceAccountMachine.verify(() -> ServiceAccountMachine.fromToken("token"), times(1));
+        assertEquals(List.of(verified, verified, verified), machinesSeen);
+    }
+
+    @Test
+    public void expiredCachedToken_isVerifiedAgain() {
+        ServiceAccountMachine expired = machine(Optional.of(new Date(System.currentTimeMillis() - 1_000)));
+        serviceAccountMachine.when(() -> ServiceAccountMachine.fromToken("token"))
+                             .thenReturn(Optional.of(expired), Optional.empty());
+
+        call("Bearer token");
+        call("Bearer token");
+
+        serviceAccountMachine.verify(() -> ServiceAccountMachine.fromToken("token"), times(2));
+        assertSame(expired, machinesSeen.get(0));
+        assertNull(machinesSeen.get(1));
+    }
+
+    @Test
+    public void tokenWithoutExpiry_isVerifiedEveryCall() {
+        ServiceAccountMachine verified = machine(Optional.empty());
+        serviceAccountMachine.when(() -> ServiceAccountMachine.fromToken("token")).thenReturn(Optional.of(verified));
+
+        call("Bearer token");
+        call("Bearer token");
+
+        serviceAccountMachine.verify(() -> ServiceAccountMachine.fromToken("token"), times(2));
+    }
+
+    @Test
+    public void rejectedToken_isNotCached() {
+        serviceAccountMachine.when(() -> ServiceAccountMachine.fromToken("forged")).thenReturn(Optional.empty());
+
+        call("Bearer forged");
+        call("Bearer forged");
+
+        serviceAccountMachine.verify(() -> ServiceAccountMachine.fromToken("forged"), times(2));
+        assertEquals(2, machinesSeen.size());
+        assertNull(machinesSeen.get(0));
+        assertNull(machinesSeen.get(1));
+    }
+
+    @Test
+    public void nonBearerAuthorization_isIgnored() {
+        call("Basic dXNlcjpwYXNz");
+        call(null);
+
+        serviceAccountMachine.verifyNoInteractions();
+    }
+}
@@ -0,0 +1,101 @@
+package app.auth.k8s.machine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * A projected service account token file, read again only after the kubelet rotates it.
+ * <p>
+ * The kubelet rotates projected volumes by swapping the {@code ..data} symlink in the token's directory rather than
+ * writing the file in place, so the whole directory is watched. If the watch cannot be registered, for example because
+ * the directory does not exist outside a pod, the file is read on every call.
+ */
+final class ProjectedTokenFile {
+    private final Path path;
+    private volatile boolean stale = true;
+    private volatile Optional<String> token = Optional.empty();
+    private boolean watching = false;
+    private int reads = 0;
+
+    ProjectedTokenFile(Path path) {
+        this.path = path;
+    }
+
+    Optional<String> read() {
+        startWatching();
+
+        if (!stale) {
+            return token;
+        }
+
+        synchronized (this) {
+            if (stale) {
+                // Cleared before reading so a rotation during the read marks the token stale again.
+                stale = !watching;
+                reads++;
+                try {
+                    token = Optional.of(Files.readString(path, StandardCharsets.UTF_8).trim());
+                } catch (IOException e) {
+                    token = Optional.empty();
+                    stale = true;
+                }
+            }
+            return token;
+        }
+    }
+
+    /**
+     * How many times the file has been read.
+     */
+    synchronized int reads() {
+        return reads;
+    }
+
+    private synchronized void startWatching() {
+        if (watching) {
+            return;
+        }
+
+        WatchService watchService;
+        try {
+            watchService = path.getFileSystem().newWatchService();
+            path.toAbsolutePath().getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException e) {
+            return;
+        }
+
+        watching = true;
+        Thread watcher = new Thread(() -> watch(watchService), "service-account-token-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(WatchService watchService) {
+        try (watchService) {
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                stale = true;
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+        }
+
+        // The directory is gone; fall back to reading on every call.
+        synchronized (this) {
+            watching = false;
+            stale = true;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package app.auth.k8s.machine;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectedTokenFileTest {
+
+    private static Optional<String> awaitToken(ProjectedTokenFile tokenFile, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        Optional<String> token = tokenFile.read();
+        while (!token.equals(Optional.of(expected)) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            token = tokenFile.read();
+        }
+        return token;
+    }
+
+    @Test
+    public void read_picksUpRotatedToken() throws Exception {
+        Path directory = Files.createTempDirectory("serviceaccount");
+        Path token = directory.resolve("token");
+        Files.writeString(token, "first\n", StandardCharsets.UTF_8);
+        ProjectedTokenFile tokenFile = new ProjectedTokenFile(token);
+
+        assertEquals(Optional.of("first"), tokenFile.read());
+        assertEquals(Optional.of("first"), tokenFile.read());
+        // Served from memory until the watch sees a change.
+        assertEquals(1, tokenFile.reads());
+
+        // Rotate the way the kubelet does, by replacing the file rather than writing it in place.
+        Path staged = directory.resolve("..token.tmp");
+        Files.writeString(staged, "second", StandardCharsets.UTF_8);
+        Files.move(staged, token, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        assertEquals(Optional.of("second"), awaitToken(tokenFile, "second"));
+        assertTrue(tokenFile.reads() > 1);
+    }
+
+    @Test
+    public void read_reloadsOnlyAfterModification() throws Exception {
+        Path directory = Files.createTempDirectory("serviceaccount");
+        Path token = directory.resolve("token");
+        Files.writeString(token, "first", StandardCharsets.UTF_8);
+        ProjectedTokenFile tokenFile = new ProjectedTokenFile(token);
+        assertEquals(Optional.of("first"), tokenFile.read());
+
+        Files.writeString(token, "second", StandardCharsets.UTF_8);
+        assertEquals(Optional.of("second"), awaitToken(tokenFile, "second"));
+
+        // Let any remaining events for the write arrive, then check the token is served without reading the file.
+        Thread.sleep(500);
+        tokenFile.read();
+        int reads = tokenFile.reads();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Optional.of("second"), tokenFile.read());
+        }
+        assertEquals(reads, tokenFile.reads());
+    }
+
+    @Test
+    public void read_picksUpTokenCreatedLater() throws Exception {
+        Path directory = Files.createTempDirectory("serviceaccount");
+        Path token = directory.resolve("token");
+        ProjectedTokenFile tokenFile = new ProjectedTokenFile(token);
+
+        assertTrue(tokenFile.read().isEmpty());
+
+        Files.writeString(token, "created", StandardCharsets.UTF_8);
+        assertEquals(Optional.of("created"), awaitToken(tokenFile, "created"));
+    }
+}
@@ -9,7 +9,6 @@ import io.jsonwebtoken.Jwts;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.security.PublicKey;
@@ -24,6 +23,8 @@ public class ServiceAccountMachine extends Machine {
     private static final String TOKEN_PATH = "/var/run/secrets/kubernetes.io/serviceaccount/token";
     private static final String CA_CERT_PATH = "/var/run/secrets/kubernetes.io/serviceaccount/ca.crt";
 
+    private static final ProjectedTokenFile TOKEN_FILE = new ProjectedTokenFile(Paths.get(TOKEN_PATH));
+
     private static final Optional<PublicKey> PUBLIC_KEY;
     private static final Optional<Exception> PUBLIC_KEY_ERROR;
 
@@ -43,6 +44,8 @@ public class ServiceAccountMachine extends Machine {
         PUBLIC_KEY_ERROR = error;
     }
 
+    private static volatile ServiceAccountMachine podMachine;
+
     private final String token;
     private final Claims claims;
 
@@ -56,13 +59,21 @@ public class ServiceAccountMachine extends Machine {
         return forPod().orElseThrow(() -> new IllegalStateException("Unable to find service account token"));
     }
 
+    /**
+     * The machine for this pod's projected token. The token file is read again only after it is rotated, and the
+     * token is only validated again when it changes or expires.
+     */
     public static Optional<ServiceAccountMachine> forPod() {
-        try {
-            String token = readFileContent();
-            return fromToken(token);
-        } catch (IOException e) {
-            return Optional.empty();
-        }
+        return TOKEN_FILE.read().flatMap(token -> {
+            ServiceAccountMachine cached = podMachine;
+            if (cached != null && cached.token.equals(token) && !cached.isExpired()) {
+                return Optional.of(cached);
+            }
+
+            Optional<ServiceAccountMachine> machine = fromToken(token);
+            podMachine = machine.orElse(null);
+            return machine;
+        });
     }
 
     public static Optional<ServiceAccountMachine> fromToken(String token) {
@@ -74,10 +85,6 @@ public class ServiceAccountMachine extends Machine {
         }
     }
 
-    private static String readFileContent() throws IOException {
-        return Files.readString(Paths.get(TOKEN_PATH), StandardCharsets.UTF_8).trim();
-    }
-
     public static Claims validateToken(String token) throws IOException, CertificateException {
         if (getPublicKey().isEmpty()) {
             IllegalStateException ex = new IllegalStateException("Kubernetes CA certificate unavailable, cannot validate token");
@@ -128,6 +135,14 @@ public class ServiceAccountMachine extends Machine {
         return claims;
     }
 
+    public Optional<Date> getExpiration() {
+        return Optional.ofNullable(claims.getExpiration());
+    }
+
+    private boolean isExpired() {
+        return getExpiration().map(exp -> exp.before(new Date())).orElse(false);
+    }
+
     public CallCredentials callCredentials() {
         return new CallCredentials() {
             @Override
@@ -3,9 +3,12 @@ package dev.logos.app;
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
 import com.google.inject.Provider;
+import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.MapBinder;
 import com.google.inject.multibindings.Multibinder;
 import dev.logos.service.Service;
+import dev.logos.service.backend.server.bulkhead.BulkheadConfig;
 import io.grpc.*;
 import io.grpc.stub.AbstractStub;
 import software.amazon.awscdk.Stack;
@@ -52,7 +55,12 @@ public abstract class AppModule extends AbstractModule {
         }
     };
 
+    /**
+     * Services are singletons: the servers, the guard and in-process routing all see the same instance, so state a
+     * service holds, such as its result caches and their invalidation subscriptions, exists once.
+     */
     protected void service(Class<? extends Service> serviceClass) {
+        bind(serviceClass).in(Singleton.class);
         Multibinder
                 .newSetBinder(binder(), Service.class)
                 .addBinding().to(serviceClass);
@@ -65,6 +73,16 @@ public abstract class AppModule extends AbstractModule {
         }
     }
 
+    /**
+     * Runs calls to {@code serviceOrMethod}, a full service name like {@code "app.ReportService"} or a full method name
+     * like {@code "app.ReportService/Export"}, on their own executor.
+     */
+    protected void bulkhead(String serviceOrMethod, int threads, int queueLimit) {
+        MapBinder
+                .newMapBinder(binder(), String.class, BulkheadConfig.class)
+                .addBinding(serviceOrMethod).toInstance(new BulkheadConfig(threads, queueLimit));
+    }
+
     protected void interceptor(Class<? extends ServerInterceptor> interceptorClass) {
         Multibinder
                 .newSetBinder(binder(), ServerInterceptor.class)
@@ -78,6 +96,15 @@ public abstract class AppModule extends AbstractModule {
         }
     }
 
+    /**
+     * Adds {@code interceptorClass} to every channel stubs are built on, in process and to peers.
+     */
+    protected void clientInterceptor(Class<? extends ClientInterceptor> interceptorClass) {
+        Multibinder
+                .newSetBinder(binder(), ClientInterceptor.class)
+                .addBinding().to(interceptorClass);
+    }
+
     @SafeVarargs
     protected final void clients(Function<ManagedChannel, ? extends AbstractStub<?>>... stubFactories) {
         for (Function<ManagedChannel, ? extends AbstractStub<?>> stubFactory : stubFactories) {
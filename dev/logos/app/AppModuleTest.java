@@ -0,0 +1,41 @@
+package dev.logos.app;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import dev.logos.service.Service;
+import io.grpc.ServerServiceDefinition;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class AppModuleTest {
+    public static class TestService implements Service {
+        @Override
+        public ServerServiceDefinition bindService() {
+            return ServerServiceDefinition.builder("test.TestService").build();
+        }
+    }
+
+    @Test
+    public void service_isOneInstanceEverywhereItIsInjected() {
+        Injector injector = Guice.createInjector(new AppModule() {
+            @Override
+            protected void configure() {
+                services(TestService.class);
+            }
+        });
+        Key<Set<Service>> services = Key.get(new TypeLiteral<>() {
+        });
+
+        Service service = injector.getInstance(services).iterator().next();
+
+        assertEquals(1, injector.getInstance(services).size());
+        assertSame(service, injector.getInstance(services).iterator().next());
+        assertSame(service, injector.getInstance(TestService.class));
+    }
+}
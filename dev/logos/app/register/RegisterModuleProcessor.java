@@ -10,17 +10,26 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.lang.model.SourceVersion.RELEASE_8;
 import static javax.tools.StandardLocation.CLASS_OUTPUT;
 
-
+/**
+ * Records the classes annotated with {@link registerModule} so {@code ModuleLoader} can install them at startup.
+ * <p>
+ * Every module of a compilation is listed in {@link #MODULE_INDEX}. It lives under {@code META-INF/services} so deploy
+ * jar builds merge it like any other service file, leaving one index per jar that is found with
+ * {@link ClassLoader#getResources(String)}. The per-package {@code META-INF/app-modules-*} files are still written for
+ * loaders that scan jar entries.
+ */
 @SupportedAnnotationTypes("dev.logos.app.register.registerModule")
 @SupportedSourceVersion(RELEASE_8)
 public class RegisterModuleProcessor extends AbstractProcessor {
+    public static final String MODULE_INDEX = "META-INF/services/dev.logos.app.register.registerModule";
 
-    private static final Set<Element> annotatedClasses = new HashSet<>();
+    private final Set<Element> annotatedClasses = new HashSet<>();
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
@@ -47,6 +56,16 @@ public class RegisterModuleProcessor extends AbstractProcessor {
                         writer.write(element.toString() + "\n");
                     }
                 }
+
+                Set<String> moduleNames = new TreeSet<>();
+                annotatedClasses.forEach(element -> moduleNames.add(element.toString()));
+
+                FileObject index = filer.createResource(CLASS_OUTPUT, "", MODULE_INDEX);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(index.openOutputStream(), UTF_8))) {
+                    for (String moduleName : moduleNames) {
+                        writer.write(moduleName + "\n");
+                    }
+                }
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -0,0 +1,77 @@
+package dev.logos.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads calls round-robin over several channels to the same target, so one connection's concurrent stream limit and
+ * event loop do not cap throughput to a hot target.
+ */
+public class ChannelPool extends ManagedChannel {
+    private final List<ManagedChannel> channels;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ChannelPool(List<ManagedChannel> channels) {
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("A channel pool needs at least one channel");
+        }
+        this.channels = List.copyOf(channels);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+            MethodDescriptor<ReqT, RespT> methodDescriptor,
+            CallOptions callOptions
+    ) {
+        return channels.get(Math.floorMod(next.getAndIncrement(), channels.size()))
+                       .newCall(methodDescriptor, callOptions);
+    }
+
+    int size() {
+        return channels.size();
+    }
+
+    @Override
+    public String authority() {
+        return channels.get(0).authority();
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        channels.forEach(ManagedChannel::shutdown);
+        return this;
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        channels.forEach(ManagedChannel::shutdownNow);
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return channels.stream().allMatch(ManagedChannel::isShutdown);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return channels.stream().allMatch(ManagedChannel::isTerminated);
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ManagedChannel channel : channels) {
+            if (!channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package dev.logos.channel;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.inprocess.InProcessChannelBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns every channel the process's stubs use: one in-process channel and one {@link ChannelPool} per network target,
+ * each built once with the bound client interceptors. Shut down by {@code ServerExecutor} after the servers.
+ * <p>
+ * The in-process channel runs client callbacks on the calling thread when {@link InProcessExecution#DIRECT} is bound
+ * (by {@code ServerModule}) or set in the environment.
+ */
+@Singleton
+public class ChannelRegistry {
+    public static final String IN_PROCESS_NAME = "logos-in-process";
+
+    private final Set<ClientInterceptor> clientInterceptors;
+    private final Map<String, ChannelPool> networkChannels = new ConcurrentHashMap<>();
+    private InProcessExecution inProcessExecution = InProcessExecution.fromEnvironment();
+    private volatile ManagedChannel inProcessChannel;
+
+    @Inject
+    public ChannelRegistry(Set<ClientInterceptor> clientInterceptors) {
+        this.clientInterceptors = clientInterceptors;
+    }
+
+    @Inject(optional = true)
+    void setInProcessExecution(InProcessExecution inProcessExecution) {
+        this.inProcessExecution = inProcessExecution;
+    }
+
+    public ManagedChannel inProcess() {
+        ManagedChannel channel = inProcessChannel;
+        if (channel == null) {
+            synchronized (this) {
+                if (inProcessChannel == null) {
+                    InProcessChannelBuilder channelBuilder = InProcessChannelBuilder.forName(IN_PROCESS_NAME);
+                    if (inProcessExecution == InProcessExecution.DIRECT) {
+                        channelBuilder.directExecutor();
+                    }
+                    for (ClientInterceptor interceptor : clientInterceptors) {
+                        channelBuilder.intercept(interceptor);
+                    }
+                    inProcessChannel = channelBuilder.build();
+                }
+                channel = inProcessChannel;
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * A pool of {@code poolSize} channels to {@code target}, created on first use and shared by every later caller.
+     *
+     * @throws IllegalArgumentException if the pool for {@code target} was created with a different size
+     */
+    public ManagedChannel network(String target, int poolSize) {
+        ChannelPool pool = networkChannels.computeIfAbsent(target, ignored -> {
+            List<ManagedChannel> channels = new ArrayList<>(poolSize);
+            for (int i = 0; i < poolSize; i++) {
+                ManagedChannelBuilder<?> channelBuilder = ManagedChannelBuilder.forTarget(target)
+                                                                               .defaultLoadBalancingPolicy("round_robin")
+                                                                               .usePlaintext();
+                for (ClientInterceptor interceptor : clientInterceptors) {
+                    channelBuilder.intercept(interceptor);
+                }
+                channels.add(channelBuilder.build());
+            }
+            return new ChannelPool(channels);
+        });
+        if (pool.size() != poolSize) {
+            throw new IllegalArgumentException("Channels to %s were already created with a pool of %d, not %d"
+                    .formatted(target, pool.size(), poolSize));
+        }
+        return pool;
+    }
+
+    private List<ManagedChannel> channels() {
+        List<ManagedChannel> channels = new ArrayList<>(networkChannels.values());
+        if (inProcessChannel != null) {
+            channels.add(inProcessChannel);
+        }
+        return channels;
+    }
+
+    public void shutdown() {
+        channels().forEach(ManagedChannel::shutdown);
+    }
+
+    /**
+     * Waits for every channel to terminate, forcing down each one still running at the deadline.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+        for (ManagedChannel channel : channels()) {
+            // Once the deadline has passed this only checks, so every channel left running is forced down.
+            if (!channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                channel.shutdownNow();
+                terminated = false;
+            }
+        }
+        return terminated;
+    }
+}
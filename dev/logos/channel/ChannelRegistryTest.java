@@ -0,0 +1,54 @@
+package dev.logos.channel;
+
+import io.grpc.ManagedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelRegistryTest {
+    private ChannelRegistry channelRegistry;
+
+    @Before
+    public void setUp() {
+        channelRegistry = new ChannelRegistry(Set.of());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        channelRegistry.shutdown();
+        channelRegistry.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void network_sameTarget_sharesPool() {
+        ManagedChannel channel = channelRegistry.network("localhost:50051", 2);
+
+        assertSame(channel, channelRegistry.network("localhost:50051", 2));
+    }
+
+    @Test
+    public void network_differentPoolSize_isRejected() {
+        channelRegistry.network("localhost:50051", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> channelRegistry.network("localhost:50051", 3));
+    }
+
+    @Test
+    public void awaitTermination_afterShutdown_terminatesEveryChannel() throws InterruptedException {
+        ManagedChannel network = channelRegistry.network("localhost:50051", 2);
+        ManagedChannel inProcess = channelRegistry.inProcess();
+
+        channelRegistry.shutdown();
+
+        assertTrue(channelRegistry.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(network.isTerminated());
+        assertTrue(inProcess.isTerminated());
+    }
+}
@@ -0,0 +1,25 @@
+package dev.logos.channel;
+
+import java.util.Optional;
+
+/**
+ * How calls over the {@code logos-in-process} server and channel are executed.
+ */
+public enum InProcessExecution {
+    /**
+     * Every call and client callback is handed off to a thread pool, as calls arriving over the network are.
+     */
+    POOLED,
+    /**
+     * Methods marked {@code @NonBlocking} and client callbacks run on the calling thread; other methods still run on
+     * the in-process pool. Saves the handoffs on both sides of every hop in fan-out service compositions.
+     */
+    DIRECT;
+
+    public static InProcessExecution fromEnvironment() {
+        return Optional.ofNullable(System.getenv("LOGOS_IN_PROCESS_EXECUTION"))
+                       .filter(mode -> !mode.isBlank())
+                       .map(mode -> InProcessExecution.valueOf(mode.toUpperCase()))
+                       .orElse(POOLED);
+    }
+}
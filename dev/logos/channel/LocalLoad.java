@@ -0,0 +1,11 @@
+package dev.logos.channel;
+
+/**
+ * How busy this process's server is, as the fraction of its call capacity in use. May exceed 1 when calls are queued.
+ */
+@FunctionalInterface
+public interface LocalLoad {
+    LocalLoad IDLE = () -> 0;
+
+    double utilization();
+}
@@ -0,0 +1,115 @@
+package dev.logos.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Sends each call to the in-process server when the target service is bound locally and the local server has headroom,
+ * and to peer pods over the network otherwise.
+ * <p>
+ * The network channel is created on the first call that needs it. Without one, every call stays in process.
+ */
+public class RoutingChannel extends ManagedChannel {
+    private final ManagedChannel inProcessChannel;
+    private final Supplier<Optional<ManagedChannel>> networkChannel;
+    private final Predicate<String> isLocalService;
+    private final LocalLoad localLoad;
+    private final double spilloverUtilization;
+    private volatile boolean networkChannelCreated = false;
+
+    public RoutingChannel(
+            ManagedChannel inProcessChannel,
+            Supplier<Optional<ManagedChannel>> networkChannel,
+            Predicate<String> isLocalService,
+            LocalLoad localLoad,
+            double spilloverUtilization
+    ) {
+        this.inProcessChannel = inProcessChannel;
+        this.networkChannel = memoize(networkChannel);
+        this.isLocalService = isLocalService;
+        this.localLoad = localLoad;
+        this.spilloverUtilization = spilloverUtilization;
+    }
+
+    private Supplier<Optional<ManagedChannel>> memoize(Supplier<Optional<ManagedChannel>> supplier) {
+        return new Supplier<>() {
+            private Optional<ManagedChannel> channel;
+
+            @Override
+            public synchronized Optional<ManagedChannel> get() {
+                if (channel == null) {
+                    channel = supplier.get();
+                    networkChannelCreated = true;
+                }
+                return channel;
+            }
+        };
+    }
+
+    ManagedChannel route(MethodDescriptor<?, ?> method) {
+        if (isLocalService.test(method.getServiceName()) && localLoad.utilization() < spilloverUtilization) {
+            return inProcessChannel;
+        }
+        return networkChannel.get().orElse(inProcessChannel);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+            MethodDescriptor<ReqT, RespT> methodDescriptor,
+            CallOptions callOptions
+    ) {
+        return route(methodDescriptor).newCall(methodDescriptor, callOptions);
+    }
+
+    @Override
+    public String authority() {
+        return inProcessChannel.authority();
+    }
+
+    private Optional<ManagedChannel> createdNetworkChannel() {
+        return networkChannelCreated ? networkChannel.get() : Optional.empty();
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        inProcessChannel.shutdown();
+        createdNetworkChannel().ifPresent(ManagedChannel::shutdown);
+        return this;
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        inProcessChannel.shutdownNow();
+        createdNetworkChannel().ifPresent(ManagedChannel::shutdownNow);
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return inProcessChannel.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return inProcessChannel.isTerminated()
+                && createdNetworkChannel().map(ManagedChannel::isTerminated).orElse(true);
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!inProcessChannel.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        Optional<ManagedChannel> network = createdNetworkChannel();
+        return network.isEmpty()
+                || network.get().awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,98 @@
+package dev.logos.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+public class RoutingChannelTest {
+    private static final String SERVICE_NAME = "app.ReportService";
+    @SuppressWarnings("unchecked")
+    private static final MethodDescriptor<String, String> EXPORT = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName(SERVICE_NAME + "/Export")
+            .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+            .setResponseMarshaller(mock(MethodDescriptor.Marshaller.class))
+            .build();
+
+    private ManagedChannel inProcess;
+    private ManagedChannel network;
+
+    @Before
+    public void setUp() {
+        inProcess = mock(ManagedChannel.class);
+        network = mock(ManagedChannel.class);
+    }
+
+    private RoutingChannel channel(Set<String> localServices, LocalLoad localLoad) {
+        return new RoutingChannel(inProcess, () -> Optional.of(network), localServices::contains, localLoad, 0.9);
+    }
+
+    @Test
+    public void localService_idle_staysInProcess() {
+        RoutingChannel channel = channel(Set.of(SERVICE_NAME), LocalLoad.IDLE);
+
+        assertSame(inProcess, channel.route(EXPORT));
+    }
+
+    @Test
+    public void localService_belowSpillover_staysInProcess() {
+        RoutingChannel channel = channel(Set.of(SERVICE_NAME), () -> 0.89);
+
+        assertSame(inProcess, channel.route(EXPORT));
+    }
+
+    @Test
+    public void localService_atSpillover_goesToPeers() {
+        RoutingChannel channel = channel(Set.of(SERVICE_NAME), () -> 0.9);
+
+        assertSame(network, channel.route(EXPORT));
+    }
+
+    @Test
+    public void remoteService_goesToPeersEvenWhenIdle() {
+        RoutingChannel channel = channel(Set.of("app.OtherService"), LocalLoad.IDLE);
+
+        assertSame(network, channel.route(EXPORT));
+    }
+
+    @Test
+    public void withoutPeers_everythingStaysInProcess() {
+        RoutingChannel channel = new RoutingChannel(inProcess, Optional::empty, service -> false, () -> 2.0, 0.9);
+
+        assertSame(inProcess, channel.route(EXPORT));
+    }
+
+    @Test
+    public void networkChannel_isCreatedOnceAndOnlyWhenNeeded() {
+        AtomicInteger created = new AtomicInteger();
+        RoutingChannel channel = new RoutingChannel(inProcess, () -> {
+            created.incrementAndGet();
+            return Optional.of(network);
+        }, service -> true, LocalLoad.IDLE, 0.9);
+
+        channel.route(EXPORT);
+        channel.shutdown();
+        assertEquals(0, created.get());
+        verify(network, never()).shutdown();
+
+        RoutingChannel spilling = new RoutingChannel(inProcess, () -> {
+            created.incrementAndGet();
+            return Optional.of(network);
+        }, service -> false, LocalLoad.IDLE, 0.9);
+        spilling.route(EXPORT);
+        spilling.route(EXPORT);
+        spilling.shutdown();
+        assertEquals(1, created.get());
+        verify(network).shutdown();
+    }
+}
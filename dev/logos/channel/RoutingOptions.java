@@ -0,0 +1,42 @@
+package dev.logos.channel;
+
+import java.util.Optional;
+
+/**
+ * Settings for the {@link RoutingChannel} that stubs use. Override the default binding with
+ * {@code OptionalBinder.newOptionalBinder(binder(), RoutingOptions.class).setBinding().toInstance(...)}.
+ *
+ * @param peerTarget           gRPC target of this app's peer pods, e.g. {@code dns:///backend-headless:8081}; calls
+ *                             stay in process when unset
+ * @param spilloverUtilization local utilization at and above which calls go to peers
+ * @param peerChannels         channels in the round-robin pool to the peers
+ */
+public record RoutingOptions(
+        String peerTarget,
+        double spilloverUtilization,
+        int peerChannels
+) {
+    public static final double DEFAULT_SPILLOVER_UTILIZATION = 0.9;
+    public static final int DEFAULT_PEER_CHANNELS = 2;
+
+    public RoutingOptions {
+        if (peerChannels <= 0) {
+            throw new IllegalArgumentException("peerChannels must be positive, got " + peerChannels);
+        }
+    }
+
+    public static RoutingOptions fromEnvironment() {
+        return new RoutingOptions(
+                System.getenv("LOGOS_PEER_TARGET"),
+                Optional.ofNullable(System.getenv("LOGOS_SPILLOVER_UTILIZATION"))
+                        .map(Double::parseDouble)
+                        .orElse(DEFAULT_SPILLOVER_UTILIZATION),
+                Optional.ofNullable(System.getenv("LOGOS_PEER_CHANNELS"))
+                        .map(Integer::parseInt)
+                        .orElse(DEFAULT_PEER_CHANNELS));
+    }
+
+    public Optional<String> peers() {
+        return Optional.ofNullable(peerTarget).filter(target -> !target.isBlank());
+    }
+}
@@ -1,31 +1,67 @@
 package dev.logos.client.module;
 
+import com.google.common.base.Suppliers;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.multibindings.ProvidesIntoOptional;
 import dev.logos.app.AppModule;
 import dev.logos.app.register.registerModule;
+import dev.logos.channel.ChannelRegistry;
+import dev.logos.channel.LocalLoad;
+import dev.logos.channel.RoutingChannel;
+import dev.logos.channel.RoutingOptions;
+import dev.logos.service.Service;
 import io.grpc.ClientInterceptor;
 import io.grpc.ManagedChannel;
-import io.grpc.inprocess.InProcessChannelBuilder;
 
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 @registerModule
 public class ClientModule extends AppModule {
     @Override
     protected void configure() {
         Multibinder.newSetBinder(binder(), ClientInterceptor.class);
+        Multibinder.newSetBinder(binder(), Service.class);
+        OptionalBinder.newOptionalBinder(binder(), new TypeLiteral<Map<String, Service>>() {
+        });
+        OptionalBinder.newOptionalBinder(binder(), LocalLoad.class)
+                      .setDefault().toInstance(LocalLoad.IDLE);
+        OptionalBinder.newOptionalBinder(binder(), RoutingOptions.class)
+                      .setDefault().toInstance(RoutingOptions.fromEnvironment());
     }
 
+    /**
+     * One routing channel for every stub in the process. The underlying channels come from the {@link ChannelRegistry},
+     * which applies the client interceptors once per channel and is shut down with the servers.
+     * <p>
+     * Calls stay in process only for services the server module has bound; without it there is no in-process server.
+     */
     @ProvidesIntoOptional(ProvidesIntoOptional.Type.DEFAULT)
-    public ManagedChannel provideManagedChannel(Set<ClientInterceptor> clientInterceptors) {
-        /* TODO select in-process vs network channel with offload logic */
-        InProcessChannelBuilder channelBuilder = InProcessChannelBuilder.forName("logos-in-process");
+    @Singleton
+    public ManagedChannel provideManagedChannel(
+            ChannelRegistry channelRegistry,
+            Provider<Optional<Map<String, Service>>> serviceMap,
+            LocalLoad localLoad,
+            RoutingOptions routingOptions
+    ) {
+        Supplier<Optional<ManagedChannel>> networkChannel = () -> routingOptions.peers().map(
+                target -> channelRegistry.network(target, routingOptions.peerChannels()));
 
-        for (ClientInterceptor interceptor : clientInterceptors) {
-            channelBuilder.intercept(interceptor);
-        }
+        // Services may depend on stubs, so the local service names are resolved on the first call rather than here.
+        Supplier<Set<String>> localServices = Suppliers.memoize(
+                () -> serviceMap.get().map(services -> Set.copyOf(services.keySet())).orElse(Set.of()));
 
-        return channelBuilder.build();
+        return new RoutingChannel(
+                channelRegistry.inProcess(),
+                networkChannel,
+                service -> localServices.get().contains(service),
+                localLoad,
+                routingOptions.spilloverUtilization());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package dev.logos.client.module;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.util.Modules;
+import dev.logos.service.Service;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ClientModuleTest {
+    private static final Key<Optional<Map<String, Service>>> SERVICE_MAP =
+            Key.get(new TypeLiteral<Optional<Map<String, Service>>>() {
+            });
+
+    @SuppressWarnings("unchecked")
+    private static final MethodDescriptor<String, String> EXPORT = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName("app.ReportService/Export")
+            .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+            .setResponseMarshaller(mock(MethodDescriptor.Marshaller.class))
+            .build();
+
+    private final AtomicInteger serviceMapsBuilt = new AtomicInteger();
+    private ManagedChannel channel;
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.shutdownNow();
+        }
+    }
+
+    /**
+     * Binds the service map the way the server module does.
+     */
+    private class ServerServices extends AbstractModule {
+        @Provides
+        @Singleton
+        Map<String, Service> provideServiceMap() {
+            serviceMapsBuilt.incrementAndGet();
+            return Map.of("app.ReportService", mock(Service.class));
+        }
+    }
+
+    @Test
+    public void serviceMap_presentWhenServerBindsIt() {
+        Injector injector = Guice.createInjector(Modules.combine(new ClientModule(), new ServerServices()));
+
+        assertTrue(injector.getInstance(SERVICE_MAP).isPresent());
+    }
+
+    @Test
+    public void serviceMap_absentWithoutServer() {
+        Injector injector = Guice.createInjector(new ClientModule());
+
+        assertFalse(injector.getInstance(SERVICE_MAP).isPresent());
+    }
+
+    @Test
+    public void managedChannel_resolvesLocalServicesOnceOnFirstCall() {
+        Injector injector = Guice.createInjector(Modules.combine(new ClientModule(), new ServerServices()));
+
+        channel = injector.getInstance(ManagedChannel.class);
+        assertEquals(0, serviceMapsBuilt.get());
+
+        channel.newCall(EXPORT, CallOptions.DEFAULT);
+        channel.newCall(EXPORT, CallOptions.DEFAULT);
+        assertEquals(1, serviceMapsBuilt.get());
+    }
+}
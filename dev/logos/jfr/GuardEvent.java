@@ -0,0 +1,27 @@
+package dev.logos.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A service's guard deciding whether to admit a request message.
+ */
+@Name("dev.logos.Guard")
+@Label("Guard")
+@Category({"Logos", "gRPC"})
+@Description("A service guard deciding whether to admit a request")
+@StackTrace(false)
+public class GuardEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Allowed")
+    public boolean allowed;
+
+    @Label("Status")
+    @Description("Status the call was closed with, if the request was refused")
+    public String status;
+}
@@ -0,0 +1,26 @@
+package dev.logos.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A fetch of a JSON Web Key Set used to verify tokens.
+ */
+@Name("dev.logos.JwksFetch")
+@Label("JWKS Fetch")
+@Category({"Logos", "Auth"})
+@Description("A fetch of a JSON Web Key Set")
+@StackTrace(false)
+public class JwksFetchEvent extends jdk.jfr.Event {
+    @Label("URI")
+    public String uri;
+
+    @Label("Keys")
+    public int keys;
+
+    @Label("Failed")
+    public boolean failed;
+}
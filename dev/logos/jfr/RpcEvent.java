@@ -0,0 +1,25 @@
+package dev.logos.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One server call, from when it is started until it is closed or cancelled. The event is committed on the thread that
+ * ends the call, which need not be the one that started it.
+ */
+@Name("dev.logos.Rpc")
+@Label("RPC")
+@Category({"Logos", "gRPC"})
+@Description("A gRPC call handled by the server")
+@StackTrace(false)
+public class RpcEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    @Description("Code of the status the call was closed with, or CANCELLED if it ended before it was closed")
+    public String status;
+}
@@ -0,0 +1,52 @@
+package dev.logos.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call to an exported storage function by a generated handler, from opening its statement until its results are
+ * exhausted or it fails. Closing the event commits it, so it can be used as a try-with-resources resource; a call that
+ * is closed without {@link #complete()} is recorded as failed.
+ */
+@Name("dev.logos.StorageQuery")
+@Label("Storage Query")
+@Category({"Logos", "Storage"})
+@Description("A call to an exported storage function")
+@StackTrace(false)
+public class StorageQueryEvent extends jdk.jfr.Event implements AutoCloseable {
+    @Label("Function")
+    public String function;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Completed")
+    public boolean completed;
+
+    public static StorageQueryEvent start(String function) {
+        StorageQueryEvent event = new StorageQueryEvent();
+        event.function = function;
+        event.begin();
+        return event;
+    }
+
+    public void row() {
+        rows++;
+    }
+
+    public void rows(long count) {
+        rows += count;
+    }
+
+    public void complete() {
+        completed = true;
+    }
+
+    @Override
+    public void close() {
+        commit();
+    }
+}
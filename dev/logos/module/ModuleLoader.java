@@ -6,21 +6,27 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.Stage;
+import dev.logos.app.register.RegisterModuleProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.net.JarURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
 import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class ModuleLoader extends AbstractModule {
     private static final String META_INF_DIR = "META-INF";
     private static final String APP_MODULE_PREFIX = META_INF_DIR + "/app-modules-";
@@ -61,36 +67,126 @@ public class ModuleLoader extends AbstractModule {
     }
 
     private void discoverModules(ClassLoader classLoader) throws IOException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        long discoverStart = System.nanoTime();
+        boolean scanUnindexed = Boolean.parseBoolean(getEnvOrDefault("LOGOS_SCAN_UNINDEXED_JARS", "false"));
+        Set<String> appModules = findModules(classLoader, scanUnindexed);
+        logPhase("discover", discoverStart)
+                .addKeyValue("modules", appModules.size())
+                .log("Discovered app modules");
+
+        long installStart = System.nanoTime();
+        for (String appModule : appModules) {
+            try {
+                Class<?> clazz = Class.forName(appModule, true, classLoader);
+
+                logger.atInfo()
+                      .addKeyValue("module", clazz.getCanonicalName())
+                      .log("Loading module");
+                install((AbstractModule) clazz.getDeclaredConstructor().newInstance());
+            } catch (ClassNotFoundException e) {
+                logger.atError()
+                      .setCause(e)
+                      .addKeyValue("class", appModule)
+                      .log("Error loading class");
+                throw new RuntimeException(e);
+            }
+        }
+        logPhase("install", installStart).addKeyValue("modules", appModules.size()).log("Installed app modules");
+    }
+
+    /**
+     * The modules listed in the module index, or, when no jar carries one, those found by {@link #scanUnindexedJars}.
+     * Deploy jars merge every index into one, so an index anywhere means the classpath was built with it and the scan,
+     * which enumerates every entry of every jar, is skipped. A classpath mixing indexed jars with older ones must set
+     * {@code scanUnindexed} ({@code LOGOS_SCAN_UNINDEXED_JARS}) to have the older jars scanned too.
+     */
+    static Set<String> findModules(ClassLoader classLoader, boolean scanUnindexed) throws IOException {
+        Set<String> appModules = readModuleIndex(classLoader);
+        if (!appModules.isEmpty() && !scanUnindexed) {
+            return appModules;
+        }
+
+        Set<String> unindexedModules = scanUnindexedJars(classLoader);
+        if (!unindexedModules.isEmpty()) {
+            logger.atWarn()
+                  .addKeyValue("modules", unindexedModules.size())
+                  .log("Scanned jars without a module index; rebuild them to skip the scan");
+            appModules.addAll(unindexedModules);
+        }
+        return appModules;
+    }
+
+    /**
+     * Reads the module index that {@link RegisterModuleProcessor} writes into every jar, without enumerating jar
+     * entries.
+     */
+    static Set<String> readModuleIndex(ClassLoader classLoader) throws IOException {
+        Enumeration<URL> indexes = classLoader.getResources(RegisterModuleProcessor.MODULE_INDEX);
+
+        Set<String> appModules = new LinkedHashSet<>();
+        while (indexes.hasMoreElements()) {
+            URL index = indexes.nextElement();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), UTF_8))) {
+                String appModuleClassName;
+                while ((appModuleClassName = reader.readLine()) != null) {
+                    appModuleClassName = appModuleClassName.strip();
+                    if (!appModuleClassName.isEmpty() && !appModuleClassName.startsWith("#")) {
+                        appModules.add(appModuleClassName);
+                        logger.atDebug()
+                              .addKeyValue("requestedModule", appModuleClassName)
+                              .addKeyValue("requestedBy", index)
+                              .log("Loading module index entry");
+                    }
+                }
+            }
+        }
+        return appModules;
+    }
+
+    /**
+     * Reads the per-package {@code META-INF/app-modules-*} files of jars built before {@link RegisterModuleProcessor}
+     * wrote {@link RegisterModuleProcessor#MODULE_INDEX}. Jars that carry the index are looked up by name and skipped,
+     * so only older jars have their entries enumerated.
+     */
+    static Set<String> scanUnindexedJars(ClassLoader classLoader) throws IOException {
         Enumeration<URL> resources = classLoader.getResources(META_INF_DIR);
 
-        Set<String> appModules = new HashSet<>();
+        Set<String> appModules = new LinkedHashSet<>();
         while (resources.hasMoreElements()) {
             URL url = resources.nextElement();
 
-            JarURLConnection connection = (JarURLConnection) url.openConnection();
+            URLConnection urlConnection = url.openConnection();
+            if (!(urlConnection instanceof JarURLConnection connection)) {
+                logger.atDebug().addKeyValue("url", url).log("Skipping non-jar " + META_INF_DIR + " resource");
+                continue;
+            }
+            connection.setUseCaches(false);
             try (JarFile jarFile = connection.getJarFile()) {
-                Enumeration<JarEntry> entries = jarFile.entries();
+                if (jarFile.getEntry(RegisterModuleProcessor.MODULE_INDEX) != null) {
+                    continue;
+                }
 
+                Enumeration<JarEntry> entries = jarFile.entries();
                 while (entries.hasMoreElements()) {
-                    String entryName = entries.nextElement().getName();
+                    JarEntry entry = entries.nextElement();
 
-                    if (entryName.startsWith(APP_MODULE_PREFIX)) {
+                    if (entry.getName().startsWith(APP_MODULE_PREFIX)) {
                         logger.atInfo()
-                              .addKeyValue("appModule", entryName)
+                              .addKeyValue("appModule", entry.getName())
                               .addKeyValue("jarFile", jarFile.getName())
                               .log("Loading jar " + META_INF_DIR + " app-module entry");
 
-                        try (InputStream inputStream = classLoader.getResourceAsStream(entryName)) {
-                            if (inputStream != null) {
-                                try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-                                    String appModuleClassName;
-                                    while ((appModuleClassName = reader.readLine()) != null) {
-                                        appModules.add(appModuleClassName);
-                                        logger.atInfo()
-                                              .addKeyValue("requestedModule", appModuleClassName)
-                                              .addKeyValue("requestedBy", jarFile.getName())
-                                              .log("Loading jar entry");
-                                    }
+                        try (BufferedReader reader =
+                                     new BufferedReader(new InputStreamReader(jarFile.getInputStream(entry), UTF_8))) {
+                            String appModuleClassName;
+                            while ((appModuleClassName = reader.readLine()) != null) {
+                                appModuleClassName = appModuleClassName.strip();
+                                if (!appModuleClassName.isEmpty()) {
+                                    appModules.add(appModuleClassName);
+                                    logger.atInfo()
+                                          .addKeyValue("requestedModule", appModuleClassName)
+                                          .addKeyValue("requestedBy", jarFile.getName())
+                                          .log("Loading jar entry");
                                 }
                             }
                         }
@@ -98,23 +194,13 @@ public class ModuleLoader extends AbstractModule {
                 }
             }
         }
+        return appModules;
+    }
 
-        for (String appModule : appModules) {
-            try {
-                Class<?> clazz = Class.forName(appModule, true, classLoader);
-
-                logger.atInfo()
-                      .addKeyValue("module", clazz.getCanonicalName())
-                      .log("Loading module");
-                install((AbstractModule) clazz.getDeclaredConstructor().newInstance());
-            } catch (ClassNotFoundException e) {
-                logger.atError()
-                      .setCause(e)
-                      .addKeyValue("class", appModule)
-                      .log("Error loading class");
-                throw new RuntimeException(e);
-            }
-        }
+    private static LoggingEventBuilder logPhase(String phase, long startNanos) {
+        return logger.atInfo()
+                     .addKeyValue("phase", phase)
+                     .addKeyValue("elapsedMillis", Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
     }
 
     private static String getEnvOrDefault(String key, String defaultVal) {
@@ -149,6 +235,10 @@ public class ModuleLoader extends AbstractModule {
     public static Injector createInjector(Stage stage, Module... modules) {
         ArrayList<Module> moduleList = new ArrayList<>(Arrays.asList(modules));
         moduleList.add(new ModuleLoader());
-        return Guice.createInjector(stage, moduleList);
+
+        long start = System.nanoTime();
+        Injector injector = Guice.createInjector(stage, moduleList);
+        logPhase("createInjector", start).addKeyValue("stage", stage).log("Created injector");
+        return injector;
     }
 }
@@ -0,0 +1,114 @@
+package dev.logos.module;
+
+import dev.logos.app.register.RegisterModuleProcessor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ModuleLoaderTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private URL classpathEntry(String... indexLines) throws IOException {
+        File root = temporaryFolder.newFolder();
+        Path index = root.toPath().resolve(RegisterModuleProcessor.MODULE_INDEX);
+        Files.createDirectories(index.getParent());
+        Files.write(index, List.of(indexLines));
+        return root.toURI().toURL();
+    }
+
+    @Test
+    public void readModuleIndex_mergesEveryClasspathEntry() throws IOException {
+        URL first = classpathEntry("com.example.a.AModule", "com.example.b.BModule");
+        URL second = classpathEntry("# generated", "", "com.example.b.BModule", "  com.example.c.CModule  ");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{first, second}, null)) {
+            assertEquals(List.of("com.example.a.AModule", "com.example.b.BModule", "com.example.c.CModule"),
+                    List.copyOf(ModuleLoader.readModuleIndex(classLoader)));
+        }
+    }
+
+    @Test
+    public void readModuleIndex_noIndex_isEmpty() throws IOException {
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{temporaryFolder.newFolder().toURI().toURL()}, null)) {
+            assertTrue(ModuleLoader.readModuleIndex(classLoader).isEmpty());
+        }
+    }
+
+    private URL jar(Map<String, String> entries) throws IOException {
+        File jar = temporaryFolder.newFile();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.putNextEntry(new JarEntry("META-INF/"));
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new JarEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes(UTF_8));
+            }
+        }
+        return jar.toURI().toURL();
+    }
+
+    @Test
+    public void scanUnindexedJars_readsOnlyJarsWithoutIndex() throws IOException {
+        URL indexed = jar(Map.of(
+                RegisterModuleProcessor.MODULE_INDEX, "com.example.a.AModule\n",
+                "META-INF/app-modules-com.example.a", "com.example.a.AModule\n"));
+        URL unindexed = jar(Map.of(
+                "META-INF/app-modules-com.example.b", "com.example.b.BModule\n",
+                "META-INF/app-modules-com.example.c", "com.example.c.CModule\n"));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{indexed, unindexed}, null)) {
+            assertEquals(List.of("com.example.a.AModule"), List.copyOf(ModuleLoader.readModuleIndex(classLoader)));
+            assertEquals(Set.of("com.example.b.BModule", "com.example.c.CModule"),
+                    ModuleLoader.scanUnindexedJars(classLoader));
+        }
+    }
+
+    @Test
+    public void scanUnindexedJars_allJarsIndexed_isEmpty() throws IOException {
+        URL indexed = jar(Map.of(
+                RegisterModuleProcessor.MODULE_INDEX, "com.example.a.AModule\n",
+                "META-INF/app-modules-com.example.a", "com.example.a.AModule\n"));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{indexed}, null)) {
+            assertTrue(ModuleLoader.scanUnindexedJars(classLoader).isEmpty());
+        }
+    }
+
+    @Test
+    public void findModules_withIndex_skipsScan() throws IOException {
+        URL indexed = jar(Map.of(RegisterModuleProcessor.MODULE_INDEX, "com.example.a.AModule\n"));
+        URL unindexed = jar(Map.of("META-INF/app-modules-com.example.b", "com.example.b.BModule\n"));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{indexed, unindexed}, null)) {
+            assertEquals(Set.of("com.example.a.AModule"), ModuleLoader.findModules(classLoader, false));
+            assertEquals(Set.of("com.example.a.AModule", "com.example.b.BModule"),
+                    ModuleLoader.findModules(classLoader, true));
+        }
+    }
+
+    @Test
+    public void findModules_withoutIndex_scansJars() throws IOException {
+        URL unindexed = jar(Map.of("META-INF/app-modules-com.example.b", "com.example.b.BModule\n"));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{unindexed}, null)) {
+            assertEquals(Set.of("com.example.b.BModule"), ModuleLoader.findModules(classLoader, false));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dev.logos.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method that never blocks: it does no JDBC, file or blocking stub I/O and completes its response
+ * observer either inline or from another call's callback.
+ * <p>
+ * When in-process calls use {@code InProcessExecution.DIRECT}, such methods run on the caller's thread instead of being
+ * handed off to the in-process pool. Put it on the overriding method in the service implementation, e.g.
+ * {@code @NonBlocking @Override public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> observer)}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface NonBlocking {
+}
@@ -0,0 +1,89 @@
+package dev.logos.service.backend.server;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedVirtualThreadExecutorTest {
+    private final BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static void awaitQueueLength(BoundedVirtualThreadExecutor executor, int length) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getQueueLength() != length && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(length, executor.getQueueLength());
+    }
+
+    @Test
+    public void execute_admitsAtMostMaxConcurrency() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch admitted = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                admitted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        }
+
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        awaitQueueLength(executor, 3);
+        assertEquals(2, executor.getActiveCount());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    @Test
+    public void execute_doesNotBlockTheCallerWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(3);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ran.countDown();
+        };
+
+        executor.execute(blocking);
+        executor.execute(blocking);
+        // Returns at once although both permits are held.
+        executor.execute(blocking);
+        assertFalse(ran.await(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsNonPositiveLimit() {
+        new BoundedVirtualThreadExecutor(0);
+    }
+}
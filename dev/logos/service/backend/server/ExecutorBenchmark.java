@@ -0,0 +1,96 @@
+package dev.logos.service.backend.server;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ExecutorMode#FIXED} and {@link ExecutorMode#VIRTUAL} under blocking load shaped like a generated
+ * storage handler: some blocking outside the database (auth, downstream calls) followed by a query that holds one of
+ * {@code POOL_SIZE} connections. Each mode runs with its server defaults: {@code FIXED} with {@code THREAD_POOL_SIZE}
+ * platform threads, and {@code VIRTUAL} admitting one call per connection, as {@link ServerModule.MaxConcurrentCalls}
+ * does when a database pool is installed.
+ * <p>
+ * Run with {@code bazel run //dev/logos/service/backend/server:executor_benchmark}.
+ */
+public class ExecutorBenchmark {
+    private static final int THREAD_POOL_SIZE = 32;
+    private static final int POOL_SIZE = 64;
+    private static final int CALLS = 20_000;
+    private static final int CLIENT_CONCURRENCY = 512;
+    private static final long OUTSIDE_DB_MICROS = 2_000;
+    private static final long QUERY_MICROS = 3_000;
+
+    record Result(double callsPerSecond, double p50Millis, double p99Millis) {
+    }
+
+    static void blockFor(long micros) {
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static Result run(ExecutorService serverExecutor) throws InterruptedException {
+        Semaphore connections = new Semaphore(POOL_SIZE, true);
+        // Clients keep CLIENT_CONCURRENCY calls outstanding, like the transport would.
+        Semaphore outstanding = new Semaphore(CLIENT_CONCURRENCY);
+        CountDownLatch done = new CountDownLatch(CALLS);
+        long[] latencies = new long[CALLS];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            outstanding.acquire();
+            int call = i;
+            long submitted = System.nanoTime();
+            serverExecutor.execute(() -> {
+                try {
+                    blockFor(OUTSIDE_DB_MICROS);
+                    connections.acquireUninterruptibly();
+                    try {
+                        blockFor(QUERY_MICROS);
+                    } finally {
+                        connections.release();
+                    }
+                } finally {
+                    latencies[call] = System.nanoTime() - submitted;
+                    outstanding.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(
+                CALLS / (elapsed / 1e9),
+                latencies[CALLS / 2] / 1e6,
+                latencies[CALLS * 99 / 100] / 1e6);
+    }
+
+    static Result measure(String label, ExecutorService serverExecutor) throws InterruptedException {
+        try {
+            run(serverExecutor); // warm-up
+            Result result = run(serverExecutor);
+            System.out.printf("%-8s %8.0f calls/s   p50 %7.2f ms   p99 %7.2f ms%n",
+                    label, result.callsPerSecond(), result.p50Millis(), result.p99Millis());
+            return result;
+        } finally {
+            serverExecutor.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Result fixed = measure("fixed", Executors.newFixedThreadPool(THREAD_POOL_SIZE));
+        Result virtual = measure("virtual", new BoundedVirtualThreadExecutor(POOL_SIZE));
+
+        System.out.printf("throughput %.2fx   p99 %.2fx%n",
+                virtual.callsPerSecond() / fixed.callsPerSecond(),
+                fixed.p99Millis() / virtual.p99Millis());
+    }
+}
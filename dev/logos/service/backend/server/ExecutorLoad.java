@@ -0,0 +1,32 @@
+package dev.logos.service.backend.server;
+
+import com.google.inject.Inject;
+import dev.logos.channel.LocalLoad;
+import dev.logos.service.backend.server.ServerModule.ServerThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * The network server executor's running and queued tasks as a fraction of its threads, or of its permits in
+ * {@link ExecutorMode#VIRTUAL} mode.
+ */
+public class ExecutorLoad implements LocalLoad {
+    private final ExecutorService executorService;
+
+    @Inject
+    public ExecutorLoad(@ServerThreadPool ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @Override
+    public double utilization() {
+        if (executorService instanceof ThreadPoolExecutor pool) {
+            return (double) (pool.getActiveCount() + pool.getQueue().size()) / pool.getMaximumPoolSize();
+        }
+        if (executorService instanceof BoundedVirtualThreadExecutor pool) {
+            return (double) (pool.getActiveCount() + pool.getQueueLength()) / pool.getMaxConcurrency();
+        }
+        return 0;
+    }
+}
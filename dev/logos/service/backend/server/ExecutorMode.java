@@ -0,0 +1,25 @@
+package dev.logos.service.backend.server;
+
+import java.util.Optional;
+
+/**
+ * How the gRPC servers run calls.
+ */
+public enum ExecutorMode {
+    /**
+     * A fixed pool of {@link ServerModule.ThreadPoolSize} platform threads shared by both servers.
+     */
+    FIXED,
+    /**
+     * A virtual thread per task. Calls arriving over the network are admitted only while fewer than
+     * {@link ServerModule.MaxConcurrentCalls} are running, by default one per database connection; the rest wait for a permit on their own virtual thread.
+     */
+    VIRTUAL;
+
+    public static ExecutorMode fromEnvironment() {
+        return Optional.ofNullable(System.getenv("LOGOS_SERVER_EXECUTOR_MODE"))
+                       .filter(mode -> !mode.isBlank())
+                       .map(mode -> ExecutorMode.valueOf(mode.toUpperCase()))
+                       .orElse(FIXED);
+    }
+}
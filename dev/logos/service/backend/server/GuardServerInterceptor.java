@@ -1,7 +1,10 @@
 package dev.logos.service.backend.server;
 
 import com.google.inject.Inject;
+import dev.logos.jfr.GuardEvent;
+import dev.logos.jfr.RpcEvent;
 import dev.logos.service.Service;
+import dev.logos.trace.Span;
 import io.grpc.*;
 
 import java.util.Map;
@@ -15,14 +18,66 @@ public class GuardServerInterceptor implements ServerInterceptor {
         this.services = services;
     }
 
+    /**
+     * Commits {@code event} once its call has ended. The outcome is the code of the status the call was closed with,
+     * whether by its handler or by a guard refusal, or {@code CANCELLED} if it ended before it was closed.
+     */
+    private static void endRpc(RpcEvent event, String method, String outcome) {
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.status = outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * Remembers the status the call is closed with, which the listener's {@code onComplete} does not carry.
+     */
+    private static final class StatusRecordingCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+        private volatile Status status;
+
+        StatusRecordingCall(ServerCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            this.status = status;
+            super.close(status, trailers);
+        }
+
+        String outcome() {
+            Status closedWith = status;
+            return closedWith == null ? Status.Code.UNKNOWN.name() : closedWith.getCode().name();
+        }
+    }
+
     @Override
-    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> serverCall, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        RpcEvent rpcEvent = new RpcEvent();
+        rpcEvent.begin();
+        StatusRecordingCall<ReqT, RespT> call = new StatusRecordingCall<>(serverCall);
+        String method = call.getMethodDescriptor().getFullMethodName();
+
         ServerCall.Listener<ReqT> delegate = next.startCall(call, headers);
 
         String serviceName = call.getMethodDescriptor().getServiceName();
-        if (!services.containsKey(serviceName))
-            return delegate;
+        if (!services.containsKey(serviceName)) {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
+                @Override
+                public void onCancel() {
+                    endRpc(rpcEvent, method, "CANCELLED");
+                    super.onCancel();
+                }
 
+                @Override
+                public void onComplete() {
+                    endRpc(rpcEvent, method, call.outcome());
+                    super.onComplete();
+                }
+            };
+        }
         Service service = services.get(serviceName);
 
         return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
@@ -31,7 +86,19 @@ public class GuardServerInterceptor implements ServerInterceptor {
             @Override
             public void onMessage(ReqT message) {
                 if (!callClosed) {
+                    GuardEvent guardEvent = new GuardEvent();
+                    guardEvent.begin();
+                    Span guardSpan = Span.current().child("guard");
                     Optional<Status> guardResult = service.guard(message);
+                    if (guardEvent.shouldCommit()) {
+                        guardEvent.method = method;
+                        guardEvent.allowed = guardResult.isEmpty();
+                        guardEvent.status = guardResult.map(status -> status.getCode().name()).orElse(null);
+                        guardEvent.commit();
+                    }
+                    guardResult.ifPresent(status -> guardSpan.status(status.getCode().name()));
+                    guardSpan.attribute("allowed", guardResult.isEmpty()).end();
+
                     if (guardResult.isPresent()) {
                         call.close(guardResult.get(), new Metadata());
                         callClosed = true;
@@ -48,18 +115,18 @@ public class GuardServerInterceptor implements ServerInterceptor {
                 }
             }
 
+            // Passed on even after a refusal, so a handler that has started on earlier messages can release what it
+            // holds for the call.
             @Override
             public void onCancel() {
-                if (!callClosed) {
-                    super.onCancel();
-                }
+                endRpc(rpcEvent, method, "CANCELLED");
+                super.onCancel();
             }
 
             @Override
             public void onComplete() {
-                if (!callClosed) {
-                    super.onComplete();
-                }
+                endRpc(rpcEvent, method, call.outcome());
+                super.onComplete();
             }
 
             @Override
@@ -2,14 +2,21 @@ package dev.logos.service.backend.server;
 
 import dev.logos.service.Service;
 import io.grpc.*;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 public class GuardServerInterceptorTest {
@@ -47,7 +54,7 @@ public class GuardServerInterceptorTest {
 
         Metadata headers = new Metadata();
         when(call.getMethodDescriptor()).thenReturn(descriptor());
-        when(handler.startCall(call, headers)).thenReturn(delegate);
+        when(handler.startCall(any(), eq(headers))).thenReturn(delegate);
         when(service.guard("msg")).thenReturn(Optional.of(Status.ABORTED));
 
         GuardServerInterceptor interceptor = new GuardServerInterceptor(Map.of("svc", service));
@@ -62,8 +69,8 @@ public class GuardServerInterceptorTest {
         verify(call).close(eq(Status.ABORTED), any(Metadata.class));
         verify(delegate, never()).onMessage(any());
         verify(delegate, never()).onHalfClose();
-        verify(delegate, never()).onCancel();
-        verify(delegate, never()).onComplete();
+        verify(delegate).onCancel();
+        verify(delegate).onComplete();
         verify(delegate, never()).onReady();
     }
 
@@ -76,7 +83,7 @@ public class GuardServerInterceptorTest {
 
         Metadata headers = new Metadata();
         when(call.getMethodDescriptor()).thenReturn(descriptor());
-        when(handler.startCall(call, headers)).thenReturn(delegate);
+        when(handler.startCall(any(), eq(headers))).thenReturn(delegate);
         when(service.guard("msg")).thenReturn(Optional.empty());
 
         GuardServerInterceptor interceptor = new GuardServerInterceptor(Map.of("svc", service));
@@ -87,4 +94,68 @@ public class GuardServerInterceptorTest {
         verify(delegate).onMessage("msg");
         verify(call, never()).close(any(), any());
     }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> recordedStatuses(Map<String, Service> services, Status handlerStatus, boolean cancel)
+            throws IOException {
+        ServerCall<String, String> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(descriptor());
+        ServerCallHandler<String, String> handler = (startedCall, headers) -> new ServerCall.Listener<>() {
+            @Override
+            public void onHalfClose() {
+                startedCall.close(handlerStatus, new Metadata());
+            }
+        };
+
+        Path dump = Files.createTempFile("rpc", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("dev.logos.Rpc");
+            recording.start();
+
+            ServerCall.Listener<String> listener =
+                    new GuardServerInterceptor(services).interceptCall(call, new Metadata(), handler);
+            listener.onMessage("msg");
+            listener.onHalfClose();
+            if (cancel) {
+                listener.onCancel();
+            } else {
+                listener.onComplete();
+            }
+
+            recording.stop();
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump).stream()
+                                .filter(event -> event.getEventType().getName().equals("dev.logos.Rpc"))
+                                .map(event -> event.getString("status"))
+                                .toList();
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    @Test
+    public void rpcEvent_recordsStatusTheHandlerClosedWith() throws IOException {
+        Service service = mock(Service.class);
+        when(service.guard(any())).thenReturn(Optional.empty());
+
+        assertEquals(List.of("NOT_FOUND"), recordedStatuses(Map.of("svc", service), Status.NOT_FOUND, false));
+        assertEquals(List.of("OK"), recordedStatuses(Map.of("svc", service), Status.OK, false));
+        assertEquals(List.of("INTERNAL"), recordedStatuses(Map.of(), Status.INTERNAL, false));
+    }
+
+    @Test
+    public void rpcEvent_recordsGuardRefusal() throws IOException {
+        Service service = mock(Service.class);
+        when(service.guard(any())).thenReturn(Optional.of(Status.PERMISSION_DENIED));
+
+        assertEquals(List.of("PERMISSION_DENIED"), recordedStatuses(Map.of("svc", service), Status.OK, false));
+    }
+
+    @Test
+    public void rpcEvent_recordsCancellation() throws IOException {
+        Service service = mock(Service.class);
+        when(service.guard(any())).thenReturn(Optional.empty());
+
+        assertEquals(List.of("CANCELLED"), recordedStatuses(Map.of("svc", service), Status.OK, true));
+    }
 }
@@ -0,0 +1,125 @@
+package dev.logos.service.backend.server;
+
+import dev.logos.service.Service;
+import dev.logos.service.storage.replica.ReplicaRouter;
+import dev.logos.service.storage.stream.BatchRequestObserver;
+import io.grpc.*;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import org.jdbi.v3.core.Handle;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class GuardedBatchCallTest {
+    private static final MethodDescriptor.Marshaller<String> MARSHALLER = new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            try {
+                return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (java.io.IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private static final MethodDescriptor<String, String> BATCH = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+            .setFullMethodName("svc/batch")
+            .setRequestMarshaller(MARSHALLER)
+            .setResponseMarshaller(MARSHALLER)
+            .build();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @After
+    public void shutdown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void guardRefusesLaterMessage_releasesBatchHandle() throws Exception {
+        AtomicBoolean inTransaction = new AtomicBoolean(false);
+        Handle handle = mock(Handle.class);
+        when(handle.isInTransaction()).thenAnswer(invocation -> inTransaction.get());
+        doAnswer(invocation -> {
+            inTransaction.set(true);
+            return handle;
+        }).when(handle).begin();
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            return handle;
+        }).when(handle).rollback();
+
+        ReplicaRouter replicaRouter = mock(ReplicaRouter.class);
+        when(replicaRouter.openWriter()).thenReturn(handle);
+
+        Service service = mock(Service.class);
+        when(service.guard(anyString())).thenAnswer(invocation ->
+                "refused".equals(invocation.getArgument(0))
+                        ? Optional.of(Status.PERMISSION_DENIED)
+                        : Optional.empty());
+
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                                       .addService(ServerInterceptors.intercept(
+                                               ServerServiceDefinition.builder("svc")
+                                                                      .addMethod(BATCH, ServerCalls.asyncClientStreamingCall(
+                                                                              responseObserver -> new BatchRequestObserver<String, String>(
+                                                                                      replicaRouter, 100, responseObserver,
+                                                                                      (batchHandle, request) -> request, "select 1")))
+                                                                      .build(),
+                                               new GuardServerInterceptor(Map.of("svc", service))))
+                                       .build()
+                                       .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+
+        CompletableFuture<Status> closed = new CompletableFuture<>();
+        StreamObserver<String> requests = ClientCalls.asyncClientStreamingCall(
+                channel.newCall(BATCH, CallOptions.DEFAULT),
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(String value) {
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        closed.complete(Status.fromThrowable(t));
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        closed.complete(Status.OK);
+                    }
+                });
+        requests.onNext("first");
+        requests.onNext("second");
+        requests.onNext("refused");
+
+        assertEquals(Status.Code.PERMISSION_DENIED, closed.get(5, TimeUnit.SECONDS).getCode());
+        verify(handle, timeout(5000)).close();
+        verify(handle).rollback();
+        verify(handle, never()).commit();
+    }
+}
@@ -0,0 +1,43 @@
+package dev.logos.service.backend.server;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallExecutorSupplier;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Chooses the executor for calls on the in-process server in {@link dev.logos.channel.InProcessExecution#DIRECT} mode,
+ * where the server's own executor is the calling thread.
+ * <p>
+ * A method's bulkhead still takes precedence. Otherwise {@code @NonBlocking} methods are left on the calling thread and
+ * everything else is handed to the blocking pool.
+ */
+class InProcessCallExecutorSupplier implements ServerCallExecutorSupplier {
+    private final ServerCallExecutorSupplier bulkheads;
+    private final Set<String> nonBlockingMethods;
+    private final Executor blockingPool;
+
+    InProcessCallExecutorSupplier(
+            ServerCallExecutorSupplier bulkheads,
+            Set<String> nonBlockingMethods,
+            Executor blockingPool
+    ) {
+        this.bulkheads = bulkheads;
+        this.nonBlockingMethods = nonBlockingMethods;
+        this.blockingPool = blockingPool;
+    }
+
+    @Override
+    public <ReqT, RespT> Executor getExecutor(ServerCall<ReqT, RespT> call, Metadata metadata) {
+        Executor bulkhead = bulkheads.getExecutor(call, metadata);
+        if (bulkhead != null) {
+            return bulkhead;
+        }
+        if (nonBlockingMethods.contains(call.getMethodDescriptor().getFullMethodName())) {
+            return null;
+        }
+        return blockingPool;
+    }
+}
@@ -0,0 +1,47 @@
+package dev.logos.service.backend.server;
+
+import dev.logos.service.NonBlocking;
+import dev.logos.service.Service;
+import io.grpc.ServerMethodDefinition;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Resolves the full gRPC method names, e.g. {@code "app.UserService/GetUser"}, of service methods marked
+ * {@link NonBlocking}.
+ */
+final class NonBlockingMethods {
+    private NonBlockingMethods() {
+    }
+
+    static Set<String> of(Set<Service> services) {
+        Set<String> nonBlocking = new HashSet<>();
+
+        for (Service service : services) {
+            Set<String> annotated = new HashSet<>();
+            for (Method method : service.getClass().getMethods()) {
+                if (method.isAnnotationPresent(NonBlocking.class)) {
+                    annotated.add(normalize(method.getName()));
+                }
+            }
+            if (annotated.isEmpty()) {
+                continue;
+            }
+
+            for (ServerMethodDefinition<?, ?> definition : service.bindService().getMethods()) {
+                // Generated stubs name the Java method after the RPC in lower camel case.
+                if (annotated.contains(normalize(definition.getMethodDescriptor().getBareMethodName()))) {
+                    nonBlocking.add(definition.getMethodDescriptor().getFullMethodName());
+                }
+            }
+        }
+
+        return Set.copyOf(nonBlocking);
+    }
+
+    private static String normalize(String methodName) {
+        return methodName.replace("_", "").toLowerCase();
+    }
+}
@@ -0,0 +1,77 @@
+package dev.logos.service.backend.server;
+
+import dev.logos.service.NonBlocking;
+import dev.logos.service.Service;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class NonBlockingMethodsTest {
+
+    private static MethodDescriptor<String, String> descriptor(String fullMethodName) {
+        MethodDescriptor.Marshaller<String> marshaller = new MethodDescriptor.Marshaller<>() {
+            @Override
+            public InputStream stream(String value) {
+                return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public String parse(InputStream stream) {
+                try {
+                    return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+                } catch (java.io.IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        return MethodDescriptor.<String, String>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(fullMethodName)
+                .setRequestMarshaller(marshaller)
+                .setResponseMarshaller(marshaller)
+                .build();
+    }
+
+    public static class UserService implements Service {
+        @NonBlocking
+        public void getUser(String request, StreamObserver<String> responseObserver) {
+            responseObserver.onNext(request);
+            responseObserver.onCompleted();
+        }
+
+        public void exportUsers(String request, StreamObserver<String> responseObserver) {
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public ServerServiceDefinition bindService() {
+            return ServerServiceDefinition.builder("app.UserService")
+                                          .addMethod(descriptor("app.UserService/GetUser"),
+                                                     ServerCalls.asyncUnaryCall(this::getUser))
+                                          .addMethod(descriptor("app.UserService/ExportUsers"),
+                                                     ServerCalls.asyncUnaryCall(this::exportUsers))
+                                          .build();
+        }
+    }
+
+    @Test
+    public void resolvesAnnotatedMethodsToFullMethodNames() {
+        assertEquals(Set.of("app.UserService/GetUser"), NonBlockingMethods.of(Set.of(new UserService())));
+    }
+
+    @Test
+    public void servicesWithoutAnnotationsHaveNoNonBlockingMethods() {
+        Service service = () -> ServerServiceDefinition.builder("app.EmptyService").build();
+
+        assertEquals(Set.of(), NonBlockingMethods.of(Set.of(service)));
+    }
+}
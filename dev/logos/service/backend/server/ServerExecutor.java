@@ -1,20 +1,34 @@
 package dev.logos.service.backend.server;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import dev.logos.channel.ChannelRegistry;
 import dev.logos.module.ModuleLoader;
+import dev.logos.service.backend.server.bulkhead.BulkheadExecutorSupplier;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import dev.logos.service.backend.server.metrics.MetricsServer;
 import dev.logos.service.backend.server.worker.Worker;
+import dev.logos.service.backend.server.worker.WorkerState;
 import io.grpc.Server;
+import io.grpc.inprocess.InProcessSocketAddress;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 import java.util.logging.Logger;
 
 import dev.logos.service.backend.server.ServerModule.ServerThreadPool;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 
@@ -25,52 +39,150 @@ public class ServerExecutor {
     private final Set<Server> servers;
     private final Set<Worker> workers;
     private final ExecutorService executorService;
+    private final BulkheadExecutorSupplier bulkheadExecutorSupplier;
+    private final ChannelRegistry channelRegistry;
+    private final MetricsServer metricsServer;
+    private final MetricRegistry metricRegistry;
+    private final ShutdownRegistry shutdownRegistry;
+    private final Map<Worker, WorkerState> workerStates = new ConcurrentHashMap<>();
+    private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
 
     @Inject
     public ServerExecutor(Set<Server> servers,
                           Set<Worker> workers,
                           Logger logger,
-                          @ServerModule.ServerThreadPool ExecutorService executorService) {
+                          @ServerModule.ServerThreadPool ExecutorService executorService,
+                          BulkheadExecutorSupplier bulkheadExecutorSupplier,
+                          ChannelRegistry channelRegistry,
+                          MetricsServer metricsServer,
+                          MetricRegistry metricRegistry,
+                          ShutdownRegistry shutdownRegistry) {
         this.servers = servers;
         this.workers = workers;
         this.logger = logger;
         this.executorService = executorService;
+        this.bulkheadExecutorSupplier = bulkheadExecutorSupplier;
+        this.channelRegistry = channelRegistry;
+        this.metricsServer = metricsServer;
+        this.metricRegistry = metricRegistry;
+        this.shutdownRegistry = shutdownRegistry;
+    }
+
+    /**
+     * Tracks {@code worker} as being in {@code pending} until {@code transition} completes, then in the state it
+     * completes with, or {@link WorkerState#FAILED} if it fails.
+     */
+    private ListenableFuture<WorkerState> track(Worker worker, WorkerState pending, ListenableFuture<WorkerState> transition) {
+        if (workerStates.put(worker, pending) == null) {
+            for (WorkerState state : WorkerState.values()) {
+                metricRegistry.gauge("logos_worker_state", "1 if the worker is in the state, else 0",
+                        Map.of("worker", worker.getName(), "state", state.name()),
+                        () -> workerStates.get(worker) == state ? 1 : 0);
+            }
+        }
+
+        transition.addListener(() -> {
+            WorkerState state;
+            try {
+                state = Futures.getDone(transition);
+            } catch (Exception e) {
+                state = WorkerState.FAILED;
+            }
+            workerStates.put(worker, state);
+        }, Runnable::run);
+        return transition;
     }
 
     public void start() {
         for (Worker worker : workers) {
-            worker.start().addListener(
+            track(worker, WorkerState.STARTING, worker.start()).addListener(
                     () -> logger.info("Worker started: %s %s".formatted(worker.getId(), worker.getName())),
                     Runnable::run);
         }
 
+        try {
+            metricsServer.start();
+        } catch (IOException e) {
+            // Running without metrics beats not serving at all.
+            logger.log(Level.SEVERE, "Failed to start metrics server: %s".formatted(e.getMessage()), e);
+        }
+
         try {
             for (Server server : servers) {
                 server.start();
                 logger.info("Server %s started".formatted(server));
-
-                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                    logger.info("Server %s shutting down due to JVM shutdown".formatted(server));
-                    try {
-                        server.shutdown();
-                        server.awaitTermination(TERMINATION_GRACE_PERIOD_SECONDS, SECONDS);
-                    } catch (InterruptedException e) {
-                        logger.log(Level.SEVERE, "Server %s interrupted during shutdown: %s".formatted(server, e.getMessage()), e);
-                    }
-                    for (Worker worker : workers) {
-                        try {
-                            worker.stop().get();
-                        } catch (InterruptedException | ExecutionException e) {
-                            logger.log(Level.SEVERE, "Failed to stop worker %s: %s".formatted(worker.getName(), e.getMessage()), e);
-                        }
-                    }
-                    executorService.shutdown();
-                    logger.info("Server %s has shut down".formatted(server));
-                }));
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            logger.info("Servers shutting down due to JVM shutdown");
+            shutdown();
+        }));
+    }
+
+    /**
+     * Stops the servers from accepting calls and waits for the running ones to finish, then stops the workers, the
+     * channels stubs use, the resources in the {@link ShutdownRegistry}, the executors the calls ran on and the metrics
+     * server, each once. Only the first call has any effect.
+     * <p>
+     * Network servers are drained before the in-process server, so calls they are finishing can still call local
+     * services.
+     */
+    void shutdown() {
+        if (!shuttingDown.compareAndSet(false, true)) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + SECONDS.toNanos(TERMINATION_GRACE_PERIOD_SECONDS);
+        Map<Boolean, List<Server>> serversByInProcess = servers.stream().collect(Collectors.partitioningBy(
+                server -> server.getListenSockets().stream().allMatch(InProcessSocketAddress.class::isInstance)));
+        shutdownAndAwait(serversByInProcess.get(false), deadline);
+        shutdownAndAwait(serversByInProcess.get(true), deadline);
+
+        for (Worker worker : workers) {
+            try {
+                track(worker, WorkerState.STOPPING, worker.stop()).get();
+            } catch (InterruptedException | ExecutionException e) {
+                logger.log(Level.SEVERE, "Failed to stop worker %s: %s".formatted(worker.getName(), e.getMessage()), e);
+            }
+        }
+
+        channelRegistry.shutdown();
+        try {
+            channelRegistry.awaitTermination(TERMINATION_GRACE_PERIOD_SECONDS, SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.SEVERE, "Channels interrupted during shutdown: %s".formatted(e.getMessage()), e);
+        }
+        for (AutoCloseable resource : shutdownRegistry.drain()) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Failed to close %s: %s".formatted(resource, e.getMessage()), e);
+            }
+        }
+        executorService.shutdown();
+        bulkheadExecutorSupplier.shutdown();
+        metricsServer.stop();
+        logger.info("Servers have shut down");
+    }
+
+    private void shutdownAndAwait(List<Server> servers, long deadline) {
+        for (Server server : servers) {
+            server.shutdown();
+        }
+        for (Server server : servers) {
+            try {
+                if (!server.awaitTermination(deadline - System.nanoTime(), NANOSECONDS)) {
+                    logger.warning("Server %s did not terminate within the grace period".formatted(server));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.log(Level.SEVERE, "Server %s interrupted during shutdown: %s".formatted(server, e.getMessage()), e);
+            }
+        }
     }
 
     private void blockUntilShutdown() throws InterruptedException {
@@ -0,0 +1,116 @@
+package dev.logos.service.backend.server;
+
+import com.google.common.util.concurrent.Futures;
+import dev.logos.channel.ChannelRegistry;
+import dev.logos.service.backend.server.bulkhead.BulkheadExecutorSupplier;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import dev.logos.service.backend.server.metrics.MetricsServer;
+import dev.logos.service.backend.server.worker.Worker;
+import dev.logos.service.backend.server.worker.WorkerState;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessSocketAddress;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.*;
+
+public class ServerExecutorTest {
+    private Server networkServer;
+    private Server inProcessServer;
+    private Worker worker;
+    private ExecutorService executorService;
+    private BulkheadExecutorSupplier bulkheads;
+    private ChannelRegistry channelRegistry;
+    private MetricsServer metricsServer;
+    private ShutdownRegistry shutdownRegistry;
+    private ServerExecutor serverExecutor;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        networkServer = mock(Server.class);
+        inProcessServer = mock(Server.class);
+        worker = mock(Worker.class);
+        executorService = mock(ExecutorService.class);
+        bulkheads = mock(BulkheadExecutorSupplier.class);
+        channelRegistry = mock(ChannelRegistry.class);
+        metricsServer = mock(MetricsServer.class);
+        shutdownRegistry = new ShutdownRegistry();
+
+        doReturn(List.of(new InetSocketAddress(8081))).when(networkServer).getListenSockets();
+        doReturn(List.of(new InProcessSocketAddress("in-process"))).when(inProcessServer).getListenSockets();
+        when(networkServer.awaitTermination(anyLong(), any())).thenReturn(true);
+        when(inProcessServer.awaitTermination(anyLong(), any())).thenReturn(true);
+        when(worker.getName()).thenReturn("worker");
+        when(worker.stop()).thenReturn(Futures.immediateFuture(WorkerState.STOPPED));
+
+        serverExecutor = new ServerExecutor(Set.of(inProcessServer, networkServer), Set.of(worker),
+                Logger.getLogger(ServerExecutorTest.class.getName()), executorService, bulkheads, channelRegistry,
+                metricsServer, new MetricRegistry(), shutdownRegistry);
+    }
+
+    @Test
+    public void shutdown_drainsServersBeforeStoppingWhatCallsUse() throws InterruptedException {
+        serverExecutor.shutdown();
+
+        InOrder inOrder = inOrder(networkServer, inProcessServer, worker, channelRegistry, executorService, bulkheads,
+                metricsServer);
+        inOrder.verify(networkServer).shutdown();
+        inOrder.verify(networkServer).awaitTermination(anyLong(), any());
+        inOrder.verify(inProcessServer).shutdown();
+        inOrder.verify(inProcessServer).awaitTermination(anyLong(), any());
+        inOrder.verify(worker).stop();
+        inOrder.verify(channelRegistry).shutdown();
+        inOrder.verify(channelRegistry).awaitTermination(anyLong(), any());
+        inOrder.verify(executorService).shutdown();
+        inOrder.verify(bulkheads).shutdown();
+        inOrder.verify(metricsServer).stop();
+    }
+
+    @Test
+    public void shutdown_closesRegisteredResourcesAfterWorkersInReverseOrder() throws Exception {
+        AutoCloseable first = shutdownRegistry.register(mock(AutoCloseable.class));
+        AutoCloseable second = shutdownRegistry.register(mock(AutoCloseable.class));
+
+        serverExecutor.shutdown();
+
+        InOrder inOrder = inOrder(networkServer, worker, second, first, executorService);
+        inOrder.verify(networkServer).awaitTermination(anyLong(), any());
+        inOrder.verify(worker).stop();
+        inOrder.verify(second).close();
+        inOrder.verify(first).close();
+        inOrder.verify(executorService).shutdown();
+    }
+
+    @Test
+    public void shutdown_closesRemainingResourcesWhenOneFails() throws Exception {
+        AutoCloseable first = shutdownRegistry.register(mock(AutoCloseable.class));
+        AutoCloseable failing = shutdownRegistry.register(mock(AutoCloseable.class));
+        doThrow(new IllegalStateException("already closed")).when(failing).close();
+
+        serverExecutor.shutdown();
+
+        verify(first).close();
+        verify(executorService).shutdown();
+    }
+
+    @Test
+    public void shutdown_runsOnce() {
+        serverExecutor.shutdown();
+        serverExecutor.shutdown();
+
+        verify(networkServer).shutdown();
+        verify(inProcessServer).shutdown();
+        verify(worker).stop();
+        verify(channelRegistry).shutdown();
+        verify(executorService).shutdown();
+        verify(bulkheads).shutdown();
+        verify(metricsServer).stop();
+    }
+}
@@ -1,10 +1,23 @@
 package dev.logos.service.backend.server;
 
 import com.google.inject.*;
+import com.google.inject.multibindings.MapBinder;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.multibindings.ProvidesIntoOptional;
 import dev.logos.app.register.registerModule;
+import dev.logos.channel.ChannelRegistry;
+import dev.logos.channel.InProcessExecution;
+import dev.logos.channel.LocalLoad;
 import dev.logos.service.Service;
+import dev.logos.service.backend.server.bulkhead.BulkheadConfig;
+import dev.logos.service.backend.server.bulkhead.BulkheadExecutorSupplier;
+import dev.logos.service.backend.server.bulkhead.BulkheadInterceptor;
+import dev.logos.service.backend.server.metrics.CallMetricsInterceptor;
+import dev.logos.service.backend.server.metrics.CallMetricsTracer;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import dev.logos.service.backend.server.metrics.MetricsOptions;
+import dev.logos.service.backend.server.metrics.MetricsServer;
 import dev.logos.service.backend.server.worker.Worker;
 import io.grpc.*;
 import io.grpc.inprocess.InProcessServerBuilder;
@@ -14,10 +27,12 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Logger;
 
 
@@ -40,13 +55,57 @@ public class ServerModule extends AbstractModule {
     public @interface ServerThreadPool {
     }
 
+    @BindingAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface InProcessThreadPool {
+    }
+
+    /**
+     * Calls admitted at once in {@link ExecutorMode#VIRTUAL} mode. Defaults to {@link DatabaseConnections} when a
+     * database pool is installed, since every generated handler holds one connection for its whole call, and to
+     * {@link ThreadPoolSize} otherwise.
+     */
+    @BindingAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface MaxConcurrentCalls {
+    }
+
+    /**
+     * Connections the database pool hands out at once. Bound by the storage module when it is installed.
+     */
+    @BindingAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface DatabaseConnections {
+    }
+
     @Override
     protected void configure() {
         Multibinder.newSetBinder(binder(), Service.class);
         Multibinder.newSetBinder(binder(), ServerInterceptor.class);
+        Multibinder.newSetBinder(binder(), ClientInterceptor.class);
         Multibinder.newSetBinder(binder(), Worker.class);
         OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, ThreadPoolSize.class))
                       .setDefault().toInstance(32);
+        OptionalBinder.newOptionalBinder(binder(), ExecutorMode.class)
+                      .setDefault().toInstance(ExecutorMode.fromEnvironment());
+        OptionalBinder.newOptionalBinder(binder(), InProcessExecution.class)
+                      .setDefault().toInstance(InProcessExecution.fromEnvironment());
+        OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, MaxConcurrentCalls.class));
+        OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, DatabaseConnections.class));
+        OptionalBinder.newOptionalBinder(binder(), MetricsOptions.class)
+                      .setDefault().toInstance(MetricsOptions.fromEnvironment());
+        MapBinder.newMapBinder(binder(), String.class, BulkheadConfig.class);
+        OptionalBinder.newOptionalBinder(binder(), LocalLoad.class)
+                      .setBinding().to(ExecutorLoad.class);
+    }
+
+    @ProvidesIntoOptional(ProvidesIntoOptional.Type.DEFAULT)
+    @MaxConcurrentCalls
+    Integer provideMaxConcurrentCalls(
+            @DatabaseConnections Optional<Integer> databaseConnections,
+            @ThreadPoolSize Integer threadPoolSize
+    ) {
+        return databaseConnections.orElse(threadPoolSize);
     }
 
     @Provides
@@ -61,7 +120,11 @@ public class ServerModule extends AbstractModule {
         return Executors.newWorkStealingPool();
     }
 
+    /**
+     * Services by full name, built once and shared by the guard and by stubs routing calls in process.
+     */
     @Provides
+    @Singleton
     public Map<String, Service> provideServiceMap(Set<Service> services) {
         Map<String, Service> serviceMap = new HashMap<>();
 
@@ -69,13 +132,50 @@ public class ServerModule extends AbstractModule {
             serviceMap.put(service.bindService().getServiceDescriptor().getName(), service);
         }
 
-        return serviceMap;
+        return Map.copyOf(serviceMap);
     }
 
     @Provides
+    @Singleton
     @ServerThreadPool
-    ExecutorService serverThreadPool(@ThreadPoolSize Integer threadPoolSize) {
-        return Executors.newFixedThreadPool(threadPoolSize);
+    ExecutorService serverThreadPool(
+            ExecutorMode executorMode,
+            @ThreadPoolSize Integer threadPoolSize,
+            @MaxConcurrentCalls Integer maxConcurrentCalls,
+            MetricRegistry metricRegistry
+    ) {
+        ExecutorService executorService = switch (executorMode) {
+            case FIXED -> Executors.newFixedThreadPool(threadPoolSize);
+            case VIRTUAL -> new BoundedVirtualThreadExecutor(maxConcurrentCalls);
+        };
+
+        if (executorService instanceof ThreadPoolExecutor pool) {
+            metricRegistry.gauge("logos_server_executor_active", "Server executor tasks running", Map.of(),
+                    pool::getActiveCount);
+            metricRegistry.gauge("logos_server_executor_queued", "Server executor tasks waiting for a thread", Map.of(),
+                    () -> pool.getQueue().size());
+        } else if (executorService instanceof BoundedVirtualThreadExecutor pool) {
+            metricRegistry.gauge("logos_server_executor_active", "Server executor tasks running", Map.of(),
+                    pool::getActiveCount);
+            metricRegistry.gauge("logos_server_executor_queued", "Server executor tasks waiting for a thread", Map.of(),
+                    pool::getQueueLength);
+        }
+
+        return executorService;
+    }
+
+    /**
+     * In-process calls are made from inside calls that already hold a permit, so in {@link ExecutorMode#VIRTUAL} mode
+     * they are not admitted against {@link MaxConcurrentCalls} again, which could otherwise deadlock.
+     */
+    @Provides
+    @Singleton
+    @InProcessThreadPool
+    ExecutorService inProcessThreadPool(ExecutorMode executorMode, @ServerThreadPool ExecutorService serverThreadPool) {
+        return switch (executorMode) {
+            case FIXED -> serverThreadPool;
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+        };
     }
 
     @Provides
@@ -83,8 +183,14 @@ public class ServerModule extends AbstractModule {
             Set<Server> servers,
             Set<Worker> workers,
             Logger logger,
-            @ServerThreadPool ExecutorService executorService) {
-        return new ServerExecutor(servers, workers, logger, executorService);
+            @ServerThreadPool ExecutorService executorService,
+            BulkheadExecutorSupplier bulkheadExecutorSupplier,
+            ChannelRegistry channelRegistry,
+            MetricsServer metricsServer,
+            MetricRegistry metricRegistry,
+            ShutdownRegistry shutdownRegistry) {
+        return new ServerExecutor(servers, workers, logger, executorService, bulkheadExecutorSupplier, channelRegistry,
+                metricsServer, metricRegistry, shutdownRegistry);
     }
 
     @Provides
@@ -92,12 +198,26 @@ public class ServerModule extends AbstractModule {
             Set<Service> services,
             Set<ServerInterceptor> interceptors,
             GuardServerInterceptor guardServerInterceptor,
-            @ServerThreadPool ExecutorService serverThreadPool
+            @ServerThreadPool ExecutorService serverThreadPool,
+            @InProcessThreadPool ExecutorService inProcessThreadPool,
+            BulkheadExecutorSupplier bulkheadExecutorSupplier,
+            InProcessExecution inProcessExecution,
+            MetricRegistry metricRegistry
     ) {
-        ServerBuilder<?> innerServerBuilder = InProcessServerBuilder.forName("logos-in-process")
-                                                                    .executor(serverThreadPool);
+        ServerBuilder<?> innerServerBuilder = switch (inProcessExecution) {
+            case POOLED -> InProcessServerBuilder.forName(ChannelRegistry.IN_PROCESS_NAME)
+                                                 .executor(inProcessThreadPool)
+                                                 .callExecutor(bulkheadExecutorSupplier);
+            case DIRECT -> InProcessServerBuilder.forName(ChannelRegistry.IN_PROCESS_NAME)
+                                                 .directExecutor()
+                                                 .callExecutor(new InProcessCallExecutorSupplier(
+                                                         bulkheadExecutorSupplier,
+                                                         NonBlockingMethods.of(services),
+                                                         inProcessThreadPool));
+        };
         ServerBuilder<?> outerServerBuilder = ServerBuilder.forPort(DEFAULT_PORT)
-                                                           .executor(serverThreadPool);
+                                                           .executor(serverThreadPool)
+                                                           .callExecutor(bulkheadExecutorSupplier);
 
         outerServerBuilder.addService(new HealthStatusManager().getHealthService());
 
@@ -112,6 +232,16 @@ public class ServerModule extends AbstractModule {
             outerServerBuilder.intercept(interceptor);
         }
 
+        // Added after the app's interceptors so it runs before them, rejecting calls the bulkhead could not admit before
+        // any other work is done.
+        innerServerBuilder.intercept(new BulkheadInterceptor());
+        outerServerBuilder.intercept(new BulkheadInterceptor());
+
+        // Outermost, so calls rejected by the bulkhead or by other interceptors are measured too.
+        innerServerBuilder.intercept(new CallMetricsInterceptor(metricRegistry, "in_process"));
+        outerServerBuilder.intercept(new CallMetricsInterceptor(metricRegistry, "network"));
+        outerServerBuilder.addStreamTracerFactory(new CallMetricsTracer(metricRegistry, "network"));
+
         for (Service service : services) {
             innerServerBuilder.addService(service);
             outerServerBuilder.addService(service);
@@ -0,0 +1,39 @@
+package dev.logos.service.backend.server;
+
+import com.google.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Resources that calls and workers share, such as client pools and refresh schedulers, to be closed by
+ * {@link ServerExecutor} once the servers have drained and the workers have stopped. Providers register what they
+ * create rather than adding their own JVM shutdown hooks, which run concurrently with the drain and would close a
+ * resource under the calls still finishing.
+ */
+@Singleton
+public class ShutdownRegistry {
+    private final Deque<AutoCloseable> resources = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Registers {@code resource} to be closed on shutdown and returns it.
+     */
+    public <T extends AutoCloseable> T register(T resource) {
+        resources.push(resource);
+        return resource;
+    }
+
+    /**
+     * Removes and returns the registered resources, most recently registered first, so a resource is closed before
+     * those it was built from.
+     */
+    List<AutoCloseable> drain() {
+        List<AutoCloseable> drained = new ArrayList<>();
+        for (AutoCloseable resource; (resource = resources.poll()) != null; ) {
+            drained.add(resource);
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.logos.service.backend.server.bulkhead;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed pool of threads for one service or method, reporting how long tasks wait to run. Its queue depth and busy
+ * threads are reported by {@link BulkheadExecutorSupplier}, since gauges registered here would capture the pool
+ * before it is constructed.
+ * <p>
+ * The queue itself is unbounded so that tasks of calls already admitted are never rejected mid-call; the queue limit is
+ * applied when a call is admitted, by {@link BulkheadExecutorSupplier}.
+ */
+public class Bulkhead extends ThreadPoolExecutor {
+    private final String name;
+    private final int queueLimit;
+    private final MetricRegistry.Counter waitNanos;
+    private final MetricRegistry.Counter tasks;
+    private final MetricRegistry.Counter rejected;
+
+    public Bulkhead(String name, BulkheadConfig config, MetricRegistry metricRegistry) {
+        super(config.threads(), config.threads(), 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                threadFactory(name));
+        this.name = name;
+        this.queueLimit = config.queueLimit();
+
+        Map<String, String> labels = Map.of("bulkhead", name);
+        this.waitNanos = metricRegistry.counter("logos_bulkhead_wait_nanoseconds_total",
+                "Time tasks spent queued before running", labels);
+        this.tasks = metricRegistry.counter("logos_bulkhead_tasks_total",
+                "Tasks run", labels);
+        this.rejected = metricRegistry.counter("logos_bulkhead_rejected_total",
+                "Calls rejected because the bulkhead queue was full", labels);
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bulkhead-%s-%d".formatted(name, count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        long enqueued = System.nanoTime();
+        super.execute(() -> {
+            waitNanos.add(System.nanoTime() - enqueued);
+            tasks.increment();
+            command.run();
+        });
+    }
+
+    /**
+     * Whether a new call may be admitted, counting it as rejected if not.
+     */
+    boolean admit() {
+        if (getQueue().size() >= queueLimit) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,22 @@
+package dev.logos.service.backend.server.bulkhead;
+
+/**
+ * An isolated executor for one service or method.
+ *
+ * @param threads    threads dedicated to the bulkhead
+ * @param queueLimit calls arriving while this many tasks are already queued are rejected with
+ *                   {@code RESOURCE_EXHAUSTED}
+ */
+public record BulkheadConfig(
+        int threads,
+        int queueLimit
+) {
+    public BulkheadConfig {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive, got " + threads);
+        }
+        if (queueLimit < 0) {
+            throw new IllegalArgumentException("queueLimit must not be negative, got " + queueLimit);
+        }
+    }
+}
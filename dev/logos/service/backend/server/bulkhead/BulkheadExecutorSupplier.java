@@ -0,0 +1,76 @@
+package dev.logos.service.backend.server.bulkhead;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallExecutorSupplier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+
+/**
+ * Runs calls to services and methods that have a {@link BulkheadConfig} bound on their own {@link Bulkhead}, and
+ * everything else on the server's shared executor. Bulkheads are keyed by full service name, e.g.
+ * {@code "app.ReportService"}, or full method name, e.g. {@code "app.ReportService/Export"}; a method's bulkhead takes
+ * precedence over its service's.
+ * <p>
+ * When a bulkhead's queue is full the call is left on the shared executor and marked in its headers, and
+ * {@link BulkheadInterceptor} closes it with {@code RESOURCE_EXHAUSTED} before it reaches the service.
+ */
+@Singleton
+public class BulkheadExecutorSupplier implements ServerCallExecutorSupplier {
+    static final Metadata.Key<String> REJECTED_KEY = Metadata.Key.of("logos-bulkhead-rejected", ASCII_STRING_MARSHALLER);
+
+    private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+
+    @Inject
+    public BulkheadExecutorSupplier(Map<String, BulkheadConfig> configs, MetricRegistry metricRegistry) {
+        configs.forEach((name, config) -> {
+            Bulkhead bulkhead = new Bulkhead(name, config, metricRegistry);
+            Map<String, String> labels = Map.of("bulkhead", name);
+            metricRegistry.gauge("logos_bulkhead_queue_depth",
+                    "Tasks waiting for a bulkhead thread", labels, () -> bulkhead.getQueue().size());
+            metricRegistry.gauge("logos_bulkhead_active_threads",
+                    "Bulkhead threads running a task", labels, bulkhead::getActiveCount);
+            bulkheads.put(name, bulkhead);
+        });
+    }
+
+    @Override
+    public <ReqT, RespT> Executor getExecutor(ServerCall<ReqT, RespT> call, Metadata metadata) {
+        // Only this supplier may mark a call as rejected.
+        metadata.discardAll(REJECTED_KEY);
+
+        if (bulkheads.isEmpty()) {
+            return null;
+        }
+
+        String method = call.getMethodDescriptor().getFullMethodName();
+        Bulkhead bulkhead = bulkheads.get(method);
+        if (bulkhead == null) {
+            bulkhead = bulkheads.get(call.getMethodDescriptor().getServiceName());
+        }
+        if (bulkhead == null) {
+            return null;
+        }
+
+        if (!bulkhead.admit()) {
+            metadata.put(REJECTED_KEY, bulkhead.getName());
+            return null;
+        }
+        return bulkhead;
+    }
+
+    /**
+     * Stops the bulkheads from taking new tasks. Tasks already queued still run. Called on shutdown after the servers
+     * have stopped accepting calls.
+     */
+    public void shutdown() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+}
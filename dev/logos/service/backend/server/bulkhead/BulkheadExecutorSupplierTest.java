@@ -0,0 +1,142 @@
+package dev.logos.service.backend.server.bulkhead;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BulkheadExecutorSupplierTest {
+    private BulkheadExecutorSupplier supplier;
+
+    @After
+    public void tearDown() {
+        if (supplier != null) {
+            supplier.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerCall<String, String> call(String fullMethodName) {
+        MethodDescriptor<String, String> method = MethodDescriptor.<String, String>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(fullMethodName)
+                .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+                .setResponseMarshaller(mock(MethodDescriptor.Marshaller.class))
+                .build();
+        ServerCall<String, String> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(method);
+        return call;
+    }
+
+    private static String bulkheadName(Executor executor) {
+        return executor instanceof Bulkhead bulkhead ? bulkhead.getName() : null;
+    }
+
+    @Test
+    public void getExecutor_withoutBulkhead_usesSharedExecutor() {
+        supplier = new BulkheadExecutorSupplier(Map.of("app.ReportService", new BulkheadConfig(1, 1)),
+                new MetricRegistry());
+
+        assertNull(supplier.getExecutor(call("app.UserService/Get"), new Metadata()));
+    }
+
+    @Test
+    public void getExecutor_admitsToServiceBulkhead() {
+        supplier = new BulkheadExecutorSupplier(Map.of("app.ReportService", new BulkheadConfig(1, 1)),
+                new MetricRegistry());
+        Metadata headers = new Metadata();
+
+        assertEquals("app.ReportService", bulkheadName(supplier.getExecutor(call("app.ReportService/Export"), headers)));
+        assertNull(headers.get(BulkheadExecutorSupplier.REJECTED_KEY));
+    }
+
+    @Test
+    public void getExecutor_methodBulkheadTakesPrecedence() {
+        supplier = new BulkheadExecutorSupplier(Map.of(
+                "app.ReportService", new BulkheadConfig(1, 1),
+                "app.ReportService/Export", new BulkheadConfig(1, 1)), new MetricRegistry());
+
+        assertEquals("app.ReportService/Export",
+                bulkheadName(supplier.getExecutor(call("app.ReportService/Export"), new Metadata())));
+        assertEquals("app.ReportService",
+                bulkheadName(supplier.getExecutor(call("app.ReportService/List"), new Metadata())));
+    }
+
+    @Test
+    public void getExecutor_queueFull_marksCallRejected() throws InterruptedException {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        supplier = new BulkheadExecutorSupplier(Map.of("app.ReportService", new BulkheadConfig(1, 1)), metricRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Executor bulkhead = supplier.getExecutor(call("app.ReportService/Export"), new Metadata());
+        bulkhead.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        // Fills the queue behind the running task.
+        supplier.getExecutor(call("app.ReportService/Export"), new Metadata()).execute(() -> {
+        });
+
+        Metadata headers = new Metadata();
+        assertNull(supplier.getExecutor(call("app.ReportService/Export"), headers));
+        assertEquals("app.ReportService", headers.get(BulkheadExecutorSupplier.REJECTED_KEY));
+
+        release.countDown();
+    }
+
+    @Test
+    public void getExecutor_discardsClientSuppliedRejection() {
+        supplier = new BulkheadExecutorSupplier(Map.of(), new MetricRegistry());
+        Metadata headers = new Metadata();
+        headers.put(BulkheadExecutorSupplier.REJECTED_KEY, "forged");
+
+        assertNull(supplier.getExecutor(call("app.ReportService/Export"), headers));
+        assertNull(headers.get(BulkheadExecutorSupplier.REJECTED_KEY));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void interceptor_closesRejectedCall() {
+        ServerCall<String, String> call = call("app.ReportService/Export");
+        ServerCallHandler<String, String> next = mock(ServerCallHandler.class);
+        Metadata headers = new Metadata();
+        headers.put(BulkheadExecutorSupplier.REJECTED_KEY, "app.ReportService");
+
+        new BulkheadInterceptor().interceptCall(call, headers, next);
+
+        ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+        verify(call).close(status.capture(), any());
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status.getValue().getCode());
+        verifyNoInteractions(next);
+    }
+
+    @Test
+    public void shutdown_stopsBulkheads() {
+        supplier = new BulkheadExecutorSupplier(Map.of("app.ReportService", new BulkheadConfig(1, 1)),
+                new MetricRegistry());
+        Bulkhead bulkhead = (Bulkhead) supplier.getExecutor(call("app.ReportService/Export"), new Metadata());
+
+        supplier.shutdown();
+
+        assertTrue(bulkhead.isShutdown());
+    }
+}
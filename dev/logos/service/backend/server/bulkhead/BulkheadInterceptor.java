@@ -0,0 +1,30 @@
+package dev.logos.service.backend.server.bulkhead;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Closes calls that {@link BulkheadExecutorSupplier} could not admit. Must run before any interceptor that does work
+ * for a call; {@code ServerModule} installs it outside the app's interceptors and inside only the call metrics, so
+ * rejected calls are still measured.
+ */
+public class BulkheadInterceptor implements ServerInterceptor {
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        String bulkhead = headers.get(BulkheadExecutorSupplier.REJECTED_KEY);
+        if (bulkhead == null) {
+            return next.startCall(call, headers);
+        }
+
+        call.close(Status.RESOURCE_EXHAUSTED.withDescription("Bulkhead %s is full".formatted(bulkhead)), new Metadata());
+        return new ServerCall.Listener<>() {
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package dev.logos.service.backend.server.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An additive-increase/multiplicative-decrease concurrency limit driven by call latency.
+ * <p>
+ * The baseline is a slow moving average of observed latency. A call that takes longer than
+ * {@link ConcurrencyLimitOptions#latencyTolerance()} times the baseline, or that is dropped, shrinks the limit by
+ * {@link ConcurrencyLimitOptions#backoffRatio()}. Any other call grows it by one, as long as at least half of the limit
+ * was in use, so an idle method's limit does not drift upward.
+ * <p>
+ * Adjustments are serialized, but {@link #getLimit()} is read on every admission and takes no lock.
+ */
+public class AimdLimit {
+    static final double BASELINE_WEIGHT = 0.05;
+
+    private final ConcurrencyLimitOptions options;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double baselineNanos = 0;
+
+    public AimdLimit(ConcurrencyLimitOptions options) {
+        this.options = options;
+        this.limit = options.initialLimit();
+    }
+
+    /**
+     * Reserves a slot for a call, or returns false if the limit has been reached.
+     */
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot taken by {@link #tryAcquire()} and adjusts the limit for how the call went.
+     */
+    public synchronized void release(long latencyNanos, boolean dropped) {
+        int concurrency = inFlight.getAndDecrement();
+
+        if (dropped) {
+            decrease();
+            return;
+        }
+
+        boolean slow = baselineNanos > 0 && latencyNanos > baselineNanos * options.latencyTolerance();
+        // Slow calls move the baseline too, so a lasting shift in latency is eventually accepted as normal.
+        baselineNanos = baselineNanos == 0
+                ? latencyNanos
+                : baselineNanos + (latencyNanos - baselineNanos) * BASELINE_WEIGHT;
+
+        if (slow) {
+            decrease();
+        } else if (concurrency * 2 >= limit) {
+            limit = Math.min(options.maxLimit(), limit + 1);
+        }
+    }
+
+    /**
+     * Releases a slot taken by {@link #tryAcquire()} without adjusting the limit, for a call whose end says nothing
+     * about the server's load, such as one cancelled by its client.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private void decrease() {
+        limit = Math.max(options.minLimit(), limit * options.backoffRatio());
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,72 @@
+package dev.logos.service.backend.server.limit;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.*;
+
+public class AimdLimitTest {
+    private static final ConcurrencyLimitOptions OPTIONS = new ConcurrencyLimitOptions(4, 2, 8, 0.5, 2.0);
+
+    @Test
+    public void tryAcquire_rejectsAtLimit() {
+        AimdLimit limit = new AimdLimit(OPTIONS);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(4, limit.getInFlight());
+    }
+
+    @Test
+    public void fastCalls_atHighUtilization_increaseLimit() {
+        AimdLimit limit = new AimdLimit(OPTIONS);
+
+        for (int i = 0; i < 4; i++) {
+            limit.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limit.release(MILLISECONDS.toNanos(10), false);
+        }
+
+        assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    public void fastCalls_atLowUtilization_keepLimit() {
+        AimdLimit limit = new AimdLimit(OPTIONS);
+
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.release(MILLISECONDS.toNanos(10), false);
+        }
+
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void slowCall_decreasesLimit() {
+        AimdLimit limit = new AimdLimit(OPTIONS);
+
+        limit.tryAcquire();
+        limit.release(MILLISECONDS.toNanos(10), false);
+        limit.tryAcquire();
+        limit.release(MILLISECONDS.toNanos(100), false);
+
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void droppedCalls_neverGoBelowMinimum() {
+        AimdLimit limit = new AimdLimit(OPTIONS);
+
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.release(MILLISECONDS.toNanos(10), true);
+        }
+
+        assertEquals(2, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+}
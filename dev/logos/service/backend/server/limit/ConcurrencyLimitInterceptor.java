@@ -0,0 +1,125 @@
+package dev.logos.service.backend.server.limit;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects calls with {@code RESOURCE_EXHAUSTED} once a method has as many calls in flight as its {@link AimdLimit}
+ * allows, rather than letting them queue on the server executor. Install with
+ * {@code interceptor(ConcurrencyLimitInterceptor.class)} in an {@code AppModule}.
+ * <p>
+ * The latency sampled for a call is the time the server spent producing its first response: from the end of the
+ * request, or from the start of the call if a response was sent before the request ended, to the first response
+ * message, or to the close if there was none. Time spent waiting for a client to stream its request, and the rest of a
+ * long response stream, would otherwise read as a slow server. A call cancelled by its client releases its slot without
+ * a sample, since the client giving up says nothing about the server's load.
+ */
+@Singleton
+public class ConcurrencyLimitInterceptor implements ServerInterceptor {
+    private final ConcurrencyLimitOptions options;
+    private final MetricRegistry metricRegistry;
+    private final Map<String, AimdLimit> limits = new ConcurrentHashMap<>();
+
+    @Inject
+    public ConcurrencyLimitInterceptor(ConcurrencyLimitOptions options, MetricRegistry metricRegistry) {
+        this.options = options;
+        this.metricRegistry = metricRegistry;
+    }
+
+    AimdLimit limitFor(String method) {
+        return limits.computeIfAbsent(method, ignored -> {
+            AimdLimit limit = new AimdLimit(options);
+            Map<String, String> labels = Map.of("method", method);
+            metricRegistry.gauge("logos_concurrency_limit",
+                    "Concurrent calls currently allowed per method", labels, limit::getLimit);
+            metricRegistry.gauge("logos_concurrency_in_flight",
+                    "Calls currently in flight per method", labels, limit::getInFlight);
+            return limit;
+        });
+    }
+
+    private static boolean dropped(Status status) {
+        return switch (status.getCode()) {
+            case DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED, UNAVAILABLE -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        String method = call.getMethodDescriptor().getFullMethodName();
+        AimdLimit limit = limitFor(method);
+
+        if (!limit.tryAcquire()) {
+            metricRegistry.counter("logos_concurrency_rejected_total",
+                    "Calls rejected for exceeding the concurrency limit", Map.of("method", method)).increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Concurrency limit exceeded"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        AtomicLong sampleStart = new AtomicLong(System.nanoTime());
+        AtomicLong firstResponse = new AtomicLong();
+        AtomicBoolean released = new AtomicBoolean(false);
+
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                @Override
+                public void sendMessage(RespT message) {
+                    firstResponse.compareAndSet(0, System.nanoTime());
+                    super.sendMessage(message);
+                }
+
+                @Override
+                public void close(Status status, Metadata trailers) {
+                    if (released.compareAndSet(false, true)) {
+                        long end = firstResponse.get() != 0 ? firstResponse.get() : System.nanoTime();
+                        limit.release(Math.max(0, end - sampleStart.get()), dropped(status));
+                    }
+                    super.close(status, trailers);
+                }
+            }, headers);
+        } catch (RuntimeException e) {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - sampleStart.get(), true);
+            }
+            throw e;
+        }
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onHalfClose() {
+                if (firstResponse.get() == 0) {
+                    sampleStart.set(System.nanoTime());
+                }
+                super.onHalfClose();
+            }
+
+            @Override
+            public void onCancel() {
+                if (released.compareAndSet(false, true)) {
+                    limit.release();
+                }
+                super.onCancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package dev.logos.service.backend.server.limit;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ConcurrencyLimitInterceptorTest {
+    private static final ConcurrencyLimitOptions OPTIONS = new ConcurrencyLimitOptions(4, 2, 8, 0.5, 2.0);
+    private static final long BASELINE_MILLIS = 20;
+    private static final long IDLE_MILLIS = 300;
+
+    private ConcurrencyLimitInterceptor interceptor;
+    private MethodDescriptor<String, String> method;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        interceptor = new ConcurrencyLimitInterceptor(OPTIONS, new MetricRegistry());
+        method = MethodDescriptor.<String, String>newBuilder()
+                                 .setType(MethodDescriptor.MethodType.UNKNOWN)
+                                 .setFullMethodName("svc/method")
+                                 .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+                                 .setResponseMarshaller(mock(MethodDescriptor.Marshaller.class))
+                                 .build();
+    }
+
+    /**
+     * A started call, with the call the handler sees and the listener the transport calls.
+     */
+    private record Call(ServerCall<String, String> call, ServerCall.Listener<String> listener) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private Call start() {
+        ServerCall<String, String> transportCall = mock(ServerCall.class);
+        when(transportCall.getMethodDescriptor()).thenReturn(method);
+        ServerCallHandler<String, String> handler = mock(ServerCallHandler.class);
+        when(handler.startCall(any(), any())).thenReturn(mock(ServerCall.Listener.class));
+
+        ServerCall.Listener<String> listener = interceptor.interceptCall(transportCall, new Metadata(), handler);
+        ArgumentCaptor<ServerCall<String, String>> call = ArgumentCaptor.forClass(ServerCall.class);
+        verify(handler).startCall(call.capture(), any());
+        return new Call(call.getValue(), listener);
+    }
+
+    private void unaryCall(long handlerMillis) throws InterruptedException {
+        Call call = start();
+        call.listener().onMessage("request");
+        call.listener().onHalfClose();
+        Thread.sleep(handlerMillis);
+        call.call().sendMessage("response");
+        call.call().close(Status.OK, new Metadata());
+    }
+
+    private int limit() {
+        return interceptor.limitFor(method.getFullMethodName()).getLimit();
+    }
+
+    @Test
+    public void slowHandler_decreasesLimit() throws InterruptedException {
+        unaryCall(BASELINE_MILLIS);
+        unaryCall(IDLE_MILLIS);
+
+        assertEquals(2, limit());
+    }
+
+    @Test
+    public void longResponseStream_isNotSampledAsSlow() throws InterruptedException {
+        unaryCall(BASELINE_MILLIS);
+
+        Call stream = start();
+        stream.listener().onMessage("request");
+        stream.listener().onHalfClose();
+        stream.call().sendMessage("first");
+        Thread.sleep(IDLE_MILLIS);
+        stream.call().sendMessage("last");
+        stream.call().close(Status.OK, new Metadata());
+
+        assertEquals(4, limit());
+    }
+
+    @Test
+    public void slowClientStream_isNotSampledAsSlow() throws InterruptedException {
+        unaryCall(BASELINE_MILLIS);
+
+        Call stream = start();
+        stream.listener().onMessage("first");
+        Thread.sleep(IDLE_MILLIS);
+        stream.listener().onMessage("last");
+        stream.listener().onHalfClose();
+        stream.call().sendMessage("response");
+        stream.call().close(Status.OK, new Metadata());
+
+        assertEquals(4, limit());
+    }
+
+    @Test
+    public void clientCancel_releasesWithoutDecreasingLimit() {
+        Call call = start();
+        call.listener().onCancel();
+
+        assertEquals(4, limit());
+        assertEquals(0, interceptor.limitFor(method.getFullMethodName()).getInFlight());
+    }
+
+    @Test
+    public void overLimit_isRejected() {
+        for (int i = 0; i < OPTIONS.initialLimit(); i++) {
+            start();
+        }
+
+        @SuppressWarnings("unchecked")
+        ServerCall<String, String> rejected = mock(ServerCall.class);
+        when(rejected.getMethodDescriptor()).thenReturn(method);
+        @SuppressWarnings("unchecked")
+        ServerCallHandler<String, String> handler = mock(ServerCallHandler.class);
+        interceptor.interceptCall(rejected, new Metadata(), handler);
+
+        ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+        verify(rejected).close(status.capture(), any());
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status.getValue().getCode());
+        verifyNoInteractions(handler);
+    }
+}
@@ -0,0 +1,14 @@
+package dev.logos.service.backend.server.limit;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.OptionalBinder;
+import dev.logos.app.register.registerModule;
+
+@registerModule
+public class ConcurrencyLimitModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        OptionalBinder.newOptionalBinder(binder(), ConcurrencyLimitOptions.class)
+                      .setDefault().toInstance(ConcurrencyLimitOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,33 @@
+package dev.logos.service.backend.server.limit;
+
+/**
+ * Settings for {@link ConcurrencyLimitInterceptor}. Override the default binding with
+ * {@code OptionalBinder.newOptionalBinder(binder(), ConcurrencyLimitOptions.class).setBinding().toInstance(...)}.
+ *
+ * @param initialLimit     concurrent calls allowed per method before any latency has been observed
+ * @param minLimit         the limit never drops below this
+ * @param maxLimit         the limit never grows above this
+ * @param backoffRatio     factor the limit is multiplied by when a call is slow or dropped
+ * @param latencyTolerance a call is slow when it takes longer than this multiple of the method's baseline latency
+ */
+public record ConcurrencyLimitOptions(
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        double backoffRatio,
+        double latencyTolerance
+) {
+    public static final ConcurrencyLimitOptions DEFAULT = new ConcurrencyLimitOptions(20, 4, 1000, 0.9, 2.0);
+
+    public ConcurrencyLimitOptions {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1, got " + backoffRatio);
+        }
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("latencyTolerance must be greater than 1, got " + latencyTolerance);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package dev.logos.service.backend.server.metrics;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry.Counter;
+import dev.logos.service.backend.server.metrics.MetricRegistry.Histogram;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records per-method latency, calls in flight, status codes and message counts for the calls a server handles.
+ * Message sizes come from {@link CallMetricsTracer}, since only the transport knows them.
+ */
+public class CallMetricsInterceptor implements ServerInterceptor {
+    private final MetricRegistry metricRegistry;
+    private final String server;
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    /**
+     * @param server value of the {@code server} label, distinguishing the in-process server from the network one
+     */
+    public CallMetricsInterceptor(MetricRegistry metricRegistry, String server) {
+        this.metricRegistry = metricRegistry;
+        this.server = server;
+    }
+
+    private final class MethodMetrics {
+        private final Map<String, String> labels;
+        private final Histogram duration;
+        private final Counter received;
+        private final Counter sent;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Map<Status.Code, Counter> handled = new ConcurrentHashMap<>();
+
+        private MethodMetrics(String method) {
+            labels = Map.of("server", server, "method", method);
+            duration = metricRegistry.histogram("logos_rpc_server_duration_seconds",
+                    "Time from the start of a call until it is closed or cancelled", labels,
+                    MetricRegistry.LATENCY_SECONDS);
+            received = metricRegistry.counter("logos_rpc_server_messages_received_total",
+                    "Request messages received", labels);
+            sent = metricRegistry.counter("logos_rpc_server_messages_sent_total",
+                    "Response messages sent", labels);
+            metricRegistry.gauge("logos_rpc_server_in_flight",
+                    "Calls started and not yet closed", labels, inFlight::get);
+        }
+
+        private void finish(long startNanos, Status.Code code) {
+            inFlight.decrementAndGet();
+            duration.observe((System.nanoTime() - startNanos) / 1e9);
+            handled.computeIfAbsent(code, ignored -> metricRegistry.counter("logos_rpc_server_handled_total",
+                    "Calls completed, by status code",
+                    Map.of("server", server, "method", labels.get("method"), "code", code.name()))).increment();
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        MethodMetrics metrics = methods.computeIfAbsent(call.getMethodDescriptor().getFullMethodName(), MethodMetrics::new);
+        long start = System.nanoTime();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        metrics.inFlight.incrementAndGet();
+
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                @Override
+                public void sendMessage(RespT message) {
+                    metrics.sent.increment();
+                    super.sendMessage(message);
+                }
+
+                @Override
+                public void close(Status status, Metadata trailers) {
+                    if (finished.compareAndSet(false, true)) {
+                        metrics.finish(start, status.getCode());
+                    }
+                    super.close(status, trailers);
+                }
+            }, headers);
+        } catch (RuntimeException e) {
+            if (finished.compareAndSet(false, true)) {
+                metrics.finish(start, Status.Code.UNKNOWN);
+            }
+            throw e;
+        }
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onMessage(ReqT message) {
+                metrics.received.increment();
+                super.onMessage(message);
+            }
+
+            @Override
+            public void onCancel() {
+                if (finished.compareAndSet(false, true)) {
+                    metrics.finish(start, Status.Code.CANCELLED);
+                }
+                super.onCancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package dev.logos.service.backend.server.metrics;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry.MetricKey;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class CallMetricsInterceptorTest {
+    private static final Map<String, String> LABELS = Map.of("server", "network", "method", "svc/method");
+
+    private MetricRegistry metricRegistry;
+    private CallMetricsInterceptor interceptor;
+    private MethodDescriptor<String, String> method;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        interceptor = new CallMetricsInterceptor(metricRegistry, "network");
+        method = MethodDescriptor.<String, String>newBuilder()
+                                 .setType(MethodDescriptor.MethodType.UNKNOWN)
+                                 .setFullMethodName("svc/method")
+                                 .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+                                 .setResponseMarshaller(mock(MethodDescriptor.Marshaller.class))
+                                 .build();
+    }
+
+    /**
+     * A started call, with the call the handler sees and the listener the transport calls.
+     */
+    private record Call(ServerCall<String, String> call, ServerCall.Listener<String> listener) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private Call start() {
+        ServerCall<String, String> transportCall = mock(ServerCall.class);
+        when(transportCall.getMethodDescriptor()).thenReturn(method);
+        ServerCallHandler<String, String> handler = mock(ServerCallHandler.class);
+        when(handler.startCall(any(), any())).thenReturn(mock(ServerCall.Listener.class));
+
+        ServerCall.Listener<String> listener = interceptor.interceptCall(transportCall, new Metadata(), handler);
+        ArgumentCaptor<ServerCall<String, String>> call = ArgumentCaptor.forClass(ServerCall.class);
+        verify(handler).startCall(call.capture(), any());
+        return new Call(call.getValue(), listener);
+    }
+
+    static double value(MetricRegistry metricRegistry, String name, Map<String, String> labels) {
+        MetricKey key = new MetricKey(name, new TreeMap<>(labels));
+        return metricRegistry.samples().stream()
+                             .filter(sample -> sample.key().equals(key))
+                             .findFirst()
+                             .orElseThrow(() -> new AssertionError("No metric " + key))
+                             .metric().value();
+    }
+
+    private double handled(Status.Code code) {
+        Map<String, String> labels = new TreeMap<>(LABELS);
+        labels.put("code", code.name());
+        return value(metricRegistry, "logos_rpc_server_handled_total", labels);
+    }
+
+    @Test
+    public void call_isInFlightUntilClosed() {
+        Call call = start();
+        assertEquals(1, value(metricRegistry, "logos_rpc_server_in_flight", LABELS), 0);
+
+        call.call().close(Status.OK, new Metadata());
+
+        assertEquals(0, value(metricRegistry, "logos_rpc_server_in_flight", LABELS), 0);
+    }
+
+    @Test
+    public void cancelAfterClose_finishesOnce() {
+        Call call = start();
+        call.call().close(Status.OK, new Metadata());
+        call.listener().onCancel();
+
+        assertEquals(0, value(metricRegistry, "logos_rpc_server_in_flight", LABELS), 0);
+        assertEquals(1, handled(Status.Code.OK), 0);
+        assertEquals(1, metricRegistry.samples().stream()
+                                      .filter(sample -> sample.key().name().equals("logos_rpc_server_handled_total"))
+                                      .count());
+    }
+
+    @Test
+    public void closeAfterCancel_finishesOnceAsCancelled() {
+        Call call = start();
+        call.listener().onCancel();
+        call.call().close(Status.OK, new Metadata());
+
+        assertEquals(0, value(metricRegistry, "logos_rpc_server_in_flight", LABELS), 0);
+        assertEquals(1, handled(Status.Code.CANCELLED), 0);
+    }
+
+    @Test
+    public void statusCodes_areCountedSeparately() {
+        start().call().close(Status.OK, new Metadata());
+        start().call().close(Status.OK, new Metadata());
+        start().call().close(Status.NOT_FOUND, new Metadata());
+
+        assertEquals(2, handled(Status.Code.OK), 0);
+        assertEquals(1, handled(Status.Code.NOT_FOUND), 0);
+    }
+
+    @Test
+    public void messages_areCounted() {
+        Call call = start();
+        call.listener().onMessage("first");
+        call.listener().onMessage("second");
+        call.call().sendMessage("response");
+        call.call().close(Status.OK, new Metadata());
+
+        assertEquals(2, value(metricRegistry, "logos_rpc_server_messages_received_total", LABELS), 0);
+        assertEquals(1, value(metricRegistry, "logos_rpc_server_messages_sent_total", LABELS), 0);
+    }
+
+    @Test
+    public void wireSizes_areCountedByTracer() {
+        CallMetricsTracer tracer = new CallMetricsTracer(metricRegistry, "network");
+        ServerStreamTracer streamTracer = tracer.newServerStreamTracer("svc/method", new Metadata());
+        streamTracer.inboundWireSize(10);
+        streamTracer.inboundWireSize(-1);
+        streamTracer.outboundWireSize(25);
+
+        assertEquals(10, value(metricRegistry, "logos_rpc_server_received_bytes_total", LABELS), 0);
+        assertEquals(25, value(metricRegistry, "logos_rpc_server_sent_bytes_total", LABELS), 0);
+    }
+}
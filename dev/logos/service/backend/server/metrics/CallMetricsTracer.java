@@ -0,0 +1,57 @@
+package dev.logos.service.backend.server.metrics;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry.Counter;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the bytes each method receives and sends on the wire. Transports that do not serialize, such as the
+ * in-process one, report no sizes.
+ */
+public class CallMetricsTracer extends ServerStreamTracer.Factory {
+    private final MetricRegistry metricRegistry;
+    private final String server;
+    private final Map<String, ByteCounters> counters = new ConcurrentHashMap<>();
+
+    private record ByteCounters(Counter received, Counter sent) {
+    }
+
+    /**
+     * @param server value of the {@code server} label, as given to the server's {@link CallMetricsInterceptor}
+     */
+    public CallMetricsTracer(MetricRegistry metricRegistry, String server) {
+        this.metricRegistry = metricRegistry;
+        this.server = server;
+    }
+
+    @Override
+    public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+        ByteCounters methodCounters = counters.computeIfAbsent(fullMethodName, method -> {
+            Map<String, String> labels = Map.of("server", server, "method", method);
+            return new ByteCounters(
+                    metricRegistry.counter("logos_rpc_server_received_bytes_total",
+                            "Request bytes received on the wire", labels),
+                    metricRegistry.counter("logos_rpc_server_sent_bytes_total",
+                            "Response bytes sent on the wire", labels));
+        });
+
+        return new ServerStreamTracer() {
+            @Override
+            public void inboundWireSize(long bytes) {
+                if (bytes > 0) {
+                    methodCounters.received().add(bytes);
+                }
+            }
+
+            @Override
+            public void outboundWireSize(long bytes) {
+                if (bytes > 0) {
+                    methodCounters.sent().add(bytes);
+                }
+            }
+        };
+    }
+}
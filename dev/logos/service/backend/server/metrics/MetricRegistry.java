@@ -0,0 +1,170 @@
+package dev.logos.service.backend.server.metrics;
+
+import com.google.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide counters, gauges and histograms, identified by name and labels.
+ * <p>
+ * Registering the same name and labels twice returns the existing counter or histogram, or replaces the gauge's value
+ * supplier, so components may register on every construction.
+ */
+@Singleton
+public class MetricRegistry {
+    public record MetricKey(String name, SortedMap<String, String> labels) {
+        public MetricKey {
+            labels = new TreeMap<>(labels);
+        }
+    }
+
+    /**
+     * Upper bounds for latencies in seconds, from a millisecond to ten seconds.
+     */
+    public static final double[] LATENCY_SECONDS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    public sealed interface Metric permits Counter, Gauge, Histogram {
+        double value();
+    }
+
+    public static final class Counter implements Metric {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long n) {
+            count.add(n);
+        }
+
+        @Override
+        public double value() {
+            return count.sum();
+        }
+    }
+
+    public static final class Gauge implements Metric {
+        private volatile DoubleSupplier supplier;
+
+        private Gauge(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public double value() {
+            return supplier.getAsDouble();
+        }
+    }
+
+    /**
+     * Counts observations into buckets by upper bound. {@link #value()} is the number of observations.
+     */
+    public static final class Histogram implements Metric {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(double[] bounds) {
+            this.bounds = bounds.clone();
+            Arrays.sort(this.bounds);
+            // One bucket per bound plus the +Inf bucket.
+            this.buckets = new LongAdder[this.bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double value) {
+            int bucket = Arrays.binarySearch(bounds, value);
+            buckets[bucket >= 0 ? bucket : -bucket - 1].increment();
+            sum.add(value);
+        }
+
+        public double[] bounds() {
+            return bounds.clone();
+        }
+
+        /**
+         * Observations at or below each bound, followed by the total, as in Prometheus' cumulative buckets.
+         */
+        public long[] cumulativeCounts() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                total += buckets[i].sum();
+                counts[i] = total;
+            }
+            return counts;
+        }
+
+        public double sum() {
+            return sum.sum();
+        }
+
+        @Override
+        public double value() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+    }
+
+    public record Sample(MetricKey key, String help, Metric metric) {
+    }
+
+    private final Map<MetricKey, Metric> metrics = new ConcurrentHashMap<>();
+    private final Map<String, String> help = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String help, Map<String, String> labels) {
+        this.help.putIfAbsent(name, help);
+        Metric metric = metrics.computeIfAbsent(new MetricKey(name, new TreeMap<>(labels)), key -> new Counter());
+        if (!(metric instanceof Counter counter)) {
+            throw new IllegalArgumentException("Metric %s is not a counter".formatted(name));
+        }
+        return counter;
+    }
+
+    public Histogram histogram(String name, String help, Map<String, String> labels, double... bounds) {
+        this.help.putIfAbsent(name, help);
+        Metric metric = metrics.computeIfAbsent(new MetricKey(name, new TreeMap<>(labels)), key -> new Histogram(bounds));
+        if (!(metric instanceof Histogram histogram)) {
+            throw new IllegalArgumentException("Metric %s is not a histogram".formatted(name));
+        }
+        return histogram;
+    }
+
+    public void gauge(String name, String help, Map<String, String> labels, DoubleSupplier value) {
+        this.help.putIfAbsent(name, help);
+        metrics.compute(new MetricKey(name, new TreeMap<>(labels)), (key, existing) -> {
+            if (existing == null) {
+                return new Gauge(value);
+            }
+            if (!(existing instanceof Gauge gauge)) {
+                throw new IllegalArgumentException("Metric %s is not a gauge".formatted(name));
+            }
+            gauge.supplier = value;
+            return gauge;
+        });
+    }
+
+    public List<Sample> samples() {
+        List<Sample> samples = new ArrayList<>();
+        metrics.forEach((key, metric) -> samples.add(new Sample(key, help.getOrDefault(key.name(), ""), metric)));
+        samples.sort((a, b) -> a.key().name().compareTo(b.key().name()));
+        return samples;
+    }
+}
@@ -0,0 +1,29 @@
+package dev.logos.service.backend.server.metrics;
+
+import java.util.Optional;
+
+/**
+ * Settings for {@link MetricsServer}. Override the default binding with
+ * {@code OptionalBinder.newOptionalBinder(binder(), MetricsOptions.class).setBinding().toInstance(...)}.
+ *
+ * @param port port serving {@code /metrics}; {@code 0} disables the server
+ */
+public record MetricsOptions(int port) {
+    public static final int DEFAULT_PORT = 9090;
+
+    public MetricsOptions {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be between 0 and 65535, got " + port);
+        }
+    }
+
+    public static MetricsOptions fromEnvironment() {
+        return new MetricsOptions(Optional.ofNullable(System.getenv("LOGOS_METRICS_PORT"))
+                                          .map(Integer::parseInt)
+                                          .orElse(DEFAULT_PORT));
+    }
+
+    public boolean enabled() {
+        return port != 0;
+    }
+}
@@ -0,0 +1,71 @@
+package dev.logos.service.backend.server.metrics;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the {@link MetricRegistry} in the Prometheus text format at {@code /metrics}, on its own port so scrapes
+ * neither compete with RPCs for the server executor nor go through the gRPC gateway.
+ */
+@Singleton
+public class MetricsServer {
+    private final MetricRegistry metricRegistry;
+    private final MetricsOptions options;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @Inject
+    public MetricsServer(MetricRegistry metricRegistry, MetricsOptions options) {
+        this.metricRegistry = metricRegistry;
+        this.options = options;
+    }
+
+    public synchronized void start() throws IOException {
+        if (!options.enabled() || server != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(options.port()), 0);
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = PrometheusText.format(metricRegistry.samples()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusText.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
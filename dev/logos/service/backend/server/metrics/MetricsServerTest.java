@@ -0,0 +1,65 @@
+package dev.logos.service.backend.server.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsServerTest {
+    private MetricRegistry metricRegistry;
+    private MetricsServer metricsServer;
+    private URI uri;
+
+    @Before
+    public void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        metricRegistry = new MetricRegistry();
+        metricsServer = new MetricsServer(metricRegistry, new MetricsOptions(port));
+        uri = URI.create("http://localhost:%d/metrics".formatted(port));
+        metricsServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        metricsServer.stop();
+    }
+
+    private static HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    @Test
+    public void get_servesRegistryAsPrometheusText() throws IOException, InterruptedException {
+        metricRegistry.counter("calls_total", "Calls", Map.of("method", "a")).add(3);
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri).GET().build());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(PrometheusText.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElseThrow());
+        assertTrue(response.body().contains("calls_total{method=\"a\"} 3\n"));
+    }
+
+    @Test
+    public void post_isRejected() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri)
+                                                        .POST(HttpRequest.BodyPublishers.noBody())
+                                                        .build());
+
+        assertEquals(405, response.statusCode());
+    }
+}
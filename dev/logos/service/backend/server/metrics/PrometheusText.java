@@ -0,0 +1,115 @@
+package dev.logos.service.backend.server.metrics;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry.Counter;
+import dev.logos.service.backend.server.metrics.MetricRegistry.Gauge;
+import dev.logos.service.backend.server.metrics.MetricRegistry.Histogram;
+import dev.logos.service.backend.server.metrics.MetricRegistry.Sample;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Renders {@link MetricRegistry} samples in the Prometheus text exposition format, version 0.0.4.
+ */
+public final class PrometheusText {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private PrometheusText() {
+    }
+
+    public static String format(List<Sample> samples) {
+        StringBuilder out = new StringBuilder();
+        String family = null;
+
+        for (Sample sample : samples) {
+            String name = sample.key().name();
+            double value;
+            try {
+                value = sample.metric().value();
+            } catch (RuntimeException e) {
+                // A gauge whose source is gone or failing is left out of the scrape rather than failing it.
+                continue;
+            }
+
+            if (!name.equals(family)) {
+                family = name;
+                out.append("# HELP ").append(name).append(' ').append(escapeHelp(sample.help())).append('\n');
+                out.append("# TYPE ").append(name).append(' ').append(type(sample)).append('\n');
+            }
+
+            if (sample.metric() instanceof Histogram histogram) {
+                appendHistogram(out, name, sample.key().labels(), histogram);
+            } else {
+                appendLine(out, name, sample.key().labels(), value);
+            }
+        }
+
+        return out.toString();
+    }
+
+    private static String type(Sample sample) {
+        return switch (sample.metric()) {
+            case Counter ignored -> "counter";
+            case Gauge ignored -> "gauge";
+            case Histogram ignored -> "histogram";
+        };
+    }
+
+    private static void appendHistogram(
+            StringBuilder out,
+            String name,
+            SortedMap<String, String> labels,
+            Histogram histogram
+    ) {
+        double[] bounds = histogram.bounds();
+        long[] counts = histogram.cumulativeCounts();
+
+        for (int i = 0; i < counts.length; i++) {
+            SortedMap<String, String> bucketLabels = new TreeMap<>(labels);
+            bucketLabels.put("le", i < bounds.length ? number(bounds[i]) : "+Inf");
+            appendLine(out, name + "_bucket", bucketLabels, counts[i]);
+        }
+        appendLine(out, name + "_sum", labels, histogram.sum());
+        appendLine(out, name + "_count", labels, counts[counts.length - 1]);
+    }
+
+    private static void appendLine(StringBuilder out, String name, Map<String, String> labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                out.append(label.getKey()).append("=\"").append(escapeLabelValue(label.getValue())).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ').append(number(value)).append('\n');
+    }
+
+    static String number(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
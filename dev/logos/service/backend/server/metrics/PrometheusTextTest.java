@@ -0,0 +1,61 @@
+package dev.logos.service.backend.server.metrics;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusTextTest {
+    @Test
+    public void format_groupsSamplesUnderOneHeader() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("calls_total", "Calls", Map.of("method", "a")).add(3);
+        registry.counter("calls_total", "Calls", Map.of("method", "b")).increment();
+
+        String text = PrometheusText.format(registry.samples());
+
+        assertEquals(1, text.split("# TYPE calls_total counter", -1).length - 1);
+        assertTrue(text.contains("calls_total{method=\"a\"} 3\n"));
+        assertTrue(text.contains("calls_total{method=\"b\"} 1\n"));
+    }
+
+    @Test
+    public void format_writesCumulativeHistogramBuckets() {
+        MetricRegistry registry = new MetricRegistry();
+        MetricRegistry.Histogram histogram = registry.histogram("latency_seconds", "Latency", Map.of(), 0.1, 1);
+        histogram.observe(0.05);
+        histogram.observe(0.1);
+        histogram.observe(0.5);
+        histogram.observe(2);
+
+        String text = PrometheusText.format(registry.samples());
+
+        assertTrue(text.contains("# TYPE latency_seconds histogram\n"));
+        assertTrue(text.contains("latency_seconds_bucket{le=\"0.1\"} 2\n"));
+        assertTrue(text.contains("latency_seconds_bucket{le=\"1\"} 3\n"));
+        assertTrue(text.contains("latency_seconds_bucket{le=\"+Inf\"} 4\n"));
+        assertTrue(text.contains("latency_seconds_sum 2.65\n"));
+        assertTrue(text.contains("latency_seconds_count 4\n"));
+    }
+
+    @Test
+    public void format_escapesLabelValues() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.gauge("info", "Info", Map.of("value", "a\"b\\c"), () -> 1);
+
+        assertTrue(PrometheusText.format(registry.samples()).contains("info{value=\"a\\\"b\\\\c\"} 1\n"));
+    }
+
+    @Test
+    public void format_skipsFailingGauges() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.gauge("broken", "Broken", Map.of(), () -> {
+            throw new IllegalStateException("gone");
+        });
+
+        assertFalse(PrometheusText.format(registry.samples()).contains("broken"));
+    }
+}
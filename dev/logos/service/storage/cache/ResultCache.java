@@ -0,0 +1,124 @@
+package dev.logos.service.storage.cache;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import dev.logos.auth.machine.MachineContext;
+import dev.logos.auth.principal.Principal;
+import dev.logos.auth.user.UserContext;
+import dev.logos.service.storage.notify.NotificationListener;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded read-through cache of the responses returned by a STABLE or IMMUTABLE exported function.
+ * <p>
+ * Entries are keyed by the serialized request and the calling principal, so results are never shared between
+ * callers, and are weighed by their serialized size. Concurrent misses for the same key share one database call.
+ * Subscribed to a {@link NotificationListener} channel, the cache is emptied on every notification on it. Each
+ * invalidation starts a new generation, and a response loaded in an earlier one is served to the call that loaded it
+ * but not kept, since its rows may predate the change that was notified.
+ */
+public class ResultCache<Resp extends Message> implements NotificationListener.Subscriber {
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    record Key(String principal, ByteString request) {
+    }
+
+    record Loaded<Resp>(long generation, List<Resp> responses) {
+    }
+
+    private final Cache<Key, Loaded<Resp>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResultCache(Duration ttl, long maxBytes) {
+        this(ttl, maxBytes, Ticker.systemTicker());
+    }
+
+    ResultCache(Duration ttl, long maxBytes, Ticker ticker) {
+        this.cache = CacheBuilder.newBuilder()
+                                 .ticker(ticker)
+                                 .expireAfterWrite(ttl)
+                                 .maximumWeight(maxBytes)
+                                 .<Key, Loaded<Resp>>weigher((key, loaded) -> weigh(key, loaded.responses()))
+                                 .build();
+    }
+
+    private static int weigh(Key key, List<? extends Message> responses) {
+        long weight = key.principal().length() + key.request().size();
+        for (Message response : responses) {
+            weight += response.getSerializedSize();
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    static String currentPrincipal() {
+        return UserContext.getCurrentUser()
+                          .map(user -> "user:" + principalId(user))
+                          .or(() -> MachineContext.getCallingMachine().map(machine -> "machine:" + principalId(machine)))
+                          .orElse("");
+    }
+
+    private static String principalId(Principal principal) {
+        return principal.isAuthenticated() ? String.valueOf(principal.getId()) : "";
+    }
+
+    /**
+     * Sends the responses for {@code request} to {@code responseObserver}, calling {@code loader} only if they are not
+     * already cached for the current principal.
+     */
+    public void serve(Message request, StreamObserver<Resp> responseObserver, Callable<List<Resp>> loader, String sql) {
+        Key key = new Key(currentPrincipal(), request.toByteString());
+        long started = generation.get();
+        Loaded<Resp> loaded;
+        try {
+            // An entry loaded before this call started may predate a notification this call must see, so load again.
+            do {
+                loaded = cache.get(key, () -> new Loaded<>(generation.get(), loader.call()));
+                if (loaded.generation() != generation.get()) {
+                    cache.asMap().remove(key, loaded);
+                }
+            } while (loaded.generation() < started);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            logger.atError().setCause(e.getCause()).addKeyValue("query", sql).log("Failed to execute query");
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to execute query")
+                                                    .withCause(e.getCause())
+                                                    .asRuntimeException());
+            return;
+        }
+
+        loaded.responses().forEach(responseObserver::onNext);
+        responseObserver.onCompleted();
+    }
+
+    public void invalidateAll() {
+        // Advanced first, so a load already running when the cache is cleared is not kept afterwards.
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onNotification(String channel, String payload) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onResubscribed(String channel) {
+        invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,101 @@
+package dev.logos.service.storage.cache;
+
+import com.google.common.base.Ticker;
+import com.google.protobuf.StringValue;
+import io.grpc.stub.StreamObserver;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultCacheTest {
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private final ResultCache<StringValue> cache = new ResultCache<>(Duration.ofSeconds(60), 1 << 20, ticker);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<StringValue> serve(String request) {
+        return serve(request, () -> List.of(StringValue.of(request + ":" + loads.incrementAndGet())));
+    }
+
+    private List<StringValue> serve(String request, Callable<List<StringValue>> loader) {
+        List<StringValue> responses = new ArrayList<>();
+        cache.serve(StringValue.of(request), new StreamObserver<>() {
+            @Override
+            public void onNext(StringValue value) {
+                responses.add(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        }, loader, "select 1");
+        return responses;
+    }
+
+    @Test
+    public void serve_repeatedRequest_isServedFromCache() {
+        assertEquals(List.of(StringValue.of("a:1")), serve("a"));
+        assertEquals(List.of(StringValue.of("a:1")), serve("a"));
+        assertEquals(List.of(StringValue.of("b:2")), serve("b"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void serve_afterTtl_reloads() {
+        serve("a");
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals(List.of(StringValue.of("a:1")), serve("a"));
+
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(List.of(StringValue.of("a:2")), serve("a"));
+    }
+
+    @Test
+    public void notification_invalidatesEveryEntry() {
+        serve("a");
+        serve("b");
+
+        cache.onNotification("country_changed", "");
+
+        assertEquals(0, cache.size());
+        assertEquals(List.of(StringValue.of("a:3")), serve("a"));
+    }
+
+    @Test
+    public void resubscribe_invalidatesEveryEntry() {
+        serve("a");
+
+        cache.onResubscribed("country_changed");
+
+        assertEquals(List.of(StringValue.of("a:2")), serve("a"));
+    }
+
+    @Test
+    public void notificationDuringLoad_servesButDoesNotCacheTheLoad() {
+        List<StringValue> responses = serve("a", () -> {
+            cache.onNotification("country_changed", "");
+            return List.of(StringValue.of("a:" + loads.incrementAndGet()));
+        });
+
+        assertEquals(List.of(StringValue.of("a:1")), responses);
+        assertEquals(0, cache.size());
+        assertEquals(List.of(StringValue.of("a:2")), serve("a"));
+    }
+}
@@ -2,11 +2,19 @@ package dev.logos.service.storage.module;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.BindingAnnotation;
+import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.multibindings.ProvidesIntoOptional;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import dev.logos.app.register.registerModule;
+import dev.logos.service.backend.server.ExecutorMode;
+import dev.logos.service.backend.server.ServerModule.DatabaseConnections;
+import dev.logos.service.backend.server.ServerModule.ThreadPoolSize;
+import dev.logos.service.backend.server.ShutdownRegistry;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.postgres.PostgresPlugin;
 import org.postgresql.ds.PGSimpleDataSource;
@@ -15,10 +23,6 @@ import org.xbill.DNS.Lookup;
 import org.xbill.DNS.TextParseException;
 import org.xbill.DNS.Type;
 import dev.logos.stack.aws.AwsEnvironment;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
-import software.amazon.awssdk.services.rds.RdsUtilities;
-import software.amazon.awssdk.services.rds.model.GenerateAuthenticationTokenRequest;
 
 import javax.sql.DataSource;
 import java.lang.annotation.Retention;
@@ -38,21 +42,93 @@ public class DatabaseModule extends AbstractModule {
     public @interface DatabaseJdbcUrl {
     }
 
+    @BindingAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface ReaderDatabaseEndpoint {
+    }
+
+    @BindingAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface DatabasePoolSize {
+    }
+
+    @BindingAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface ReaderDatabase {
+    }
+
+    /**
+     * Calls expected to need a connection at once, used by {@link PoolSizing} to cap the derived pool size. When unbound
+     * and the server runs {@link ExecutorMode#FIXED}, its {@link ThreadPoolSize} is used, since every generated handler
+     * holds one connection for its whole call. In {@link ExecutorMode#VIRTUAL} mode the server admits calls by the pool
+     * size instead, so the pool is not capped.
+     */
+    @BindingAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface ExpectedConcurrency {
+    }
+
     private static final String CLUSTER_RW_CNAME = "db-rw-service";
+    private static final String CLUSTER_RO_CNAME = "db-ro-service";
     private static final int CLUSTER_RW_PORT = 5432;
     static String DB_URL = Optional.ofNullable(System.getenv("STORAGE_PG_BACKEND_JDBC_URL"))
             .orElse("jdbc:postgresql://localhost:15432/logos");
+    static Optional<String> DB_READER_URL = Optional.ofNullable(System.getenv("STORAGE_PG_BACKEND_READER_JDBC_URL"))
+            .filter(url -> !url.isBlank());
     static String DB_USER = Optional.ofNullable(System.getenv("STORAGE_PG_BACKEND_USER"))
             .orElse("storage");
     static String DB_PASSWORD = System.getenv("STORAGE_PG_BACKEND_PASSWORD");
 
+    @Override
+    protected void configure() {
+        bind(ExportedStatements.class).in(Singleton.class);
+        OptionalBinder.newOptionalBinder(binder(), PreparedStatementOptions.class)
+                      .setDefault().toInstance(PreparedStatementOptions.DEFAULT);
+        OptionalBinder.newOptionalBinder(binder(), PoolOptions.class)
+                      .setDefault().toInstance(PoolOptions.DEFAULT);
+        // Declared without a value so this module does not require ServerModule, whose defaults apply when installed.
+        OptionalBinder.newOptionalBinder(binder(), ExecutorMode.class);
+        OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, ThreadPoolSize.class));
+        OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, ExpectedConcurrency.class));
+        OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, DatabaseConnections.class))
+                      .setDefault().to(Key.get(Integer.class, DatabasePoolSize.class));
+    }
+
+    @ProvidesIntoOptional(ProvidesIntoOptional.Type.DEFAULT)
+    @DatabasePoolSize
+    Integer provideDatabasePoolSize(
+            PoolOptions poolOptions,
+            @ExpectedConcurrency Optional<Integer> expectedConcurrency,
+            Optional<ExecutorMode> executorMode,
+            @ThreadPoolSize Optional<Integer> threadPoolSize
+    ) {
+        return Optional.ofNullable(poolOptions.poolSize())
+                       .orElseGet(() -> PoolSizing.poolSize(expectedConcurrency.or(
+                               () -> executorMode.filter(ExecutorMode.FIXED::equals).flatMap(mode -> threadPoolSize))));
+    }
+
+    @Provides
+    @Singleton
+    RdsAuthTokenProvider provideRdsAuthTokenProvider(MetricRegistry metricRegistry, ShutdownRegistry shutdownRegistry) {
+        return shutdownRegistry.register(new RdsAuthTokenProvider(metricRegistry));
+    }
+
+    private static Optional<String> resolveCname(String cname) throws TextParseException {
+        return Optional.ofNullable(new Lookup(cname, Type.CNAME).run())
+                .filter(r -> r.length > 0)
+                .map(record -> ((CNAMERecord) record[0]).getTarget().toString(true));
+    }
+
     @Provides
     @DatabaseEndpoint
     String provideDatabaseEndpoint() throws TextParseException {
-        return Optional.ofNullable(new Lookup(CLUSTER_RW_CNAME, Type.CNAME).run())
-                .filter(r -> r.length > 0)
-                .map(record -> ((CNAMERecord) record[0]).getTarget().toString(true))
-                .orElse(CLUSTER_RW_CNAME);
+        return resolveCname(CLUSTER_RW_CNAME).orElse(CLUSTER_RW_CNAME);
+    }
+
+    @Provides
+    @ReaderDatabaseEndpoint
+    Optional<String> provideReaderDatabaseEndpoint() throws TextParseException {
+        return resolveCname(CLUSTER_RO_CNAME);
     }
 
     @Provides
@@ -67,10 +143,72 @@ public class DatabaseModule extends AbstractModule {
         return dataSource.getUrl();
     }
 
+    /**
+     * A reader pool is built when the {@code db-ro-service} CNAME resolves or {@code STORAGE_PG_BACKEND_READER_JDBC_URL}
+     * is set. Otherwise reads share the writer's pool.
+     */
+    @Provides
+    @Singleton
+    @ReaderDatabase
+    Optional<DataSource> provideReaderDataSource(
+            @ReaderDatabaseEndpoint Optional<String> readerEndpoint,
+            @DatabasePoolSize Integer poolSize,
+            PoolOptions poolOptions,
+            PreparedStatementOptions preparedStatementOptions,
+            ExportedStatements exportedStatements,
+            RdsAuthTokenProvider rdsAuthTokenProvider,
+            MetricRegistry metricRegistry
+    ) {
+        Optional<String> jdbcUrl = DB_READER_URL.or(() -> readerEndpoint.map(endpoint -> {
+            PGSimpleDataSource dataSource = new PGSimpleDataSource();
+            dataSource.setUrl(DB_URL);
+            dataSource.setServerNames(new String[]{endpoint});
+            return dataSource.getUrl();
+        }));
+
+        return jdbcUrl.map(url -> {
+            HikariConfig config = hikariConfig(url, poolSize, poolOptions, preparedStatementOptions, exportedStatements,
+                    metricRegistry);
+            config.setPoolName("reader");
+            config.setReadOnly(true);
+            return hikariDataSource(config, host(url), rdsAuthTokenProvider);
+        });
+    }
+
     @Provides
     @Singleton
-    DataSource provideHikariDataSource(HikariConfig config, @DatabaseEndpoint String endpoint) {
-        return new HikariDataSource(config) {
+    DataSource provideHikariDataSource(
+            HikariConfig config,
+            @DatabaseEndpoint String endpoint,
+            RdsAuthTokenProvider rdsAuthTokenProvider
+    ) {
+        return hikariDataSource(config,
+                                Optional.ofNullable(System.getenv("STORAGE_PG_BACKEND_HOST")).orElse(endpoint),
+                                rdsAuthTokenProvider);
+    }
+
+    /**
+     * The host a JDBC URL connects to, which IAM authentication tokens must be signed for.
+     */
+    static String host(String jdbcUrl) {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(jdbcUrl);
+        return dataSource.getServerNames()[0];
+    }
+
+    /**
+     * The pool is started by the first {@link DataSource#getConnection()} rather than here. Generated services register
+     * their statements with {@link ExportedStatements} after this data source is injected into them, and connections
+     * opened before then would have their statement caches sized without those statements.
+     * <p>
+     * IAM authentication tokens are signed for {@code host}, which must be the host this pool connects to.
+     */
+    static HikariDataSource hikariDataSource(
+            HikariConfig config,
+            String host,
+            RdsAuthTokenProvider rdsAuthTokenProvider
+    ) {
+        HikariDataSource dataSource = new HikariDataSource() {
             @Override
             public String getPassword() {
                 if (DB_PASSWORD != null && !DB_PASSWORD.isBlank()) {
@@ -81,36 +219,65 @@ public class DatabaseModule extends AbstractModule {
                     throw new IllegalStateException("STORAGE_PG_BACKEND_PASSWORD must be set when AWS infrastructure is disabled");
                 }
 
-                return RdsUtilities.builder()
-                        .region(new DefaultAwsRegionProviderChain().getRegion())
-                        .build()
-                        .generateAuthenticationToken(
-                                GenerateAuthenticationTokenRequest
-                                        .builder()
-                                        .credentialsProvider(DefaultCredentialsProvider.create())
-                                        .hostname(
-                                                Optional.ofNullable(System.getenv("STORAGE_PG_BACKEND_HOST"))
-                                                        .orElse(endpoint))
-                                        .port(CLUSTER_RW_PORT)
-                                        .username(getUsername())
-                                        .build());
+                return rdsAuthTokenProvider.token(host, CLUSTER_RW_PORT, getUsername());
             }
         };
+        config.copyStateTo(dataSource);
+        return dataSource;
     }
 
     @Provides
     @Singleton
-    HikariConfig provideHikariConfig(@DatabaseJdbcUrl String jdbcUrl) {
+    HikariConfig provideHikariConfig(
+            @DatabaseJdbcUrl String jdbcUrl,
+            @DatabasePoolSize Integer poolSize,
+            PoolOptions poolOptions,
+            PreparedStatementOptions preparedStatementOptions,
+            ExportedStatements exportedStatements,
+            MetricRegistry metricRegistry
+    ) {
+        HikariConfig config = hikariConfig(jdbcUrl, poolSize, poolOptions, preparedStatementOptions, exportedStatements,
+                metricRegistry);
+        config.setPoolName("writer");
+        return config;
+    }
+
+    private static HikariConfig hikariConfig(
+            String jdbcUrl,
+            int poolSize,
+            PoolOptions poolOptions,
+            PreparedStatementOptions preparedStatementOptions,
+            ExportedStatements exportedStatements,
+            MetricRegistry metricRegistry
+    ) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(jdbcUrl);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(Optional.ofNullable(poolOptions.minimumIdle())
+                                      .map(minimumIdle -> Math.min(minimumIdle, poolSize))
+                                      .orElse(poolSize));
+        config.setConnectionTimeout(poolOptions.connectionTimeout().toMillis());
+        config.setMaxLifetime(poolOptions.maxLifetime().toMillis());
+        config.setKeepaliveTime(poolOptions.keepaliveTime().toMillis());
+        config.setLeakDetectionThreshold(poolOptions.leakDetectionThreshold().toMillis());
+        if (!poolOptions.statementTimeout().isZero()) {
+            config.setConnectionInitSql("SET statement_timeout = " + poolOptions.statementTimeout().toMillis());
+        }
+        config.setDataSource(new StatementPreparingDataSource(jdbcUrl, preparedStatementOptions, exportedStatements));
         config.setUsername(DB_USER);
-        config.addDataSourceProperty("minimumIdle", 5);
-        config.addDataSourceProperty("maximumPoolSize", 25);
+        config.setMetricsTrackerFactory(new HikariMetrics(metricRegistry));
         return config;
     }
 
     @Provides
-    Jdbi provideJdbi(DataSource dataSource) {
-        return Jdbi.create(dataSource).installPlugin(new PostgresPlugin());
+    Jdbi provideJdbi(DataSource dataSource, PoolOptions poolOptions) {
+        return Jdbi.create(dataSource)
+                   .installPlugin(new PostgresPlugin())
+                   .configure(StatementTimeout.class, config -> config.setTimeout(poolOptions.statementTimeout()));
+    }
+
+    @Provides
+    @ReaderDatabase
+    Optional<Jdbi> provideReaderJdbi(@ReaderDatabase Optional<DataSource> dataSource, PoolOptions poolOptions) {
+        return dataSource.map(readerDataSource -> provideJdbi(readerDataSource, poolOptions));
     }
 }
@@ -0,0 +1,153 @@
+package dev.logos.service.storage.module;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.util.Modules;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import dev.logos.service.backend.server.ExecutorMode;
+import dev.logos.service.backend.server.ServerModule;
+import dev.logos.service.backend.server.ServerModule.MaxConcurrentCalls;
+import dev.logos.service.backend.server.ServerModule.ThreadPoolSize;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import dev.logos.service.storage.module.DatabaseModule.DatabasePoolSize;
+import dev.logos.service.storage.module.DatabaseModule.ExpectedConcurrency;
+import dev.logos.stack.aws.AwsEnvironment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Clock;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class DatabaseModuleTest {
+    private String password;
+
+    @Before
+    public void setPassword() {
+        password = DatabaseModule.DB_PASSWORD;
+        DatabaseModule.DB_PASSWORD = "secret";
+    }
+
+    @After
+    public void restorePassword() {
+        DatabaseModule.DB_PASSWORD = password;
+    }
+
+    @Test
+    public void hikariDataSource_opensNoConnectionsUntilFirstUse() throws Exception {
+        DataSource driver = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(driver.getConnection("storage", "secret")).thenReturn(connection);
+
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(driver);
+        config.setUsername("storage");
+        config.setMaximumPoolSize(1);
+
+        try (HikariDataSource dataSource = DatabaseModule.hikariDataSource(config, "db", null)) {
+            // Statements registered now are still seen by every connection the pool opens.
+            verifyNoInteractions(driver);
+
+            dataSource.getConnection().close();
+            verify(driver).getConnection("storage", "secret");
+        }
+    }
+
+    @Test
+    public void host_isTheServerTheUrlConnectsTo() {
+        assertEquals("reader.cluster-ro.example.com",
+                     DatabaseModule.host("jdbc:postgresql://reader.cluster-ro.example.com:5432/logos?ssl=true"));
+    }
+
+    @Test
+    public void hikariDataSource_signsTokensForItsOwnHost() {
+        assumeTrue(AwsEnvironment.isEnabled());
+        DatabaseModule.DB_PASSWORD = null;
+        RdsAuthTokenProvider.Signer signer = mock(RdsAuthTokenProvider.Signer.class);
+        when(signer.generateAuthenticationToken("reader-host", 5432, "storage")).thenReturn("reader-token");
+        RdsAuthTokenProvider tokens = new RdsAuthTokenProvider(signer, new MetricRegistry(), Clock.systemUTC());
+
+        HikariConfig config = new HikariConfig();
+        config.setUsername("storage");
+
+        try (HikariDataSource dataSource = DatabaseModule.hikariDataSource(config, "reader-host", tokens)) {
+            assertEquals("reader-token", dataSource.getPassword());
+        }
+    }
+
+    private static int poolSize(Module... modules) {
+        return Guice.createInjector(Modules.combine(new DatabaseModule(), Modules.combine(modules)))
+                    .getInstance(Key.get(Integer.class, DatabasePoolSize.class));
+    }
+
+    private static Module server(ExecutorMode executorMode, int threadPoolSize) {
+        return new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), ExecutorMode.class)
+                              .setDefault().toInstance(executorMode);
+                OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, ThreadPoolSize.class))
+                              .setDefault().toInstance(threadPoolSize);
+            }
+        };
+    }
+
+    @Test
+    public void poolSize_isCappedByThreadPoolSizeInFixedMode() {
+        assertEquals(3, poolSize(server(ExecutorMode.FIXED, 3)));
+    }
+
+    @Test
+    public void poolSize_isNotCappedInVirtualMode() {
+        assertEquals(PoolSizing.poolSize(Optional.empty()), poolSize(server(ExecutorMode.VIRTUAL, 3)));
+    }
+
+    @Test
+    public void poolSize_expectedConcurrencyTakesPrecedence() {
+        assertEquals(2, poolSize(server(ExecutorMode.FIXED, 3), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), Key.get(Integer.class, ExpectedConcurrency.class))
+                              .setBinding().toInstance(2);
+            }
+        }));
+    }
+
+    @Test
+    public void maxConcurrentCalls_followsPoolSize() {
+        Injector injector = Guice.createInjector(new ServerModule(), new DatabaseModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), PoolOptions.class)
+                              .setBinding().toInstance(new PoolOptions(
+                                      7,
+                                      null,
+                                      PoolOptions.DEFAULT.connectionTimeout(),
+                                      PoolOptions.DEFAULT.maxLifetime(),
+                                      PoolOptions.DEFAULT.keepaliveTime(),
+                                      PoolOptions.DEFAULT.leakDetectionThreshold(),
+                                      PoolOptions.DEFAULT.statementTimeout()));
+            }
+        });
+
+        assertEquals(7, (int) injector.getInstance(Key.get(Integer.class, MaxConcurrentCalls.class)));
+    }
+
+    @Test
+    public void poolSize_doesNotRequireServerModule() {
+        assertEquals(PoolSizing.poolSize(Optional.empty()), poolSize());
+    }
+}
@@ -0,0 +1,28 @@
+package dev.logos.service.storage.module;
+
+import com.google.inject.Singleton;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The JDBC statements issued by generated storage services. Each generated service base registers its statements when
+ * it is injected, so the connection factory can size the driver's statement cache and prepare them up front.
+ */
+@Singleton
+public class ExportedStatements {
+    private final Set<String> statements = ConcurrentHashMap.newKeySet();
+
+    public void add(String sql) {
+        statements.add(sql);
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    public List<String> list() {
+        return List.copyOf(statements);
+    }
+}
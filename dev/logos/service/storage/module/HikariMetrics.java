@@ -0,0 +1,60 @@
+package dev.logos.service.storage.module;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import dev.logos.service.backend.server.metrics.MetricRegistry.Counter;
+import dev.logos.service.backend.server.metrics.MetricRegistry.Histogram;
+
+import java.util.Map;
+
+/**
+ * Reports each Hikari pool's connection wait, usage and occupancy to the {@link MetricRegistry}, labelled by pool
+ * name.
+ */
+class HikariMetrics implements MetricsTrackerFactory {
+    private final MetricRegistry metricRegistry;
+
+    HikariMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Map<String, String> labels = Map.of("pool", poolName);
+
+        metricRegistry.gauge("logos_db_pool_connections_active",
+                "Connections lent out", labels, poolStats::getActiveConnections);
+        metricRegistry.gauge("logos_db_pool_connections_idle",
+                "Connections idle in the pool", labels, poolStats::getIdleConnections);
+        metricRegistry.gauge("logos_db_pool_connections_max",
+                "Maximum connections in the pool", labels, poolStats::getMaxConnections);
+        metricRegistry.gauge("logos_db_pool_pending_threads",
+                "Threads waiting for a connection", labels, poolStats::getPendingThreads);
+
+        Histogram acquire = metricRegistry.histogram("logos_db_pool_acquire_seconds",
+                "Time spent waiting for a connection", labels, MetricRegistry.LATENCY_SECONDS);
+        Histogram usage = metricRegistry.histogram("logos_db_pool_usage_seconds",
+                "Time a connection was held before being returned", labels, MetricRegistry.LATENCY_SECONDS);
+        Counter timeouts = metricRegistry.counter("logos_db_pool_timeouts_total",
+                "Connection requests that timed out", labels);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.observe(elapsedAcquiredNanos / 1e9);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.observe(elapsedBorrowedMillis / 1e3);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package dev.logos.service.storage.module;
+
+import java.time.Duration;
+
+/**
+ * Hikari settings for the writer and reader pools. Override the default binding with
+ * {@code OptionalBinder.newOptionalBinder(binder(), PoolOptions.class).setBinding().toInstance(...)}.
+ *
+ * @param poolSize                connections per pool; when null it is derived by {@link PoolSizing}
+ * @param minimumIdle             idle connections kept open; when null the pool is kept at full size
+ * @param connectionTimeout       time a caller waits for a connection before failing
+ * @param maxLifetime             connections are retired after this long
+ * @param keepaliveTime           idle connections are pinged this often; zero disables keepalive
+ * @param leakDetectionThreshold  a connection held longer than this is logged as a possible leak; zero disables it
+ * @param statementTimeout        {@code statement_timeout} set on every connection; zero leaves the server default
+ */
+public record PoolOptions(
+        Integer poolSize,
+        Integer minimumIdle,
+        Duration connectionTimeout,
+        Duration maxLifetime,
+        Duration keepaliveTime,
+        Duration leakDetectionThreshold,
+        Duration statementTimeout
+) {
+    public static final PoolOptions DEFAULT = new PoolOptions(
+            null,
+            null,
+            Duration.ofSeconds(30),
+            Duration.ofMinutes(30),
+            Duration.ofMinutes(5),
+            Duration.ZERO,
+            Duration.ZERO);
+
+    public PoolOptions {
+        if (poolSize != null && poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive, got " + poolSize);
+        }
+        if (minimumIdle != null && (minimumIdle < 0 || (poolSize != null && minimumIdle > poolSize))) {
+            throw new IllegalArgumentException("minimumIdle must be between 0 and poolSize, got " + minimumIdle);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dev.logos.service.storage.module;
+
+import java.util.Optional;
+
+/**
+ * Derives a connection pool size when {@link PoolOptions#poolSize()} is not set.
+ * <p>
+ * Starts from the usual {@code cores * 2 + 1}, but never below the previous fixed default of
+ * {@value #DEFAULT_POOL_SIZE} so small machines keep the pool they had. The result is then capped at the number of
+ * calls that can run at once, since every generated handler holds one connection for its whole call and connections
+ * beyond that would only sit idle.
+ */
+public final class PoolSizing {
+    static final int DEFAULT_POOL_SIZE = 10;
+    static final int MIN_POOL_SIZE = 2;
+
+    private PoolSizing() {
+    }
+
+    public static int poolSize(Optional<Integer> expectedConcurrency, int availableProcessors) {
+        int size = Math.max(DEFAULT_POOL_SIZE, availableProcessors * 2 + 1);
+        if (expectedConcurrency.isPresent()) {
+            size = Math.min(size, expectedConcurrency.get());
+        }
+        return Math.max(size, MIN_POOL_SIZE);
+    }
+
+    public static int poolSize(Optional<Integer> expectedConcurrency) {
+        return poolSize(expectedConcurrency, Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,33 @@
+package dev.logos.service.storage.module;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public class PoolSizingTest {
+    @Test
+    public void poolSize_followsCoreCountWithoutExpectedConcurrency() {
+        assertEquals(17, PoolSizing.poolSize(Optional.empty(), 8));
+    }
+
+    @Test
+    public void poolSize_keepsPreviousDefaultOnSmallMachines() {
+        assertEquals(PoolSizing.DEFAULT_POOL_SIZE, PoolSizing.poolSize(Optional.empty(), 1));
+        assertEquals(PoolSizing.DEFAULT_POOL_SIZE, PoolSizing.poolSize(Optional.empty(), 4));
+        assertEquals(PoolSizing.DEFAULT_POOL_SIZE, PoolSizing.poolSize(Optional.of(32), 4));
+    }
+
+    @Test
+    public void poolSize_isCappedByExpectedConcurrency() {
+        assertEquals(17, PoolSizing.poolSize(Optional.of(32), 8));
+        assertEquals(12, PoolSizing.poolSize(Optional.of(12), 8));
+        assertEquals(6, PoolSizing.poolSize(Optional.of(6), 4));
+    }
+
+    @Test
+    public void poolSize_neverDropsBelowMinimum() {
+        assertEquals(PoolSizing.MIN_POOL_SIZE, PoolSizing.poolSize(Optional.of(1), 4));
+    }
+}
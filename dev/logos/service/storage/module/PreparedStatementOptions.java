@@ -0,0 +1,33 @@
+package dev.logos.service.storage.module;
+
+/**
+ * pgjdbc statement preparation settings applied to every pooled connection. Override the default binding with
+ * {@code OptionalBinder.newOptionalBinder(binder(), PreparedStatementOptions.class).setBinding().toInstance(...)}.
+ *
+ * @param prepareThreshold     executions of a statement before pgjdbc switches it to a named server-side statement;
+ *                             0 disables server-side preparation
+ * @param cacheQueries         statements cached per connection in addition to one slot per exported statement
+ * @param cacheSizeMiB         upper bound on the per-connection statement cache size
+ * @param prepareOnConnect     describe every exported statement when a connection is opened
+ */
+public record PreparedStatementOptions(
+        int prepareThreshold,
+        int cacheQueries,
+        int cacheSizeMiB,
+        boolean prepareOnConnect
+) {
+    public static final PreparedStatementOptions DEFAULT = new PreparedStatementOptions(5, 256, 5, false);
+
+    public PreparedStatementOptions {
+        if (prepareThreshold < 0) {
+            throw new IllegalArgumentException("prepareThreshold must not be negative");
+        }
+        if (cacheQueries < 0 || cacheSizeMiB < 0) {
+            throw new IllegalArgumentException("Statement cache sizes must not be negative");
+        }
+    }
+
+    public int cacheQueriesFor(int exportedStatements) {
+        return cacheQueries + exportedStatements;
+    }
+}
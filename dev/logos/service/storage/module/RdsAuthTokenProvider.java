@@ -0,0 +1,201 @@
+package dev.logos.service.storage.module;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import dev.logos.service.backend.server.metrics.MetricRegistry.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
+import software.amazon.awssdk.services.rds.RdsUtilities;
+import software.amazon.awssdk.services.rds.model.GenerateAuthenticationTokenRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IAM authentication tokens for the database pools, generated once and reused by every new connection.
+ * <p>
+ * An RDS token is valid for 15 minutes. Each token is regenerated in the background once it is
+ * {@link #REFRESH_AFTER} old, so a connection storm after a failover only reads the cached token instead of resolving
+ * credentials and signing a request per connection. If a background refresh fails, the cached token keeps being served
+ * until {@link #MAX_AGE}, after which it is regenerated inline.
+ * <p>
+ * Provided by {@link DatabaseModule}, which registers it to be closed once the servers have drained, stopping the
+ * background refresh and releasing the signer's credentials provider.
+ */
+public class RdsAuthTokenProvider implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RdsAuthTokenProvider.class);
+
+    static final Duration REFRESH_AFTER = Duration.ofMinutes(10);
+    static final Duration MAX_AGE = Duration.ofMinutes(14);
+    private static final Duration REFRESH_CHECK_INTERVAL = Duration.ofSeconds(30);
+
+    @FunctionalInterface
+    public interface Signer {
+        String generateAuthenticationToken(String hostname, int port, String username);
+
+        /**
+         * Releases what signing holds on to, such as a credentials provider refreshing in the background.
+         */
+        default void close() {
+        }
+    }
+
+    record Endpoint(String hostname, int port, String username) {
+    }
+
+    private record Token(String value, Instant generatedAt) {
+    }
+
+    private final Signer signer;
+    private final MetricRegistry metricRegistry;
+    private final Clock clock;
+    private final Map<Endpoint, Token> tokens = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private boolean closed = false;
+
+    public RdsAuthTokenProvider(MetricRegistry metricRegistry) {
+        this(new RdsSigner(), metricRegistry, Clock.systemUTC());
+    }
+
+    RdsAuthTokenProvider(Signer signer, MetricRegistry metricRegistry, Clock clock) {
+        this.signer = signer;
+        this.metricRegistry = metricRegistry;
+        this.clock = clock;
+    }
+
+    public String token(String hostname, int port, String username) {
+        Endpoint endpoint = new Endpoint(hostname, port, username);
+        Token token = tokens.get(endpoint);
+        if (token != null && age(token).compareTo(MAX_AGE) < 0) {
+            return token.value();
+        }
+
+        synchronized (this) {
+            token = tokens.get(endpoint);
+            if (token == null) {
+                token = generate(endpoint);
+                metricRegistry.gauge("logos_rds_auth_token_age_seconds",
+                                     "Age of the cached RDS IAM authentication token",
+                                     Map.of("host", hostname),
+                                     () -> age(tokens.get(endpoint)).toSeconds());
+            } else if (age(token).compareTo(MAX_AGE) >= 0) {
+                token = generate(endpoint);
+            }
+            startRefreshing();
+            return token.value();
+        }
+    }
+
+    /**
+     * Regenerates every token that is at least {@link #REFRESH_AFTER} old. Run by the background thread.
+     */
+    void refreshAhead() {
+        tokens.forEach((endpoint, token) -> {
+            if (age(token).compareTo(REFRESH_AFTER) < 0) {
+                return;
+            }
+            try {
+                generate(endpoint);
+            } catch (RuntimeException e) {
+                refreshFailures(endpoint).increment();
+                logger.atWarn()
+                      .setCause(e)
+                      .addKeyValue("host", endpoint.hostname())
+                      .addKeyValue("tokenAgeSeconds", age(token).toSeconds())
+                      .log("Failed to refresh RDS authentication token");
+            }
+        });
+    }
+
+    private Token generate(Endpoint endpoint) {
+        Token token = new Token(
+                signer.generateAuthenticationToken(endpoint.hostname(), endpoint.port(), endpoint.username()),
+                clock.instant());
+        tokens.put(endpoint, token);
+        return token;
+    }
+
+    private Counter refreshFailures(Endpoint endpoint) {
+        return metricRegistry.counter("logos_rds_auth_token_refresh_failures_total",
+                                      "Background RDS IAM authentication token refreshes that failed",
+                                      Map.of("host", endpoint.hostname()));
+    }
+
+    private Duration age(Token token) {
+        return Duration.between(token.generatedAt(), clock.instant());
+    }
+
+    private void startRefreshing() {
+        if (scheduler != null || closed) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rds-auth-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshAhead,
+                                         REFRESH_CHECK_INTERVAL.toMillis(),
+                                         REFRESH_CHECK_INTERVAL.toMillis(),
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    synchronized boolean isRefreshing() {
+        return scheduler != null && !scheduler.isShutdown();
+    }
+
+    /**
+     * Stops the background refresh and closes the signer. Tokens requested afterwards are generated inline.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        signer.close();
+    }
+
+    /**
+     * Signs with one credentials provider, which refreshes its credentials asynchronously, and one region lookup for
+     * the life of the process.
+     */
+    private static class RdsSigner implements Signer {
+        private RdsUtilities rdsUtilities;
+        private DefaultCredentialsProvider credentialsProvider;
+
+        @Override
+        public synchronized String generateAuthenticationToken(String hostname, int port, String username) {
+            if (rdsUtilities == null) {
+                rdsUtilities = RdsUtilities.builder()
+                                           .region(new DefaultAwsRegionProviderChain().getRegion())
+                                           .build();
+                credentialsProvider = DefaultCredentialsProvider.builder()
+                                                                .asyncCredentialUpdateEnabled(true)
+                                                                .build();
+            }
+
+            return rdsUtilities.generateAuthenticationToken(
+                    GenerateAuthenticationTokenRequest.builder()
+                                                      .credentialsProvider(credentialsProvider)
+                                                      .hostname(hostname)
+                                                      .port(port)
+                                                      .username(username)
+                                                      .build());
+        }
+
+        @Override
+        public synchronized void close() {
+            if (credentialsProvider != null) {
+                credentialsProvider.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package dev.logos.service.storage.module;
+
+import dev.logos.service.backend.server.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RdsAuthTokenProviderTest {
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final TestClock clock = new TestClock();
+    private final AtomicInteger signed = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final RdsAuthTokenProvider provider = new RdsAuthTokenProvider(
+            (hostname, port, username) -> {
+                if (failing.get()) {
+                    throw new IllegalStateException("credentials unavailable");
+                }
+                return "%s:%d:%s:%d".formatted(hostname, port, username, signed.incrementAndGet());
+            },
+            metricRegistry,
+            clock);
+
+    @Test
+    public void token_isReusedAcrossConnections() {
+        assertEquals("db:5432:storage:1", provider.token("db", 5432, "storage"));
+        clock.advance(Duration.ofMinutes(5));
+        assertEquals("db:5432:storage:1", provider.token("db", 5432, "storage"));
+        assertEquals("reader:5432:storage:2", provider.token("reader", 5432, "storage"));
+        assertEquals(2, signed.get());
+    }
+
+    @Test
+    public void refreshAhead_regeneratesTokensBeforeExpiry() {
+        provider.token("db", 5432, "storage");
+
+        clock.advance(RdsAuthTokenProvider.REFRESH_AFTER.minusSeconds(1));
+        provider.refreshAhead();
+        assertEquals(1, signed.get());
+
+        clock.advance(Duration.ofSeconds(1));
+        provider.refreshAhead();
+        assertEquals("db:5432:storage:2", provider.token("db", 5432, "storage"));
+    }
+
+    @Test
+    public void refreshAhead_keepsServingTokenWhenSigningFails() {
+        provider.token("db", 5432, "storage");
+        clock.advance(RdsAuthTokenProvider.REFRESH_AFTER);
+
+        failing.set(true);
+        provider.refreshAhead();
+
+        assertEquals("db:5432:storage:1", provider.token("db", 5432, "storage"));
+        assertEquals(1.0, metricRegistry.counter("logos_rds_auth_token_refresh_failures_total", "", Map.of("host", "db"))
+                                        .value(), 0.0);
+    }
+
+    @Test
+    public void token_isRegeneratedInlinePastMaxAge() {
+        provider.token("db", 5432, "storage");
+        clock.advance(RdsAuthTokenProvider.MAX_AGE);
+
+        assertEquals("db:5432:storage:2", provider.token("db", 5432, "storage"));
+    }
+
+    @Test
+    public void close_stopsRefreshingAndClosesSigner() {
+        AtomicBoolean signerClosed = new AtomicBoolean();
+        RdsAuthTokenProvider provider = new RdsAuthTokenProvider(new RdsAuthTokenProvider.Signer() {
+            @Override
+            public String generateAuthenticationToken(String hostname, int port, String username) {
+                return "token";
+            }
+
+            @Override
+            public void close() {
+                signerClosed.set(true);
+            }
+        }, metricRegistry, clock);
+        provider.token("db", 5432, "storage");
+        assertTrue(provider.isRefreshing());
+
+        provider.close();
+
+        assertFalse(provider.isRefreshing());
+        assertTrue(signerClosed.get());
+        assertEquals("token", provider.token("db", 5432, "storage"));
+        assertFalse(provider.isRefreshing());
+    }
+}
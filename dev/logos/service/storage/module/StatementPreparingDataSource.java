@@ -0,0 +1,127 @@
+package dev.logos.service.storage.module;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Opens pgjdbc connections for the Hikari pool with statement caching configured for the exported functions.
+ * <p>
+ * The statement cache is sized when each connection is opened rather than when the pool is built. {@code DatabaseModule}
+ * starts its pools on first use, which is after every generated service has registered its statements on injection, so
+ * each connection is sized for all of them. With {@link PreparedStatementOptions#prepareOnConnect()} each exported
+ * statement is also described up front, which parses it into the driver's cache and loads the function's catalog
+ * entries on the backend before the first call pays for it.
+ */
+public class StatementPreparingDataSource implements DataSource {
+    private static final Logger logger = LoggerFactory.getLogger(StatementPreparingDataSource.class);
+
+    private final Driver driver = new Driver();
+    private final String jdbcUrl;
+    private final PreparedStatementOptions options;
+    private final ExportedStatements exportedStatements;
+    private int loginTimeout = 0;
+
+    public StatementPreparingDataSource(
+            String jdbcUrl,
+            PreparedStatementOptions options,
+            ExportedStatements exportedStatements
+    ) {
+        this.jdbcUrl = jdbcUrl;
+        this.options = options;
+        this.exportedStatements = exportedStatements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Properties properties = new Properties();
+        if (username != null) {
+            PGProperty.USER.set(properties, username);
+        }
+        if (password != null) {
+            PGProperty.PASSWORD.set(properties, password);
+        }
+        if (loginTimeout > 0) {
+            PGProperty.LOGIN_TIMEOUT.set(properties, loginTimeout);
+        }
+        // Size the cache and prepare from the same snapshot, in case a service registers while this connection opens.
+        List<String> statements = exportedStatements.list();
+        PGProperty.PREPARE_THRESHOLD.set(properties, options.prepareThreshold());
+        PGProperty.PREPARED_STATEMENT_CACHE_QUERIES.set(properties, options.cacheQueriesFor(statements.size()));
+        PGProperty.PREPARED_STATEMENT_CACHE_SIZE_MIB.set(properties, options.cacheSizeMiB());
+
+        Connection connection = driver.connect(jdbcUrl, properties);
+        if (connection == null) {
+            throw new SQLException("JDBC URL is not a PostgreSQL URL: " + jdbcUrl);
+        }
+
+        if (options.prepareOnConnect()) {
+            prepare(connection, statements);
+        }
+
+        return connection;
+    }
+
+    private void prepare(Connection connection, List<String> statements) {
+        for (String sql : statements) {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.getParameterMetaData();
+            } catch (SQLException e) {
+                // A statement that cannot be described will fail the same way when called; don't fail the pool.
+                logger.atWarn().setCause(e).addKeyValue("query", sql).log("Failed to prepare exported statement");
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,34 @@
+package dev.logos.service.storage.module;
+
+import org.jdbi.v3.core.config.JdbiConfig;
+
+import java.time.Duration;
+
+/**
+ * The {@code statement_timeout} every connection of a pool was opened with, from {@link PoolOptions#statementTimeout()},
+ * so per-call limits can be compared against it without asking the server. Zero when the pool leaves the server default.
+ */
+public class StatementTimeout implements JdbiConfig<StatementTimeout> {
+    private Duration timeout = Duration.ZERO;
+
+    public StatementTimeout() {
+    }
+
+    private StatementTimeout(StatementTimeout that) {
+        this.timeout = that.timeout;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public StatementTimeout setTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    @Override
+    public StatementTimeout createCopy() {
+        return new StatementTimeout(this);
+    }
+}
@@ -0,0 +1,247 @@
+package dev.logos.service.storage.notify;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.zaxxer.hikari.HikariDataSource;
+import dev.logos.service.backend.server.worker.Worker;
+import dev.logos.service.backend.server.worker.WorkerState;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds a dedicated connection that {@code LISTEN}s on the channels subscribed to and hands each notification to the
+ * channel's subscribers.
+ * <p>
+ * The connection is opened outside of the pool, with the pool's credentials, once the first channel is subscribed to.
+ * When it fails it is reopened with exponential backoff and every channel is listened on again. Notifications sent
+ * while disconnected are lost, so subscribers are told through {@link Subscriber#onResubscribed(String)} to discard
+ * whatever they derived from the channel.
+ */
+@Singleton
+public class NotificationListener implements Worker {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationListener.class);
+
+    static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+    static final Duration LIVENESS_INTERVAL = Duration.ofSeconds(30);
+    static final Duration INITIAL_BACKOFF = Duration.ofMillis(100);
+    static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    public interface Subscriber {
+        void onNotification(String channel, String payload);
+
+        /**
+         * The channel was listened on again after the connection was lost; notifications may have been missed.
+         */
+        void onResubscribed(String channel);
+    }
+
+    private final UUID id = UUID.randomUUID();
+    private final DataSource dataSource;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Queue<String> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final Set<String> listening = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = false;
+    private volatile Thread thread;
+
+    @Inject
+    public NotificationListener(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void subscribe(String channel, Subscriber subscriber) {
+        subscribers.computeIfAbsent(channel, ignored -> {
+            pendingChannels.add(channel);
+            return new CopyOnWriteArrayList<>();
+        }).add(subscriber);
+    }
+
+    @Override
+    public synchronized ListenableFuture<WorkerState> start() {
+        if (running) {
+            return Futures.immediateFuture(WorkerState.RUNNING);
+        }
+
+        running = true;
+        thread = new Thread(this::run, "notification-listener");
+        thread.setDaemon(true);
+        thread.start();
+        return Futures.immediateFuture(WorkerState.RUNNING);
+    }
+
+    @Override
+    public synchronized ListenableFuture<WorkerState> stop() {
+        running = false;
+        Thread stopping = thread;
+        thread = null;
+        if (stopping != null) {
+            stopping.interrupt();
+            try {
+                stopping.join(MAX_BACKOFF.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Futures.immediateFuture(WorkerState.STOPPING);
+            }
+        }
+        return Futures.immediateFuture(WorkerState.STOPPED);
+    }
+
+    @Override
+    public synchronized ListenableFuture<WorkerState> restart() {
+        stop();
+        return start();
+    }
+
+    @Override
+    public String getName() {
+        return "notification-listener";
+    }
+
+    @Override
+    public UUID getId() {
+        return id;
+    }
+
+    private void run() {
+        Duration backoff = INITIAL_BACKOFF;
+        // Set by any failed attempt, including one before the first connection succeeded, since subscribers may
+        // already have derived results from the channel without a LISTEN in place.
+        boolean missedNotifications = false;
+
+        while (running) {
+            if (subscribers.isEmpty()) {
+                if (!sleep(POLL_INTERVAL)) {
+                    return;
+                }
+                continue;
+            }
+
+            try (Connection connection = openConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                pendingChannels.clear();
+                listening.clear();
+                for (String channel : subscribers.keySet()) {
+                    listen(connection, channel);
+                }
+                if (missedNotifications) {
+                    listening.forEach(this::resubscribed);
+                    missedNotifications = false;
+                }
+                backoff = INITIAL_BACKOFF;
+
+                long lastCheck = System.nanoTime();
+                while (running) {
+                    String channel;
+                    while ((channel = pendingChannels.poll()) != null) {
+                        if (!listening.contains(channel)) {
+                            listen(connection, channel);
+                        }
+                    }
+
+                    PGNotification[] notifications = pgConnection.getNotifications((int) POLL_INTERVAL.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getName(), notification.getParameter());
+                        }
+                    }
+
+                    // A half-open connection would otherwise look like a quiet channel.
+                    if (System.nanoTime() - lastCheck > LIVENESS_INTERVAL.toNanos()) {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("select 1");
+                        }
+                        lastCheck = System.nanoTime();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Opening the connection can fail with unchecked exceptions too, e.g. when an IAM token is generated.
+                if (!running) {
+                    return;
+                }
+                missedNotifications = true;
+                logger.atWarn()
+                      .setCause(e)
+                      .addKeyValue("channels", subscribers.keySet())
+                      .addKeyValue("backoff", backoff)
+                      .log("Notification connection failed, reconnecting");
+                if (!sleep(backoff)) {
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        // Bypass the pool, which would otherwise lose a connection to this listener and recycle it under us.
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            HikariDataSource hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+            if (hikariDataSource.getDataSource() != null) {
+                Connection connection = hikariDataSource.getDataSource().getConnection(
+                        hikariDataSource.getUsername(),
+                        hikariDataSource.getPassword());
+                connection.setAutoCommit(true);
+                return connection;
+            }
+        }
+        return dataSource.getConnection();
+    }
+
+    private void listen(Connection connection, String channel) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + quoteIdentifier(channel));
+        }
+        listening.add(channel);
+        logger.atDebug().addKeyValue("channel", channel).log("Listening for notifications");
+    }
+
+    private void dispatch(String channel, String payload) {
+        for (Subscriber subscriber : subscribers.getOrDefault(channel, List.of())) {
+            try {
+                subscriber.onNotification(channel, payload);
+            } catch (RuntimeException e) {
+                logger.atError().setCause(e).addKeyValue("channel", channel).log("Notification subscriber failed");
+            }
+        }
+    }
+
+    private void resubscribed(String channel) {
+        for (Subscriber subscriber : subscribers.getOrDefault(channel, List.of())) {
+            try {
+                subscriber.onResubscribed(channel);
+            } catch (RuntimeException e) {
+                logger.atError().setCause(e).addKeyValue("channel", channel).log("Notification subscriber failed");
+            }
+        }
+    }
+
+    static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return running;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
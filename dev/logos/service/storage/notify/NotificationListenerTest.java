@@ -0,0 +1,131 @@
+package dev.logos.service.storage.notify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class NotificationListenerTest {
+    private static final String CHANNEL = "orders";
+
+    private DataSource dataSource;
+    private Connection connection;
+    private PGConnection pgConnection;
+    private Statement statement;
+    private NotificationListener.Subscriber subscriber;
+    private NotificationListener listener;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        pgConnection = mock(PGConnection.class);
+        statement = mock(Statement.class);
+        subscriber = mock(NotificationListener.Subscriber.class);
+
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(pgConnection.getNotifications(anyInt())).thenAnswer(invocation -> idle());
+
+        listener = new NotificationListener(dataSource);
+        listener.subscribe(CHANNEL, subscriber);
+    }
+
+    @After
+    public void tearDown() {
+        listener.stop();
+    }
+
+    private static PGNotification[] idle() throws SQLException {
+        try {
+            Thread.sleep(10);
+            return null;
+        } catch (InterruptedException e) {
+            throw new SQLException("interrupted", e);
+        }
+    }
+
+    private static PGNotification notification(String channel, String payload) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getName()).thenReturn(channel);
+        when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+
+    @Test
+    public void firstConnect_listensWithoutResubscribing() throws SQLException {
+        PGNotification[] notifications = {notification(CHANNEL, "42")};
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(pgConnection.getNotifications(anyInt()))
+                .thenReturn(notifications)
+                .thenAnswer(invocation -> idle());
+
+        listener.start();
+
+        verify(subscriber, timeout(5000)).onNotification(CHANNEL, "42");
+        verify(statement).execute("LISTEN \"orders\"");
+        verify(subscriber, never()).onResubscribed(any());
+    }
+
+    @Test
+    public void lostConnection_reconnectsAndResubscribes() throws SQLException {
+        Connection lost = mock(Connection.class);
+        PGConnection lostPgConnection = mock(PGConnection.class);
+        when(lost.unwrap(PGConnection.class)).thenReturn(lostPgConnection);
+        when(lost.createStatement()).thenReturn(statement);
+        when(lostPgConnection.getNotifications(anyInt())).thenThrow(new SQLException("connection reset"));
+        when(dataSource.getConnection()).thenReturn(lost, connection);
+
+        listener.start();
+
+        verify(subscriber, timeout(5000)).onResubscribed(CHANNEL);
+        verify(lost).close();
+        verify(dataSource, times(2)).getConnection();
+        verify(statement, times(2)).execute("LISTEN \"orders\"");
+    }
+
+    @Test
+    public void failedFirstConnect_resubscribesOnceConnected() throws SQLException {
+        // e.g. an IAM auth token that could not be generated
+        when(dataSource.getConnection())
+                .thenThrow(new IllegalStateException("no credentials"))
+                .thenReturn(connection);
+
+        listener.start();
+
+        verify(subscriber, timeout(5000)).onResubscribed(CHANNEL);
+        verify(statement).execute("LISTEN \"orders\"");
+    }
+
+    @Test
+    public void failedSubscriber_doesNotStopDispatch() throws SQLException {
+        NotificationListener.Subscriber other = mock(NotificationListener.Subscriber.class);
+        listener.subscribe(CHANNEL, other);
+        doThrow(new IllegalStateException("boom")).when(subscriber).onNotification(CHANNEL, "1");
+        PGNotification[] notifications = {notification(CHANNEL, "1"), notification(CHANNEL, "2")};
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(pgConnection.getNotifications(anyInt()))
+                .thenReturn(notifications)
+                .thenAnswer(invocation -> idle());
+
+        listener.start();
+
+        verify(other, timeout(5000)).onNotification(CHANNEL, "2");
+        verify(other).onNotification(CHANNEL, "1");
+        verify(subscriber, timeout(5000)).onNotification(CHANNEL, "2");
+    }
+
+    @Test
+    public void quoteIdentifier_escapesQuotes() {
+        assertEquals("\"a\"\"b\"", NotificationListener.quoteIdentifier("a\"b"));
+    }
+}
@@ -0,0 +1,15 @@
+package dev.logos.service.storage.notify;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.Multibinder;
+import dev.logos.app.register.registerModule;
+import dev.logos.service.backend.server.worker.Worker;
+
+@registerModule
+public class NotificationModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        Multibinder.newSetBinder(binder(), Worker.class)
+                   .addBinding().to(NotificationListener.class);
+    }
+}
@@ -12,7 +12,9 @@ import dev.logos.module.ModuleLoader;
 import dev.logos.service.storage.pg.exporter.codegen.proto.ProtoGenerator;
 import dev.logos.service.storage.pg.exporter.codegen.service.StorageServiceBaseGenerator;
 import dev.logos.service.storage.pg.exporter.descriptor.FunctionDescriptor;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionOptions;
 import dev.logos.service.storage.pg.exporter.descriptor.FunctionParameterDescriptor;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionVolatility;
 import dev.logos.service.storage.pg.exporter.module.ExportModule;
 import dev.logos.service.storage.pg.exporter.module.annotation.BuildDir;
 import dev.logos.service.storage.pg.exporter.module.annotation.BuildPackage;
@@ -73,10 +75,19 @@ public class Exporter {
      *         "author.message_create(integer, integer)",
      *     ]
      * }
+     *
+     * Per-function generation options are keyed by the same signatures, e.g.
+     * {
+     *     "author.message_list(integer, integer)": {"flowControl": true, "fetchSize": 500},
+     *     "author.message_create(integer, integer)": {"batchSize": 1000},
+     *     "author.message_search(text)": {"readOnly": true},
+     *     "author.country_list()": {"cache": {"ttlSeconds": 300, "maxBytes": 1048576, "channel": "country_changed"}}
+     * }
      */
     public static Map<String, List<FunctionDescriptor>> lookupFunctions(
             Connection connection,
-            Map<String, List<String>> selectedFunctions
+            Map<String, List<String>> selectedFunctions,
+            Map<String, FunctionOptions> functionOptions
     ) throws SQLException {
 
         Map<Integer, String> typeCache = new HashMap<>();
@@ -93,6 +104,7 @@ public class Exporter {
                   p.proargmodes,            -- modes array parallel to proallargtypes
                   p.prorettype,
                   p.proretset,
+                  p.provolatile,
                   t.typtype       as rettypekind,
                   t.oid           as rettypeoid
                 from pg_proc p
@@ -124,6 +136,7 @@ public class Exporter {
                         long rettypeOid = rs.getLong("rettypeoid");
                         boolean isSetOf = rs.getBoolean("proretset");
                         String rettypeKind = rs.getString("rettypekind");
+                        FunctionVolatility volatility = FunctionVolatility.fromProvolatile(rs.getString("provolatile"));
 
                         // new: holder for unqualified composite returnTypeName
                         String returnTypeName = null;
@@ -281,7 +294,9 @@ public class Exporter {
                                 funcName,
                                 outParams,
                                 inParams,
-                                returnTypeName
+                                returnTypeName,
+                                volatility,
+                                functionOptions.getOrDefault(signature, FunctionOptions.DEFAULT)
                         ));
                     }
                 }
@@ -300,13 +315,14 @@ public class Exporter {
         String buildDir = args[2];
         String buildPackage = args[3];
         String targetJson = args[4]; // a Map<String, List<String>> in JSON format
+        String optionsJson = args.length > 5 ? args[5] : "{}"; // a Map<String, FunctionOptions> in JSON format
 
         Injector injector = ModuleLoader.createInjector(new ExportModule(buildDir, buildPackage));
         Exporter exporter = injector.getInstance(Exporter.class);
 
         switch (exportType) {
             case JSON:
-                exporter.exportJson(targetJson);
+                exporter.exportJson(targetJson, optionsJson);
                 return;
             case PROTO:
                 exporter.generateProto(targetJson);
@@ -316,12 +332,14 @@ public class Exporter {
         }
     }
 
-    public void exportJson(String selectedFunctionsJson) throws SQLException, IOException {
+    public void exportJson(String selectedFunctionsJson, String functionOptionsJson) throws SQLException, IOException {
         // {"MessageStorageServiceBase":["author.message_list(integer, integer)","author.message_update(uuid, integer)","author.message_delete(uuid, integer)","author.message_create(integer, integer)"]}
         try (Connection connection = dataSource.getConnection()) {
             Map<String, List<FunctionDescriptor>> functionDescriptors = lookupFunctions(
                     connection,
                     new Gson().fromJson(selectedFunctionsJson, new TypeToken<Map<String, List<String>>>() {
+                    }.getType()),
+                    new Gson().fromJson(functionOptionsJson, new TypeToken<Map<String, FunctionOptions>>() {
                     }.getType()));
 
             try (OutputStream outputStream = Files.newOutputStream(
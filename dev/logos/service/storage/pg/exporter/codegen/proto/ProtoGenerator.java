@@ -57,6 +57,15 @@ public class ProtoGenerator {
                                 .collect(Collectors.toList())
                 )).append("\n");
             }
+
+            // batch response, grouping the rows returned for each streamed request
+            if (fd.options().batchFlushSize().isPresent()) {
+                proto.append(protoMessage(
+                        fd.batchResponseMessageClassName(),
+                        List.of("repeated %s results".formatted(
+                                fd.protoResponseMessageName().orElse(fd.responseMessageClassName())))
+                )).append("\n");
+            }
         }
 
         // 3) service RPCs
@@ -111,6 +120,12 @@ public class ProtoGenerator {
                     .append(fd.rpcMethodName())
                     .append("(").append(fd.requestMessageClassName()).append(") ")
                     .append("returns (stream ").append(resp).append(");\n");
+            if (fd.options().batchFlushSize().isPresent()) {
+                svc.append("  rpc ")
+                        .append(fd.batchRpcMethodName())
+                        .append("(stream ").append(fd.requestMessageClassName()).append(") ")
+                        .append("returns (stream ").append(fd.batchResponseMessageClassName()).append(");\n");
+            }
         }
         svc.append("}\n");
         return svc.toString();
@@ -0,0 +1,187 @@
+package dev.logos.service.storage.pg.exporter.codegen.service;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Compares the label-based row mapping previously emitted by {@link StorageServiceBaseGenerator} with the
+ * ordinal-based mapping it emits now, over an in-memory {@link CachedRowSet}.
+ * <p>
+ * Both mappers are hand-written copies of the generated shape, writing into a plain builder so the comparison is not
+ * dominated by protobuf. Run with {@code bazel run //dev/logos/service/storage/pg/exporter/codegen/service:benchmark}.
+ */
+public class RowMappingBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    static final class Row {
+        long id;
+        int version;
+        String name;
+        double score;
+        boolean active;
+
+        Row setId(long id) {
+            this.id = id;
+            return this;
+        }
+
+        Row setVersion(int version) {
+            this.version = version;
+            return this;
+        }
+
+        Row setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        Row setScore(double score) {
+            this.score = score;
+            return this;
+        }
+
+        Row setActive(boolean active) {
+            this.active = active;
+            return this;
+        }
+    }
+
+    interface Mapper {
+        Row map(ResultSet resultSet) throws SQLException;
+    }
+
+    // The shape generated before: a getObject() null check, then a typed getter, both by label.
+    static Mapper byLabel() {
+        return resultSet -> {
+            Row builder = new Row();
+            if (resultSet.getObject("id") != null) {
+                builder.setId(resultSet.getLong("id"));
+            }
+            if (resultSet.getObject("version") != null) {
+                builder.setVersion(resultSet.getInt("version"));
+            }
+            if (resultSet.getObject("name") != null) {
+                builder.setName(resultSet.getString("name"));
+            }
+            if (resultSet.getObject("score") != null) {
+                builder.setScore(resultSet.getDouble("score"));
+            }
+            if (resultSet.getObject("active") != null) {
+                builder.setActive(resultSet.getBoolean("active"));
+            }
+            return builder;
+        };
+    }
+
+    // The shape generated now: ordinals resolved once, then a primitive getter and wasNull() per column.
+    static Mapper byOrdinal(ResultSet columns) throws SQLException {
+        int column0 = columns.findColumn("id");
+        int column1 = columns.findColumn("version");
+        int column2 = columns.findColumn("name");
+        int column3 = columns.findColumn("score");
+        int column4 = columns.findColumn("active");
+        return resultSet -> {
+            Row builder = new Row();
+            var value0 = resultSet.getLong(column0);
+            if (!resultSet.wasNull()) {
+                builder.setId(value0);
+            }
+            var value1 = resultSet.getInt(column1);
+            if (!resultSet.wasNull()) {
+                builder.setVersion(value1);
+            }
+            var value2 = resultSet.getString(column2);
+            if (!resultSet.wasNull()) {
+                builder.setName(value2);
+            }
+            var value3 = resultSet.getDouble(column3);
+            if (!resultSet.wasNull()) {
+                builder.setScore(value3);
+            }
+            var value4 = resultSet.getBoolean(column4);
+            if (!resultSet.wasNull()) {
+                builder.setActive(value4);
+            }
+            return builder;
+        };
+    }
+
+    static CachedRowSet syntheticResultSet(int rows) throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(5);
+        String[] names = {"id", "version", "name", "score", "active"};
+        int[] types = {Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.DOUBLE, Types.BOOLEAN};
+        for (int i = 0; i < names.length; i++) {
+            metaData.setColumnName(i + 1, names[i]);
+            metaData.setColumnLabel(i + 1, names[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+
+        CachedRowSet resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        for (int row = 0; row < rows; row++) {
+            resultSet.moveToInsertRow();
+            resultSet.updateLong(1, row);
+            resultSet.updateInt(2, row % 7);
+            if (row % 5 == 0) {
+                resultSet.updateNull(3);
+            } else {
+                resultSet.updateString(3, "name-" + row);
+            }
+            resultSet.updateDouble(4, row * 0.5);
+            resultSet.updateBoolean(5, row % 2 == 0);
+            resultSet.insertRow();
+            resultSet.moveToCurrentRow();
+        }
+        return resultSet;
+    }
+
+    static long mapAll(CachedRowSet resultSet, Mapper mapper, Consumer<Row> sink) throws SQLException {
+        resultSet.beforeFirst();
+        long start = System.nanoTime();
+        while (resultSet.next()) {
+            sink.accept(mapper.map(resultSet));
+        }
+        return System.nanoTime() - start;
+    }
+
+    static double[] measure(String label, CachedRowSet resultSet, Mapper mapper) throws SQLException {
+        long[] checksum = {0};
+        Consumer<Row> sink = row -> checksum[0] += row.id + row.version;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            mapAll(resultSet, mapper, sink);
+        }
+
+        double[] nanosPerRow = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            nanosPerRow[i] = (double) mapAll(resultSet, mapper, sink) / ROWS;
+        }
+        Arrays.sort(nanosPerRow);
+
+        System.out.printf("%-10s median %8.1f ns/row   p90 %8.1f ns/row   (checksum %d)%n",
+                label,
+                nanosPerRow[MEASURED_ITERATIONS / 2],
+                nanosPerRow[MEASURED_ITERATIONS * 9 / 10],
+                checksum[0]);
+        return nanosPerRow;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        CachedRowSet resultSet = syntheticResultSet(ROWS);
+
+        double[] byLabel = measure("by-label", resultSet, byLabel());
+        double[] byOrdinal = measure("by-ordinal", resultSet, byOrdinal(resultSet));
+
+        System.out.printf("speedup    %.2fx%n",
+                byLabel[MEASURED_ITERATIONS / 2] / byOrdinal[MEASURED_ITERATIONS / 2]);
+    }
+}
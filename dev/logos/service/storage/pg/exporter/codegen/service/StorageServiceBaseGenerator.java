@@ -2,22 +2,38 @@ package dev.logos.service.storage.pg.exporter.codegen.service;
 
 import com.google.inject.Inject;
 import com.squareup.javapoet.*;
+import dev.logos.jfr.StorageQueryEvent;
 import dev.logos.service.Service;
+import dev.logos.service.storage.cache.ResultCache;
+import dev.logos.service.storage.module.ExportedStatements;
+import dev.logos.service.storage.notify.NotificationListener;
 import dev.logos.service.storage.pg.exporter.descriptor.FunctionDescriptor;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionOptions;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionParameterDescriptor;
 import dev.logos.service.storage.pg.exporter.mapper.PgTypeMapper;
+import dev.logos.service.storage.replica.ReplicaRouter;
+import dev.logos.service.storage.stream.BatchRequestObserver;
+import dev.logos.service.storage.stream.CallDeadline;
+import dev.logos.service.storage.stream.FlowControlledResponse;
+import dev.logos.service.storage.stream.ReadOnlyCursor;
 import dev.logos.service.storage.validator.Validator;
+import dev.logos.trace.Span;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.statement.Query;
 import org.jdbi.v3.core.statement.StatementContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static dev.logos.service.storage.pg.exporter.descriptor.ExportedIdentifier.snakeToCamelCase;
 import static javax.lang.model.element.Modifier.*;
@@ -48,49 +64,361 @@ public class StorageServiceBaseGenerator {
     }
 
     /*
-    protected void message_list(
+    public void message_list(
         MessageListRequest request,
         StreamObserver<MessageListResponse> responseObserver
        ) {
-               String sqlQuery = "...";
+               try (Handle handle = replicaRouter.openReader();
+                    CallDeadline callDeadline = CallDeadline.watch(handle);
+                    StorageQueryEvent queryEvent = StorageQueryEvent.start("message_list");
+                    Span querySpan = Span.current().child("message_list")) {
+                   ReadOnlyCursor.begin(handle); // with a fetch size
+                   try (Query query = handle.createQuery("...")) {
+                       callDeadline.limit();
+                       query.setFetchSize(...); // with a fetch size
 
+                       // bindFields(...)
+
+                       // readers, and functions with a fetch size:
+                       query.map(...).stream().peek(response -> queryEvent.row()).forEach(responseObserver::onNext);
+
+                       // writers, committed before any row is sent:
+                       List<MessageListResponse> responses = query.map(...).stream().peek(response -> queryEvent.row()).toList();
+                       callDeadline.commit();
+                       replicaRouter.recordWrite(handle);
+                       responses.forEach(responseObserver::onNext);
+
+                       queryEvent.complete();
+                       querySpan.attribute("db.rows", queryEvent.rows);
+                       responseObserver.onCompleted();
+                   } catch (Throwable e) {
+                       querySpan.status("ERROR");
+                       logger.atError().setCause(e).addKeyValue("query", "...").log("Failed to execute query");
+                       responseObserver.onError(...);
+                   } finally {
+                       ReadOnlyCursor.end(handle); // with a fetch size
+                   }
+               }
+         }
+     */
+    MethodSpec makeRpcHandler(FunctionDescriptor functionDescriptor, ClassName requestMessage, ClassName responseMessage) {
+        if (functionDescriptor.options().resultCache().isPresent()) {
+            return makeCachedRpcHandler(functionDescriptor, requestMessage, responseMessage);
+        }
+
+        if (functionDescriptor.options().flowControl()) {
+            return makeFlowControlledRpcHandler(functionDescriptor, requestMessage, responseMessage);
+        }
+
+        MethodSpec.Builder rpcHandlerBuilder =
+                MethodSpec.methodBuilder(functionDescriptor.rpcMethodName())
+                        .addModifiers(PUBLIC)
+                        .addParameter(requestMessage, "request")
+                        .addParameter(ParameterizedTypeName.get(ClassName.get(StreamObserver.class), responseMessage),
+                                "responseObserver")
+                        .beginControlFlow("try ($T handle = $L; $T callDeadline = $T.watch(handle); "
+                                        + "$T queryEvent = $T.start($S); $T querySpan = $T.current().child($S))",
+                                Handle.class, openHandle(functionDescriptor),
+                                CallDeadline.class, CallDeadline.class,
+                                StorageQueryEvent.class, StorageQueryEvent.class, functionDescriptor.name(),
+                                Span.class, Span.class, functionDescriptor.name());
+
+        Optional<Integer> fetchSize = functionDescriptor.options().cursorFetchSize();
+        fetchSize.ifPresent(ignored -> rpcHandlerBuilder.addStatement("$T.begin(handle)", ReadOnlyCursor.class));
+
+        rpcHandlerBuilder.beginControlFlow("try ($T query = handle.createQuery($S))", Query.class, functionDescriptor.toSql())
+                         .addStatement("callDeadline.limit()");
+        fetchSize.ifPresent(size -> rpcHandlerBuilder.addStatement("query.setFetchSize($L)", size));
+
+        rpcHandlerBuilder.addCode(makeParameterBindings(functionDescriptor));
+
+        if (!functionDescriptor.readOnly() && fetchSize.isEmpty()) {
+            // Committed before any row is sent, so a client never sees rows from a write that is then rolled back.
+            rpcHandlerBuilder
+                    .addStatement("$T<$T> responses = query.map($L).stream().peek(response -> queryEvent.row()).toList()",
+                            List.class, responseMessage, makeRowMapper(functionDescriptor, responseMessage, true))
+                    .addStatement("callDeadline.commit()")
+                    .addStatement("replicaRouter.recordWrite(handle)")
+                    .addStatement("responses.forEach(responseObserver::onNext)");
+        } else {
+            rpcHandlerBuilder
+                    .addStatement("query.map($L).stream().peek(response -> queryEvent.row()).forEach(responseObserver::onNext)",
+                            makeRowMapper(functionDescriptor, responseMessage, true));
+        }
+
+        rpcHandlerBuilder
+                .addStatement("queryEvent.complete()")
+                .addStatement("querySpan.attribute(\"db.rows\", queryEvent.rows)")
+                .addStatement("responseObserver.onCompleted()")
+                .endControlFlow()
+                .beginControlFlow("catch ($T e)", Throwable.class)
+                .addStatement("querySpan.status(\"ERROR\")")
+                .addStatement("logger.atError().setCause(e).addKeyValue(\"query\", $S).log(\"Failed to execute query\")",
+                        functionDescriptor.toSql())
+                .addStatement("responseObserver.onError($T.INTERNAL.withDescription(\"Failed to execute query\")"
+                        + ".withCause(e)"
+                        + ".asRuntimeException())", Status.class);
+
+        if (fetchSize.isPresent()) {
+            rpcHandlerBuilder
+                    .nextControlFlow("finally")
+                    .addStatement("$T.end(handle)", ReadOnlyCursor.class);
+        }
+
+        rpcHandlerBuilder
+                .endControlFlow()
+                .endControlFlow();
+
+        return rpcHandlerBuilder.build();
+    }
+
+    /*
+    public void message_list(
+        MessageListRequest request,
+        StreamObserver<MessageListResponse> responseObserver
+       ) {
+               Handle handle = replicaRouter.openReader();
+               CallDeadline callDeadline = CallDeadline.watch(handle);
+               StorageQueryEvent queryEvent = StorageQueryEvent.start("message_list");
+               Span querySpan = Span.current().child("message_list");
                try {
-                   Handle handle = jdbi.open();
-                   Query query = handle.createQuery(sqlQuery);
+                   callDeadline.limit();
+                   Query query = handle.createQuery("...");
 
                    // bindFields(...)
 
-                   return query.map((ResultSet rs, StatementContext ctx) -> {
-                       // mapResultFields(...)
-                   })
-                   .stream()
-                   .onClose(handle::close);
-               } catch (SQLException e) {
-                   logger.log(Level.SEVERE, "Failed to execute query %s".formatted(sqlQuery), e);
-                   responseObserver.onError(
-                           Status.INTERNAL.withDescription("Failed to execute query")
-                                         .withCause(e)
-                                         .asRuntimeException()
-                   );
+                   FlowControlledResponse.stream(responseObserver, handle, callDeadline, replicaRouter, false, queryEvent, querySpan, query.map(...), "...");
+               } catch (Throwable e) {
+                   queryEvent.close();
+                   querySpan.status("ERROR").end();
+                   callDeadline.close();
+                   ReadOnlyCursor.release(handle);
+                   responseObserver.onError(...);
                }
          }
      */
-    MethodSpec makeRpcHandler(FunctionDescriptor functionDescriptor, ClassName requestMessage, ClassName responseMessage) {
+    MethodSpec makeFlowControlledRpcHandler(
+            FunctionDescriptor functionDescriptor,
+            ClassName requestMessage,
+            ClassName responseMessage
+    ) {
         MethodSpec.Builder rpcHandlerBuilder =
                 MethodSpec.methodBuilder(functionDescriptor.rpcMethodName())
                         .addModifiers(PUBLIC)
                         .addParameter(requestMessage, "request")
                         .addParameter(ParameterizedTypeName.get(ClassName.get(StreamObserver.class), responseMessage),
                                 "responseObserver")
-                        .beginControlFlow("try ($T handle = jdbi.open())", Handle.class)
-                        .beginControlFlow("try ($T query = handle.createQuery($S))", Query.class, functionDescriptor.toSql());
+                        .addStatement("$T handle = $L", Handle.class, openHandle(functionDescriptor))
+                        .addStatement("$T callDeadline = $T.watch(handle)", CallDeadline.class, CallDeadline.class)
+                        .addStatement("$T queryEvent = $T.start($S)",
+                                StorageQueryEvent.class, StorageQueryEvent.class, functionDescriptor.name())
+                        .addStatement("$T querySpan = $T.current().child($S)",
+                                Span.class, Span.class, functionDescriptor.name())
+                        .beginControlFlow("try");
+
+        Optional<Integer> fetchSize = functionDescriptor.options().cursorFetchSize();
+        fetchSize.ifPresent(ignored -> rpcHandlerBuilder.addStatement("$T.begin(handle)", ReadOnlyCursor.class));
+
+        rpcHandlerBuilder.addStatement("callDeadline.limit()");
+        rpcHandlerBuilder.addStatement("$T query = handle.createQuery($S)", Query.class, functionDescriptor.toSql());
+        fetchSize.ifPresent(size -> rpcHandlerBuilder.addStatement("query.setFetchSize($L)", size));
+
+        rpcHandlerBuilder.addCode(makeParameterBindings(functionDescriptor));
+
+        return rpcHandlerBuilder
+                .addStatement("$T.stream(responseObserver, handle, callDeadline, replicaRouter, $L, queryEvent, querySpan, "
+                                + "query.map($L), $S)",
+                        FlowControlledResponse.class,
+                        !functionDescriptor.readOnly(),
+                        makeRowMapper(functionDescriptor, responseMessage, false),
+                        functionDescriptor.toSql())
+                .nextControlFlow("catch ($T e)", Throwable.class)
+                .addStatement("queryEvent.close()")
+                .addStatement("querySpan.status(\"ERROR\").end()")
+                .addStatement("callDeadline.close()")
+                .addStatement("$T.release(handle)", ReadOnlyCursor.class)
+                .addStatement("logger.atError().setCause(e).addKeyValue(\"query\", $S).log(\"Failed to execute query\")",
+                        functionDescriptor.toSql())
+                .addStatement("responseObserver.onError($T.INTERNAL.withDescription(\"Failed to execute query\")"
+                        + ".withCause(e)"
+                        + ".asRuntimeException())", Status.class)
+                .endControlFlow()
+                .build();
+    }
+
+    /*
+    private final ResultCache<CountryListResponse> countryListCache = new ResultCache<>(Duration.ofSeconds(300), 1048576L);
+
+    public void countryList(
+        CountryListRequest request,
+        StreamObserver<CountryListResponse> responseObserver
+       ) {
+               countryListCache.serve(request, responseObserver, () -> {
+                   Span querySpan = Span.current().child("country_list");
+                   try (Handle handle = replicaRouter.openReader();
+                        Query query = handle.createQuery("...");
+                        StorageQueryEvent queryEvent = StorageQueryEvent.start("country_list")) {
+                       // bindFields(...)
+
+                       var results = query.map(...).list();
+                       queryEvent.rows(results.size());
+                       queryEvent.complete();
+                       querySpan.attribute("db.rows", results.size());
+                       return results;
+                   } catch (Exception e) {
+                       querySpan.status("ERROR");
+                       throw e;
+                   } finally {
+                       querySpan.end();
+                   }
+               }, "...");
+         }
+
+    The loader is not watched by a CallDeadline: concurrent misses for the same key share one load, so one caller's
+    cancellation must not fail the others.
+     */
+    static String resultCacheFieldName(FunctionDescriptor functionDescriptor) {
+        return functionDescriptor.rpcMethodName() + "Cache";
+    }
+
+    FieldSpec makeResultCacheField(FunctionDescriptor functionDescriptor, ClassName responseMessage) {
+        FunctionOptions.CacheOptions cacheOptions = functionDescriptor.options().resultCache().orElseThrow();
+
+        return FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(ResultCache.class), responseMessage),
+                        resultCacheFieldName(functionDescriptor), PRIVATE, FINAL)
+                .initializer("new $T<>($T.ofSeconds($L), $LL)",
+                        ResultCache.class,
+                        Duration.class,
+                        cacheOptions.ttlSeconds(),
+                        cacheOptions.maxBytes())
+                .build();
+    }
+
+    MethodSpec makeCachedRpcHandler(
+            FunctionDescriptor functionDescriptor,
+            ClassName requestMessage,
+            ClassName responseMessage
+    ) {
+        CodeBlock loader = CodeBlock.builder()
+                .add("() -> {\n")
+                .indent()
+                .addStatement("$T querySpan = $T.current().child($S)", Span.class, Span.class, functionDescriptor.name())
+                .beginControlFlow("try ($T handle = $L; $T query = handle.createQuery($S); $T queryEvent = $T.start($S))",
+                        Handle.class, openHandle(functionDescriptor), Query.class, functionDescriptor.toSql(),
+                        StorageQueryEvent.class, StorageQueryEvent.class, functionDescriptor.name())
+                .add(makeParameterBindings(functionDescriptor))
+                .addStatement("var results = query.map($L).list()", makeRowMapper(functionDescriptor, responseMessage, false))
+                .addStatement("queryEvent.rows(results.size())")
+                .addStatement("queryEvent.complete()")
+                .addStatement("querySpan.attribute(\"db.rows\", results.size())")
+                .addStatement("return results")
+                .nextControlFlow("catch ($T e)", Exception.class)
+                .addStatement("querySpan.status(\"ERROR\")")
+                .addStatement("throw e")
+                .nextControlFlow("finally")
+                .addStatement("querySpan.end()")
+                .endControlFlow()
+                .unindent()
+                .add("}")
+                .build();
+
+        return MethodSpec.methodBuilder(functionDescriptor.rpcMethodName())
+                .addModifiers(PUBLIC)
+                .addParameter(requestMessage, "request")
+                .addParameter(ParameterizedTypeName.get(ClassName.get(StreamObserver.class), responseMessage),
+                        "responseObserver")
+                .addStatement("$N.serve(request, responseObserver, $L, $S)",
+                        resultCacheFieldName(functionDescriptor),
+                        loader,
+                        functionDescriptor.toSql())
+                .build();
+    }
 
+    /*
+    public StreamObserver<MessageCreateRequest> messageCreateBatch(
+        StreamObserver<MessageCreateBatchResponse> responseObserver
+       ) {
+               return new BatchRequestObserver<>(replicaRouter, 1000, responseObserver, (Handle handle, MessageCreateRequest request) -> {
+                   Span querySpan = Span.current().child("message_create");
+                   try (Query query = handle.createQuery("...");
+                        StorageQueryEvent queryEvent = StorageQueryEvent.start("message_create")) {
+                       // bindFields(...)
+
+                       var results = query.map(...).list();
+                       queryEvent.rows(results.size());
+                       queryEvent.complete();
+                       querySpan.attribute("db.rows", results.size());
+                       return MessageCreateBatchResponse.newBuilder().addAllResults(results).build();
+                   } catch (Exception e) {
+                       querySpan.status("ERROR");
+                       throw e;
+                   } finally {
+                       querySpan.end();
+                   }
+               }, "...");
+         }
+
+    The calls are issued one by one rather than as a PreparedBatch: exported functions are called with a select, and
+    pgjdbc discards the rows a select returns inside executeBatch(). They share one writer connection and transaction,
+    with the statement prepared server-side after the first few executions.
+     */
+    MethodSpec makeBatchRpcHandler(
+            FunctionDescriptor functionDescriptor,
+            int flushSize,
+            ClassName requestMessage,
+            ClassName responseMessage,
+            ClassName batchResponseMessage
+    ) {
+        CodeBlock call = CodeBlock.builder()
+                .add("($T handle, $T request) -> {\n", Handle.class, requestMessage)
+                .indent()
+                .addStatement("$T querySpan = $T.current().child($S)", Span.class, Span.class, functionDescriptor.name())
+                .beginControlFlow("try ($T query = handle.createQuery($S); $T queryEvent = $T.start($S))",
+                        Query.class, functionDescriptor.toSql(),
+                        StorageQueryEvent.class, StorageQueryEvent.class, functionDescriptor.name())
+                .add(makeParameterBindings(functionDescriptor))
+                .addStatement("var results = query.map($L).list()", makeRowMapper(functionDescriptor, responseMessage, false))
+                .addStatement("queryEvent.rows(results.size())")
+                .addStatement("queryEvent.complete()")
+                .addStatement("querySpan.attribute(\"db.rows\", results.size())")
+                .addStatement("return $T.newBuilder().addAllResults(results).build()", batchResponseMessage)
+                .nextControlFlow("catch ($T e)", Exception.class)
+                .addStatement("querySpan.status(\"ERROR\")")
+                .addStatement("throw e")
+                .nextControlFlow("finally")
+                .addStatement("querySpan.end()")
+                .endControlFlow()
+                .unindent()
+                .add("}")
+                .build();
+
+        return MethodSpec.methodBuilder(functionDescriptor.batchRpcMethodName())
+                .addModifiers(PUBLIC)
+                .returns(ParameterizedTypeName.get(ClassName.get(StreamObserver.class), requestMessage))
+                .addParameter(ParameterizedTypeName.get(ClassName.get(StreamObserver.class), batchResponseMessage),
+                        "responseObserver")
+                .addStatement("return new $T<>(replicaRouter, $L, responseObserver, $L, $S)",
+                        BatchRequestObserver.class,
+                        flushSize,
+                        call,
+                        functionDescriptor.toSql())
+                .build();
+    }
+
+    private CodeBlock openHandle(FunctionDescriptor functionDescriptor) {
+        return functionDescriptor.readOnly()
+                ? CodeBlock.of("replicaRouter.openReader()")
+                : CodeBlock.of("replicaRouter.openWriter()");
+    }
+
+    private CodeBlock makeParameterBindings(FunctionDescriptor functionDescriptor) {
+        CodeBlock.Builder parameterBindings = CodeBlock.builder();
         functionDescriptor.parameters().forEach(functionParameterDescriptor -> {
             String parameterName = functionParameterDescriptor.name();
             String parameterType = functionParameterDescriptor.type();
             PgTypeMapper pgTypeMapper = getPgTypeMapper(parameterType);
 
-            rpcHandlerBuilder
+            parameterBindings
                     .addStatement(
                             pgTypeMapper.protoToPg(
                                     "query",
@@ -98,65 +426,167 @@ public class StorageServiceBaseGenerator {
                                     "request",
                                     "get" + functionParameterDescriptor.protoMethodName() + (pgTypeMapper.protoFieldRepeated() ? "List" : "")));
         });
+        return parameterBindings.build();
+    }
 
-        rpcHandlerBuilder
-                .beginControlFlow("query.map(($T resultSet, $T ctx) -> ", ResultSet.class, StatementContext.class)
+    /*
+    new RowMapper<MessageListResponse>() {
+        @Override
+        public MessageListResponse map(ResultSet resultSet, StatementContext ctx) throws SQLException {
+            return specialize(resultSet, ctx).map(resultSet, ctx);
+        }
+
+        @Override
+        public RowMapper<MessageListResponse> specialize(ResultSet columns, StatementContext ctx) throws SQLException {
+            int column0 = columns.findColumn("id");
+            ...
+            return (ResultSet resultSet, StatementContext rowContext) -> {
+                MessageListResponse.Builder builder = MessageListResponse.newBuilder();
+                try {
+                    var value0 = resultSet.getLong(column0);
+                    if (!resultSet.wasNull()) {
+                        builder.setId(value0);
+                    }
+                    ...
+                    return builder.build();
+                } catch (Throwable e) {
+                    ...
+                }
+            };
+        }
+    }
+
+    Column ordinals are resolved once per result set in specialize(), which Jdbi calls before iterating, so the
+    per-row work is one positional getter and a wasNull() check per column.
+     */
+    CodeBlock makeRowMapper(
+            FunctionDescriptor functionDescriptor,
+            ClassName responseMessage,
+            boolean reportErrorsToObserver
+    ) {
+        TypeName rowMapperType = ParameterizedTypeName.get(ClassName.get(RowMapper.class), responseMessage);
+        List<FunctionParameterDescriptor> columns = functionDescriptor.returnType();
+
+        CodeBlock.Builder specialize = CodeBlock.builder();
+        for (int i = 0; i < columns.size(); i++) {
+            specialize.addStatement("int column$L = columns.findColumn($S)", i, columns.get(i).name());
+        }
+
+        specialize
+                .add("return ($T resultSet, $T rowContext) -> {\n", ResultSet.class, StatementContext.class)
+                .indent()
                 .addStatement("$T.Builder builder = $T.newBuilder()", responseMessage, responseMessage)
                 .beginControlFlow("try");
 
-        functionDescriptor.returnType().forEach(
-                functionParameterDescriptor -> {
-                    String fieldName = functionParameterDescriptor.name();
-                    String fieldType = functionParameterDescriptor.type();
-                    String protoMethodName = functionParameterDescriptor.protoMethodName();
-
-                    PgTypeMapper typeMapper = getPgTypeMapper(fieldType);
-                    String setterName = "%s%s".formatted(
-                            typeMapper.protoFieldRepeated() ? "addAll" : "set",
-                            protoMethodName
-                    );
-
-                    rpcHandlerBuilder.beginControlFlow("if (resultSet.getObject($S) != null)", fieldName)
-                            .addStatement("builder.$N($L)",
-                                    setterName
-                                    ,
-                                    typeMapper.pgToProto(
-                                            CodeBlock.of(
-                                                    "$L resultSet.$N($S)",
-                                                    typeMapper.resultSetFieldCast(),
-                                                    typeMapper.resultSetFieldGetter(),
-                                                    fieldName)))
-                            .endControlFlow();
-                }
-        );
+        for (int i = 0; i < columns.size(); i++) {
+            FunctionParameterDescriptor column = columns.get(i);
+            PgTypeMapper typeMapper = getPgTypeMapper(column.type());
+            String setterName = "%s%s".formatted(
+                    typeMapper.protoFieldRepeated() ? "addAll" : "set",
+                    column.protoMethodName()
+            );
 
-        rpcHandlerBuilder
+            specialize
+                    .addStatement("var value$L = $L resultSet.$N(column$L)",
+                            i,
+                            typeMapper.resultSetFieldCast(),
+                            typeMapper.resultSetFieldGetter(),
+                            i)
+                    .beginControlFlow("if (!resultSet.wasNull())")
+                    .addStatement("builder.$N($L)", setterName, typeMapper.pgToProto(CodeBlock.of("value$L", i)))
+                    .endControlFlow();
+        }
+
+        specialize
                 .addStatement("return builder.build()")
-                .endControlFlow()
-                .beginControlFlow("catch ($T e)", Throwable.class)
+                .nextControlFlow("catch ($T e)", Throwable.class)
                 .addStatement("logger.atError().setCause(e).addKeyValue(\"query\", $S).log(\"Failed to map result set\")",
-                        functionDescriptor.toSql())
-                .addStatement("""
-                        responseObserver.onError($T.INTERNAL.withDescription("Failed to execute query")
-                                        .withCause(e)
-                                        .asRuntimeException())
-                        """, Status.class)
+                        functionDescriptor.toSql());
+
+        if (reportErrorsToObserver) {
+            specialize.addStatement("""
+                    responseObserver.onError($T.INTERNAL.withDescription("Failed to execute query")
+                                    .withCause(e)
+                                    .asRuntimeException())
+                    """, Status.class);
+        }
+
+        specialize
                 .addStatement("throw new $T(e)", RuntimeException.class)
                 .endControlFlow()
-                .endControlFlow()
-                .addStatement(").stream().forEach(responseObserver::onNext)")
-                .addStatement("responseObserver.onCompleted()")
-                .endControlFlow()
-                .beginControlFlow("catch ($T e)", Throwable.class)
-                .addStatement("logger.atError().setCause(e).addKeyValue(\"query\", $S).log(\"Failed to execute query\")",
-                        functionDescriptor.toSql())
-                .addStatement("responseObserver.onError($T.INTERNAL.withDescription(\"Failed to execute query\")"
-                        + ".withCause(e)"
-                        + ".asRuntimeException())", Status.class)
-                .endControlFlow()
-                .endControlFlow();
+                .unindent()
+                .add("};\n");
 
-        return rpcHandlerBuilder.build();
+        TypeSpec rowMapper = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(rowMapperType)
+                .addMethod(MethodSpec.methodBuilder("map")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(responseMessage)
+                        .addParameter(ResultSet.class, "resultSet")
+                        .addParameter(StatementContext.class, "ctx")
+                        .addException(SQLException.class)
+                        .addStatement("return specialize(resultSet, ctx).map(resultSet, ctx)")
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("specialize")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(rowMapperType)
+                        .addParameter(ResultSet.class, "columns")
+                        .addParameter(StatementContext.class, "ctx")
+                        .addException(SQLException.class)
+                        .addCode(specialize.build())
+                        .build())
+                .build();
+
+        return CodeBlock.of("$L", rowMapper);
+    }
+
+    /*
+    @Inject
+    protected void registerStatements(ExportedStatements exportedStatements) {
+        exportedStatements.add("select * from ...(? ...)");
+        ...
+    }
+     */
+    private MethodSpec makeRegisterStatementsMethod(List<FunctionDescriptor> functionDescriptors) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("registerStatements")
+                .addAnnotation(Inject.class)
+                .addModifiers(PROTECTED)
+                .addParameter(ExportedStatements.class, "exportedStatements");
+
+        functionDescriptors.forEach(functionDescriptor ->
+                method.addStatement("exportedStatements.add($S)", functionDescriptor.toJdbcSql()));
+
+        return method.build();
+    }
+
+    /*
+    @Inject
+    protected void subscribeResultCaches(NotificationListener notificationListener) {
+        notificationListener.subscribe("country_changed", countryListCache);
+        ...
+    }
+     */
+    private Optional<MethodSpec> makeSubscribeResultCachesMethod(List<FunctionDescriptor> functionDescriptors) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("subscribeResultCaches")
+                .addAnnotation(Inject.class)
+                .addModifiers(PROTECTED)
+                .addParameter(NotificationListener.class, "notificationListener");
+
+        boolean subscribed = false;
+        for (FunctionDescriptor functionDescriptor : functionDescriptors) {
+            Optional<String> channel = functionDescriptor.options().resultCache()
+                                                         .flatMap(FunctionOptions.CacheOptions::invalidationChannel);
+            if (channel.isPresent()) {
+                method.addStatement("notificationListener.subscribe($S, $N)",
+                        channel.get(),
+                        resultCacheFieldName(functionDescriptor));
+                subscribed = true;
+            }
+        }
+
+        return subscribed ? Optional.of(method.build()) : Optional.empty();
     }
 
     public TypeSpec generate(String targetPackage, String serviceName, List<FunctionDescriptor> functionDescriptors) {
@@ -179,9 +609,13 @@ public class StorageServiceBaseGenerator {
                         .addField(FieldSpec.builder(Jdbi.class, "jdbi", PROTECTED)
                                 .addAnnotation(Inject.class)
                                 .build())
+                        .addField(FieldSpec.builder(ReplicaRouter.class, "replicaRouter", PROTECTED)
+                                .addAnnotation(Inject.class)
+                                .build())
                         .addField(FieldSpec.builder(Logger.class, "logger", FINAL)
                                 .initializer("$T.getLogger($TBase.class)", LoggerFactory.class, serviceClassName)
-                                .build());
+                                .build())
+                        .addMethod(makeRegisterStatementsMethod(functionDescriptors));
 
         for (FunctionDescriptor functionDescriptor : functionDescriptors) {
             String functionName = snakeToCamelCase(functionDescriptor.name());
@@ -192,11 +626,25 @@ public class StorageServiceBaseGenerator {
                             functionDescriptor.protoResponseMessageName()
                                     .orElse("%sResponse".formatted(functionName))));
 
+            if (functionDescriptor.options().resultCache().isPresent()) {
+                storageServiceBuilder.addField(makeResultCacheField(functionDescriptor, responseMessage));
+            }
+
             storageServiceBuilder.addMethod(makeRpcHandler(functionDescriptor, requestMessage, responseMessage))
                     .addMethod(makeValidateRequestMethod(requestMessage));
 
+            functionDescriptor.options().batchFlushSize().ifPresent(flushSize ->
+                    storageServiceBuilder.addMethod(makeBatchRpcHandler(
+                            functionDescriptor,
+                            flushSize,
+                            requestMessage,
+                            responseMessage,
+                            ClassName.get(targetPackage, functionDescriptor.batchResponseMessageClassName()))));
+
         }
 
+        makeSubscribeResultCachesMethod(functionDescriptors).ifPresent(storageServiceBuilder::addMethod);
+
         return storageServiceBuilder.build();
     }
 }
\ No newline at end of file
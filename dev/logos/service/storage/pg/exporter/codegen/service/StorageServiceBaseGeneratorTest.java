@@ -0,0 +1,242 @@
+package dev.logos.service.storage.pg.exporter.codegen.service;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeSpec;
+import dev.logos.service.storage.pg.exporter.codegen.type.IntegerMapper;
+import dev.logos.service.storage.pg.exporter.codegen.type.StringMapper;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionDescriptor;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionOptions;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionParameterDescriptor;
+import dev.logos.service.storage.pg.exporter.descriptor.FunctionVolatility;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.*;
+
+public class StorageServiceBaseGeneratorTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final ClassName REQUEST = ClassName.get("com.example", "RowRequest");
+    private static final ClassName RESPONSE = ClassName.get("com.example", "RowResponse");
+
+    private final StorageServiceBaseGenerator generator = new StorageServiceBaseGenerator(Map.of(
+            "pg_catalog.int4", new IntegerMapper(),
+            "pg_catalog.text", new StringMapper()));
+
+    private static FunctionDescriptor function(FunctionOptions options) {
+        return function(FunctionVolatility.STABLE, options);
+    }
+
+    private static FunctionDescriptor function(FunctionVolatility volatility, FunctionOptions options) {
+        return new FunctionDescriptor(
+                "example",
+                "row_list",
+                List.of(new FunctionParameterDescriptor("id", "pg_catalog.int4"),
+                        new FunctionParameterDescriptor("name", "pg_catalog.text")),
+                List.of(new FunctionParameterDescriptor("after", "pg_catalog.int4")),
+                null,
+                volatility,
+                options);
+    }
+
+    private String handler(FunctionOptions options) {
+        return generator.makeRpcHandler(function(options), REQUEST, RESPONSE).toString();
+    }
+
+    private static void assertInOrder(String code, String... fragments) {
+        int from = 0;
+        for (String fragment : fragments) {
+            int at = code.indexOf(fragment, from);
+            assertTrue("Expected \"%s\" after position %d in:%n%s".formatted(fragment, from, code), at >= 0);
+            from = at + fragment.length();
+        }
+    }
+
+    @Test
+    public void fetchSize_runsQueryInReadOnlyCursor() {
+        String code = handler(new FunctionOptions(false, 500, null, null, false));
+
+        assertInOrder(code,
+                "ReadOnlyCursor.begin(handle);",
+                "handle.createQuery(",
+                "query.setFetchSize(500);",
+                ".forEach(responseObserver::onNext);",
+                "finally {",
+                "ReadOnlyCursor.end(handle);");
+    }
+
+    @Test
+    public void fetchSize_withFlowControl_handsCursorToFlowControlledResponse() {
+        String code = handler(new FunctionOptions(true, 500, null, null, false));
+
+        assertInOrder(code,
+                "ReadOnlyCursor.begin(handle);",
+                "query.setFetchSize(500);",
+                "FlowControlledResponse.stream(responseObserver, handle, callDeadline",
+                "catch (java.lang.Throwable e)",
+                "ReadOnlyCursor.release(handle);");
+    }
+
+    @Test
+    public void flowControl_recordsWriteOnlyForWriters() {
+        FunctionOptions flowControl = new FunctionOptions(true, null, null, null, false);
+
+        String writer = generator.makeRpcHandler(function(FunctionVolatility.VOLATILE, flowControl), REQUEST, RESPONSE)
+                                 .toString();
+        assertTrue(writer, writer.contains("FlowControlledResponse.stream(responseObserver, handle, callDeadline, replicaRouter, true,"));
+
+        String reader = handler(flowControl);
+        assertTrue(reader, reader.contains("FlowControlledResponse.stream(responseObserver, handle, callDeadline, replicaRouter, false,"));
+    }
+
+    @Test
+    public void noFetchSize_doesNotOpenCursor() {
+        String code = handler(FunctionOptions.DEFAULT);
+
+        assertFalse(code, code.contains("ReadOnlyCursor"));
+        assertFalse(code, code.contains("setFetchSize"));
+    }
+
+    /**
+     * Stands in for a generated response message; only the builder methods the row mapper calls are needed.
+     */
+    public static final class Row {
+        public Integer id;
+        public String name;
+
+        public static Builder newBuilder() {
+            return new Builder();
+        }
+
+        public static final class Builder {
+            private final Row row = new Row();
+
+            public Builder setId(int id) {
+                row.id = id;
+                return this;
+            }
+
+            public Builder setName(String name) {
+                row.name = name;
+                return this;
+            }
+
+            public Row build() {
+                return row;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RowMapper<Row> compileRowMapper() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue("Needs a JDK to compile the generated mapper", compiler != null);
+
+        String packageName = getClass().getPackageName();
+        TypeSpec mapperClass = TypeSpec.classBuilder("GeneratedRowMapper")
+                .addModifiers(PUBLIC, FINAL)
+                .addField(FieldSpec.builder(Logger.class, "logger", PRIVATE, STATIC, FINAL)
+                        .initializer("$T.getLogger(\"GeneratedRowMapper\")", LoggerFactory.class)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("rowMapper")
+                        .addModifiers(PUBLIC, STATIC)
+                        .returns(ParameterizedTypeName.get(ClassName.get(RowMapper.class), ClassName.get(Row.class)))
+                        .addStatement("return $L",
+                                generator.makeRowMapper(function(FunctionOptions.DEFAULT), ClassName.get(Row.class), false))
+                        .build())
+                .build();
+
+        Path sources = temporaryFolder.newFolder("src").toPath();
+        File classes = temporaryFolder.newFolder("classes");
+        JavaFile.builder(packageName, mapperClass).build().writeTo(sources);
+        Path source = sources.resolve(packageName.replace('.', File.separatorChar)).resolve("GeneratedRowMapper.java");
+
+        int exitCode = compiler.run(null, null, null,
+                "-proc:none", "-classpath", System.getProperty("java.class.path"),
+                "-d", classes.getPath(), source.toString());
+        assertEquals("Generated row mapper failed to compile", 0, exitCode);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader())) {
+            return (RowMapper<Row>) classLoader.loadClass(packageName + ".GeneratedRowMapper")
+                                               .getMethod("rowMapper")
+                                               .invoke(null);
+        }
+    }
+
+    private static ResultSet twoRows() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.findColumn("id")).thenReturn(2);
+        when(resultSet.findColumn("name")).thenReturn(1);
+        when(resultSet.getInt(2)).thenReturn(7, 0);
+        when(resultSet.getString(1)).thenReturn("seven", (String) null);
+        when(resultSet.wasNull()).thenReturn(false, false, true, true);
+        return resultSet;
+    }
+
+    @Test
+    public void rowMapper_resolvesColumnsOnceAndReadsByOrdinal() throws Exception {
+        ResultSet resultSet = twoRows();
+        RowMapper<Row> specialized = compileRowMapper().specialize(resultSet, mock(StatementContext.class));
+
+        Row first = specialized.map(resultSet, mock(StatementContext.class));
+        specialized.map(resultSet, mock(StatementContext.class));
+
+        assertEquals(Integer.valueOf(7), first.id);
+        assertEquals("seven", first.name);
+        verify(resultSet, times(1)).findColumn("id");
+        verify(resultSet, times(1)).findColumn("name");
+        verify(resultSet, never()).getInt(anyString());
+        verify(resultSet, never()).getString(anyString());
+        verify(resultSet, never()).getObject(anyInt());
+    }
+
+    @Test
+    public void rowMapper_leavesSqlNullsUnset() throws Exception {
+        ResultSet resultSet = twoRows();
+        RowMapper<Row> specialized = compileRowMapper().specialize(resultSet, mock(StatementContext.class));
+
+        specialized.map(resultSet, mock(StatementContext.class));
+        Row nulls = specialized.map(resultSet, mock(StatementContext.class));
+
+        assertNull(nulls.id);
+        assertNull(nulls.name);
+    }
+
+    @Test
+    public void rowMapper_mapWithoutSpecialize_stillMapsRow() throws Exception {
+        Row row = compileRowMapper().map(twoRows(), mock(StatementContext.class));
+
+        assertEquals(Integer.valueOf(7), row.id);
+        assertEquals("seven", row.name);
+    }
+}
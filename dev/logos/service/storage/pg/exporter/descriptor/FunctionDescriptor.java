@@ -2,6 +2,7 @@ package dev.logos.service.storage.pg.exporter.descriptor;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static dev.logos.service.storage.pg.exporter.descriptor.ExportedIdentifier.quoteIdentifier;
 
@@ -19,7 +20,9 @@ public record FunctionDescriptor(
         List<FunctionParameterDescriptor> returnType,
         List<FunctionParameterDescriptor> parameters,
         /** unqualified PG type name for SETOF-composite returns, or null */
-        String returnTypeName
+        String returnTypeName,
+        FunctionVolatility volatility,
+        FunctionOptions options
 ) implements ExportedIdentifier {
 
     public FunctionDescriptor {
@@ -35,6 +38,21 @@ public record FunctionDescriptor(
         if (returnTypeName != null && returnType.isEmpty()) {
             throw new IllegalArgumentException("Composite return type declared but no return columns");
         }
+        if (volatility == null) {
+            volatility = FunctionVolatility.VOLATILE;
+        }
+        if (options == null) {
+            options = FunctionOptions.DEFAULT;
+        }
+        if (options.resultCache().isPresent() && !volatility.isCacheable()) {
+            throw new IllegalArgumentException(
+                    "Cannot cache results of %s function %s.%s".formatted(volatility, schema, name));
+        }
+        // The cursor runs in a read-only transaction that is rolled back, so a writer's changes would be lost.
+        if (options.cursorFetchSize().isPresent() && !volatility.isCacheable() && !options.readOnly()) {
+            throw new IllegalArgumentException(
+                    "Cannot set a fetch size on %s function %s.%s unless it is read-only".formatted(volatility, schema, name));
+        }
     }
 
     static String snakeCaseToCamelCase(String snakeCase) {
@@ -52,6 +70,18 @@ public record FunctionDescriptor(
     }
 
     public String toSql() {
+        return toSql(p -> ":" + p.name());
+    }
+
+    /**
+     * The statement as Jdbi hands it to the driver once named parameters are replaced by positional ones. pgjdbc caches
+     * prepared statements by this text.
+     */
+    public String toJdbcSql() {
+        return toSql(p -> "?");
+    }
+
+    private String toSql(Function<FunctionParameterDescriptor, String> placeholder) {
         StringBuilder sql = new StringBuilder();
         sql.append("select * from ")
                 .append(quoteIdentifier(schema))
@@ -61,9 +91,9 @@ public record FunctionDescriptor(
         if (!parameters.isEmpty()) {
             sql.append(String.join(", ",
                     parameters.stream()
-                            .map(p -> "%s => :%s".formatted(
+                            .map(p -> "%s => %s".formatted(
                                     quoteIdentifier(p.name()),
-                                    p.name()
+                                    placeholder.apply(p)
                             ))
                             .toList()
             ));
@@ -80,6 +110,18 @@ public record FunctionDescriptor(
         return snakeCaseToCamelCase(name);
     }
 
+    /**
+     * Whether calls can be served by a read replica. PostgreSQL rejects writes from STABLE and IMMUTABLE functions, and
+     * VOLATILE functions can be marked read-only when exported.
+     */
+    public boolean readOnly() {
+        return volatility.isCacheable() || options.readOnly();
+    }
+
+    public String batchRpcMethodName() {
+        return rpcMethodName() + "Batch";
+    }
+
     public String requestMessageInstanceName() {
         return snakeCaseToCamelCase(name) + "Request";
     }
@@ -96,6 +138,10 @@ public record FunctionDescriptor(
         return capitalize(responseMessageInstanceName());
     }
 
+    public String batchResponseMessageClassName() {
+        return capitalize(snakeCaseToCamelCase(name) + "BatchResponse");
+    }
+
     /**
      * For SETOF composite returns, yields e.g. Optional.of("CustomerSubscription").
      * Empty if this function does not share a composite return.
@@ -0,0 +1,43 @@
+package dev.logos.service.storage.pg.exporter.descriptor;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class FunctionDescriptorTest {
+    private static FunctionDescriptor function(FunctionVolatility volatility, FunctionOptions options) {
+        return new FunctionDescriptor(
+                "example",
+                "row_list",
+                List.of(new FunctionParameterDescriptor("id", "pg_catalog.int4")),
+                List.of(),
+                null,
+                volatility,
+                options);
+    }
+
+    @Test
+    public void fetchSize_onWriter_isRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> function(FunctionVolatility.VOLATILE, new FunctionOptions(false, 500, null, null, false)));
+
+        assertEquals("Cannot set a fetch size on VOLATILE function example.row_list unless it is read-only", e.getMessage());
+    }
+
+    @Test
+    public void fetchSize_onReadOnlyFunction_isAccepted() {
+        assertEquals(500, (int) function(FunctionVolatility.STABLE, new FunctionOptions(false, 500, null, null, false))
+                .options().cursorFetchSize().orElseThrow());
+        assertEquals(500, (int) function(FunctionVolatility.VOLATILE, new FunctionOptions(true, 500, null, null, true))
+                .options().cursorFetchSize().orElseThrow());
+    }
+
+    @Test
+    public void cache_onVolatileFunction_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> function(FunctionVolatility.VOLATILE,
+                new FunctionOptions(false, null, null, new FunctionOptions.CacheOptions(60, 0, null), false)));
+    }
+}
@@ -0,0 +1,78 @@
+package dev.logos.service.storage.pg.exporter.descriptor;
+
+import java.util.Optional;
+
+/**
+ * Per-function code generation options, supplied to the exporter keyed by function signature.
+ *
+ * @param flowControl stream rows only as fast as the client drains them, releasing the handle on cancellation
+ * @param fetchSize   when set, run the query in a read-only transaction so rows are fetched in chunks of this size;
+ *                    only allowed for STABLE and IMMUTABLE functions and those marked {@code readOnly}
+ * @param batchSize   when set, also export a client-streaming {@code <Fn>Batch} RPC that runs the calls on one
+ *                    connection, committing and flushing responses every {@code batchSize} requests
+ * @param cache       when set, serve repeated identical requests from an in-process result cache; only allowed for
+ *                    STABLE and IMMUTABLE functions. Cached results are read in full, so this takes precedence over
+ *                    {@code flowControl} and {@code fetchSize}
+ * @param readOnly    route calls to the reader pool even though the function is VOLATILE, e.g. because it only
+ *                    calls volatile functions like {@code now()} or {@code random()}
+ */
+public record FunctionOptions(
+        boolean flowControl,
+        Integer fetchSize,
+        Integer batchSize,
+        CacheOptions cache,
+        boolean readOnly
+) {
+    public static final FunctionOptions DEFAULT = new FunctionOptions(false, null, null, null, false);
+
+    /**
+     * @param ttlSeconds how long a result is served after it was read from the database
+     * @param maxBytes   upper bound on the serialized size of the cached requests and responses
+     * @param channel    when set, the cache is emptied whenever a notification is sent on this channel, e.g. from a
+     *                   trigger on the tables the function reads
+     */
+    public record CacheOptions(
+            long ttlSeconds,
+            long maxBytes,
+            String channel
+    ) {
+        public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+        public CacheOptions {
+            if (ttlSeconds <= 0) {
+                throw new IllegalArgumentException("Cache TTL must be positive, got " + ttlSeconds);
+            }
+            if (maxBytes < 0) {
+                throw new IllegalArgumentException("Cache size must not be negative, got " + maxBytes);
+            }
+            if (maxBytes == 0) {
+                maxBytes = DEFAULT_MAX_BYTES;
+            }
+        }
+
+        public Optional<String> invalidationChannel() {
+            return Optional.ofNullable(channel).filter(c -> !c.isBlank());
+        }
+    }
+
+    public FunctionOptions {
+        if (fetchSize != null && fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive, got " + fetchSize);
+        }
+        if (batchSize != null && batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, got " + batchSize);
+        }
+    }
+
+    public Optional<Integer> cursorFetchSize() {
+        return Optional.ofNullable(fetchSize);
+    }
+
+    public Optional<Integer> batchFlushSize() {
+        return Optional.ofNullable(batchSize);
+    }
+
+    public Optional<CacheOptions> resultCache() {
+        return Optional.ofNullable(cache);
+    }
+}
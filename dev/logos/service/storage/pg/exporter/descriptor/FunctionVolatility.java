@@ -0,0 +1,26 @@
+package dev.logos.service.storage.pg.exporter.descriptor;
+
+/**
+ * A function's volatility category, from {@code pg_proc.provolatile}.
+ */
+public enum FunctionVolatility {
+    IMMUTABLE,
+    STABLE,
+    VOLATILE;
+
+    public static FunctionVolatility fromProvolatile(String provolatile) {
+        return switch (provolatile) {
+            case "i" -> IMMUTABLE;
+            case "s" -> STABLE;
+            case "v" -> VOLATILE;
+            default -> throw new IllegalArgumentException("Unknown provolatile: " + provolatile);
+        };
+    }
+
+    /**
+     * Whether repeated calls with the same arguments may be answered without calling the function again.
+     */
+    public boolean isCacheable() {
+        return this != VOLATILE;
+    }
+}
@@ -10,13 +10,14 @@ def _schema_export_impl(ctx):
     ctx.actions.run_shell(
         # required to pass db connection params to exporter's DatabaseModule
         use_default_shell_env = True,
-        command = """{exporter} -- json {bin_dir} {output_package} '{functions}'
+        command = """{exporter} -- json {bin_dir} {output_package} '{functions}' '{options}'
 """.format(
             bin_dir = ctx.bin_dir.path,
             exporter = ctx.executable.exporter.path,
             output_package = ctx.build_file_path.replace("/BUILD", "").replace("/", "."),
             schema_export_json = schema_export_json.path,
             functions = json.encode(ctx.attr.functions),
+            options = ctx.attr.options,
         ),
         # forces a dependency on migrations
         inputs = depset(transitive = [tool_inputs] + [migration[DefaultInfo].files for migration in ctx.attr.migrations]),
@@ -38,13 +39,15 @@ schema_export_rule = rule(
         "migrations": attr.label_list(allow_files = False),
         "deps": attr.label_list(allow_files = True),
         "functions": attr.string_list_dict(mandatory = True),
+        # JSON-encoded dict of function signature to FunctionOptions
+        "options": attr.string(default = "{}"),
     },
     toolchains = [
         "@bazel_tools//tools/jdk:toolchain_type",
     ],
 )
 
-def schema_export(name, functions, visibility = None, mappers = None, migrations = None):
+def schema_export(name, functions, options = None, visibility = None, mappers = None, migrations = None):
     native.java_binary(
         name = name + "_exporter",
         main_class = "dev.logos.service.storage.pg.exporter.Exporter",
@@ -54,6 +57,7 @@ def schema_export(name, functions, visibility = None, mappers = None, migrations
     schema_export_rule(
         name = name,
         functions = functions,
+        options = json.encode(options or {}),
         tags = [
             "external",
             "no-remote",
@@ -211,11 +215,18 @@ def java_storage_service(name, schema_export, functions, deps, mappers = None, v
             "@com_google_protobuf//:protobuf_java",
             "@logos//dev/logos/app",
             "@logos//dev/logos/app/register:module_library",
+            "@logos//dev/logos/jfr",
+            "@logos//dev/logos/trace",
             "@logos//dev/logos/logger",
             "@logos//dev/logos/service",
+            "@logos//dev/logos/service/storage/cache",
             "@logos//dev/logos/service/storage/exceptions",
+            "@logos//dev/logos/service/storage/module",
+            "@logos//dev/logos/service/storage/notify",
+            "@logos//dev/logos/service/storage/replica",
             "@logos//dev/logos/service/storage/pg/exporter/codegen/type",
             "@logos//dev/logos/service/storage/pg/exporter/descriptor",
+            "@logos//dev/logos/service/storage/stream",
             "@logos//dev/logos/service/storage/validator",
             "@logos//dev/logos/auth/user",
             "@maven_logos//:com_google_inject_guice",
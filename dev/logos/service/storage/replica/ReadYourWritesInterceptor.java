@@ -0,0 +1,62 @@
+package dev.logos.service.storage.replica;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+
+/**
+ * Carries WAL positions between clients and {@link ReplicaRouter}.
+ * <p>
+ * A client that must see its own writes echoes the {@code logos-wal-lsn} trailer of its last write back as a request
+ * header. Reads carrying it are only served by a replica that has replayed that far.
+ */
+public class ReadYourWritesInterceptor implements ServerInterceptor {
+    public static final Metadata.Key<String> WAL_LSN_KEY = Metadata.Key.of("logos-wal-lsn", ASCII_STRING_MARSHALLER);
+
+    static final Context.Key<String> REQUIRED_LSN = Context.key("logos-required-lsn");
+    static final Context.Key<AtomicReference<String>> WRITE_LSN = Context.key("logos-write-lsn");
+
+    static Optional<String> requiredLsn() {
+        return Optional.ofNullable(REQUIRED_LSN.get());
+    }
+
+    static void recordWriteLsn(String lsn) {
+        AtomicReference<String> writeLsn = WRITE_LSN.get();
+        if (writeLsn != null) {
+            writeLsn.set(lsn);
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        AtomicReference<String> writeLsn = new AtomicReference<>();
+        Context context = Context.current()
+                                 .withValue(REQUIRED_LSN, headers.get(WAL_LSN_KEY))
+                                 .withValue(WRITE_LSN, writeLsn);
+
+        return Contexts.interceptCall(context, new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                String lsn = writeLsn.get();
+                if (lsn != null) {
+                    trailers.put(WAL_LSN_KEY, lsn);
+                }
+                super.close(status, trailers);
+            }
+        }, headers, next);
+    }
+}
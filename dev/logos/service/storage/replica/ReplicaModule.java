@@ -0,0 +1,48 @@
+package dev.logos.service.storage.replica;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import dev.logos.app.register.registerModule;
+import dev.logos.service.storage.module.DatabaseModule.ReaderDatabase;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import org.jdbi.v3.core.Jdbi;
+
+import java.util.Optional;
+
+@registerModule
+public class ReplicaModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        OptionalBinder.newOptionalBinder(binder(), ReplicaOptions.class)
+                      .setDefault().toInstance(ReplicaOptions.DEFAULT);
+    }
+
+    /**
+     * WAL positions are only carried when read-your-writes is on and there is a reader pool to route around. Otherwise
+     * calls go straight to the next handler, without a forked context or a wrapped call.
+     */
+    @ProvidesIntoSet
+    ServerInterceptor provideReadYourWritesInterceptor(ReplicaOptions options, @ReaderDatabase Optional<Jdbi> reader) {
+        if (options.readYourWrites() && reader.isPresent()) {
+            return new ReadYourWritesInterceptor();
+        }
+        return PassThroughInterceptor.INSTANCE;
+    }
+
+    private enum PassThroughInterceptor implements ServerInterceptor {
+        INSTANCE;
+
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+                ServerCall<ReqT, RespT> call,
+                Metadata headers,
+                ServerCallHandler<ReqT, RespT> next
+        ) {
+            return next.startCall(call, headers);
+        }
+    }
+}
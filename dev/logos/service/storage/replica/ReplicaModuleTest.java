@@ -0,0 +1,60 @@
+package dev.logos.service.storage.replica;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
+import dev.logos.service.storage.module.DatabaseModule.ReaderDatabase;
+import io.grpc.ServerInterceptor;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ReplicaModuleTest {
+    private static Set<ServerInterceptor> interceptors(ReplicaOptions options, Optional<Jdbi> reader) {
+        return Guice.createInjector(new ReplicaModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                OptionalBinder.newOptionalBinder(binder(), ReplicaOptions.class).setBinding().toInstance(options);
+            }
+
+            @Provides
+            @ReaderDatabase
+            Optional<Jdbi> provideReaderJdbi() {
+                return reader;
+            }
+        }).getInstance(Key.get(new TypeLiteral<Set<ServerInterceptor>>() {
+        }));
+    }
+
+    private static boolean carriesWalPositions(Set<ServerInterceptor> interceptors) {
+        return interceptors.stream().anyMatch(ReadYourWritesInterceptor.class::isInstance);
+    }
+
+    @Test
+    public void readYourWritesWithReader_carriesWalPositions() {
+        assertTrue(carriesWalPositions(interceptors(new ReplicaOptions(true), Optional.of(mock(Jdbi.class)))));
+    }
+
+    @Test
+    public void readYourWritesOff_doesNotCarryWalPositions() {
+        Set<ServerInterceptor> interceptors = interceptors(ReplicaOptions.DEFAULT, Optional.of(mock(Jdbi.class)));
+
+        assertEquals(1, interceptors.size());
+        assertFalse(carriesWalPositions(interceptors));
+    }
+
+    @Test
+    public void withoutReader_doesNotCarryWalPositions() {
+        assertFalse(carriesWalPositions(interceptors(new ReplicaOptions(true), Optional.empty())));
+    }
+}
@@ -0,0 +1,14 @@
+package dev.logos.service.storage.replica;
+
+/**
+ * Read-replica routing settings. Override the default binding with
+ * {@code OptionalBinder.newOptionalBinder(binder(), ReplicaOptions.class).setBinding().toInstance(...)}.
+ *
+ * @param readYourWrites return the writer's WAL position to clients after writes, and only serve reads that carry one
+ *                       from a replica that has replayed up to it
+ */
+public record ReplicaOptions(
+        boolean readYourWrites
+) {
+    public static final ReplicaOptions DEFAULT = new ReplicaOptions(false);
+}
@@ -0,0 +1,82 @@
+package dev.logos.service.storage.replica;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dev.logos.service.storage.module.DatabaseModule.ReaderDatabase;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+/**
+ * Chooses the pool a generated handler runs its function on. Read-only functions go to the reader pool when one is
+ * configured, everything else to the writer.
+ */
+@Singleton
+public class ReplicaRouter {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private final Jdbi writer;
+    private final Optional<Jdbi> reader;
+    private final ReplicaOptions options;
+
+    @Inject
+    public ReplicaRouter(Jdbi writer, @ReaderDatabase Optional<Jdbi> reader, ReplicaOptions options) {
+        this.writer = writer;
+        this.reader = reader;
+        this.options = options;
+    }
+
+    public Handle openWriter() {
+        return writer.open();
+    }
+
+    /**
+     * Opens a handle on the reader pool, or on the writer if there is no reader or, in read-your-writes mode, the
+     * replica has not yet replayed the caller's last write.
+     */
+    public Handle openReader() {
+        if (reader.isEmpty()) {
+            return writer.open();
+        }
+
+        Optional<String> requiredLsn = options.readYourWrites()
+                ? ReadYourWritesInterceptor.requiredLsn()
+                : Optional.empty();
+
+        Handle handle = reader.get().open();
+        if (requiredLsn.isEmpty()) {
+            return handle;
+        }
+
+        try {
+            boolean caughtUp = handle.createQuery("select coalesce(pg_last_wal_replay_lsn() >= cast(:lsn as pg_lsn), false)")
+                                     .bind("lsn", requiredLsn.get())
+                                     .mapTo(Boolean.class)
+                                     .one();
+            if (caughtUp) {
+                return handle;
+            }
+        } catch (RuntimeException e) {
+            logger.atWarn().setCause(e).addKeyValue("lsn", requiredLsn.get()).log("Failed to check replica lag");
+        }
+
+        handle.close();
+        return writer.open();
+    }
+
+    /**
+     * In read-your-writes mode, returns the writer's current WAL position to the client once a write has completed.
+     * Without a reader pool every read already sees the write, so the position is not looked up.
+     */
+    public void recordWrite(Handle handle) {
+        if (!options.readYourWrites() || reader.isEmpty()) {
+            return;
+        }
+
+        ReadYourWritesInterceptor.recordWriteLsn(
+                handle.createQuery("select pg_current_wal_lsn()::text").mapTo(String.class).one());
+    }
+}
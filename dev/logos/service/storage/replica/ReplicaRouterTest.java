@@ -0,0 +1,117 @@
+package dev.logos.service.storage.replica;
+
+import io.grpc.Context;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.result.ResultIterable;
+import org.jdbi.v3.core.statement.Query;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRouterTest {
+    private Jdbi writer;
+    private Jdbi reader;
+    private Handle writerHandle;
+    private Handle readerHandle;
+
+    @Before
+    public void setUp() {
+        writer = mock(Jdbi.class);
+        reader = mock(Jdbi.class);
+        writerHandle = mock(Handle.class);
+        readerHandle = mock(Handle.class);
+        when(writer.open()).thenReturn(writerHandle);
+        when(reader.open()).thenReturn(readerHandle);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void stubQuery(Handle handle, Class<T> type, T result) {
+        Query query = mock(Query.class);
+        ResultIterable<T> results = mock(ResultIterable.class);
+        when(handle.createQuery(anyString())).thenReturn(query);
+        when(query.bind(anyString(), anyString())).thenReturn(query);
+        when(query.mapTo(type)).thenReturn(results);
+        when(results.one()).thenReturn(result);
+    }
+
+    private static Handle withRequiredLsn(String lsn, ReplicaRouter router) throws Exception {
+        return Context.current()
+                      .withValue(ReadYourWritesInterceptor.REQUIRED_LSN, lsn)
+                      .call(router::openReader);
+    }
+
+    @Test
+    public void openReader_withoutReaderPool_usesWriter() {
+        ReplicaRouter router = new ReplicaRouter(writer, Optional.empty(), new ReplicaOptions(true));
+
+        assertSame(writerHandle, router.openReader());
+    }
+
+    @Test
+    public void openReader_withoutRequiredLsn_usesReader() {
+        ReplicaRouter router = new ReplicaRouter(writer, Optional.of(reader), new ReplicaOptions(true));
+
+        assertSame(readerHandle, router.openReader());
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    public void openReader_replicaCaughtUp_usesReader() throws Exception {
+        stubQuery(readerHandle, Boolean.class, true);
+        ReplicaRouter router = new ReplicaRouter(writer, Optional.of(reader), new ReplicaOptions(true));
+
+        assertSame(readerHandle, withRequiredLsn("0/16B3748", router));
+        verify(readerHandle, never()).close();
+    }
+
+    @Test
+    public void openReader_replicaBehind_closesReaderAndUsesWriter() throws Exception {
+        stubQuery(readerHandle, Boolean.class, false);
+        ReplicaRouter router = new ReplicaRouter(writer, Optional.of(reader), new ReplicaOptions(true));
+
+        assertSame(writerHandle, withRequiredLsn("0/16B3748", router));
+        verify(readerHandle).close();
+    }
+
+    @Test
+    public void openReader_readYourWritesOff_ignoresRequiredLsn() throws Exception {
+        ReplicaRouter router = new ReplicaRouter(writer, Optional.of(reader), ReplicaOptions.DEFAULT);
+
+        assertSame(readerHandle, withRequiredLsn("0/16B3748", router));
+        verify(readerHandle, never()).createQuery(anyString());
+    }
+
+    @Test
+    public void recordWrite_readYourWrites_returnsWriterPosition() throws Exception {
+        stubQuery(writerHandle, String.class, "0/16B3748");
+        ReplicaRouter router = new ReplicaRouter(writer, Optional.of(reader), new ReplicaOptions(true));
+        AtomicReference<String> writeLsn = new AtomicReference<>();
+
+        Context.current()
+               .withValue(ReadYourWritesInterceptor.WRITE_LSN, writeLsn)
+               .run(() -> router.recordWrite(writerHandle));
+
+        assertEquals("0/16B3748", writeLsn.get());
+    }
+
+    @Test
+    public void recordWrite_withoutReaderPool_skipsLookup() {
+        ReplicaRouter router = new ReplicaRouter(writer, Optional.empty(), new ReplicaOptions(true));
+        AtomicReference<String> writeLsn = new AtomicReference<>();
+
+        Context.current()
+               .withValue(ReadYourWritesInterceptor.WRITE_LSN, writeLsn)
+               .run(() -> router.recordWrite(writerHandle));
+
+        assertNull(writeLsn.get());
+        verifyNoInteractions(writerHandle);
+    }
+}
@@ -0,0 +1,156 @@
+package dev.logos.service.storage.stream;
+
+import dev.logos.service.storage.replica.ReplicaRouter;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.jdbi.v3.core.Handle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs each request of a client-streaming batch call on a single writer handle and transaction.
+ * <p>
+ * Responses are held until their transaction commits, which happens every {@code flushSize} requests and when the
+ * client half-closes. Each commit is recorded with {@link ReplicaRouter#recordWrite(Handle)} before its responses are
+ * sent. If a call fails, the uncommitted requests since the last flush are rolled back and the RPC fails; requests from
+ * earlier flushes stay committed and their responses have already been sent. The handle is also released if the call
+ * is cancelled or closed by the server, e.g. when a guard refuses a later request.
+ * <p>
+ * Statements are watched by a {@link CallDeadline}, so cancelling the call stops the request in flight, and each
+ * transaction's {@code statement_timeout} is bounded by the time left before the call's deadline.
+ */
+public class BatchRequestObserver<Req, Resp> implements StreamObserver<Req> {
+    private static final Logger logger = LoggerFactory.getLogger(BatchRequestObserver.class);
+
+    @FunctionalInterface
+    public interface Call<Req, Resp> {
+        Resp execute(Handle handle, Req request) throws Exception;
+    }
+
+    private final ReplicaRouter replicaRouter;
+    private final int flushSize;
+    private final StreamObserver<Resp> responseObserver;
+    private final Call<Req, Resp> call;
+    private final String sql;
+    private final List<Resp> pending = new ArrayList<>();
+    private Handle handle;
+    private CallDeadline callDeadline;
+    private boolean closed = false;
+
+    public BatchRequestObserver(
+            ReplicaRouter replicaRouter,
+            int flushSize,
+            StreamObserver<Resp> responseObserver,
+            Call<Req, Resp> call,
+            String sql
+    ) {
+        if (flushSize <= 0) {
+            throw new IllegalArgumentException("Flush size must be positive, got " + flushSize);
+        }
+        this.replicaRouter = replicaRouter;
+        this.flushSize = flushSize;
+        this.responseObserver = responseObserver;
+        this.call = call;
+        this.sql = sql;
+
+        if (responseObserver instanceof ServerCallStreamObserver<Resp> serverCallStreamObserver) {
+            // A call the server closes without this observer, e.g. after a guard refusal, completes rather than cancels.
+            serverCallStreamObserver.setOnCancelHandler(this::release);
+            serverCallStreamObserver.setOnCloseHandler(this::release);
+        }
+    }
+
+    @Override
+    public synchronized void onNext(Req request) {
+        if (closed) {
+            return;
+        }
+
+        try {
+            if (handle == null) {
+                handle = replicaRouter.openWriter();
+                callDeadline = CallDeadline.watch(handle);
+            }
+            if (!handle.isInTransaction()) {
+                handle.begin();
+                callDeadline.limit();
+            }
+
+            pending.add(call.execute(handle, request));
+
+            if (pending.size() >= flushSize) {
+                flush();
+            }
+        } catch (Throwable e) {
+            logger.atError().setCause(e).addKeyValue("query", sql).log("Failed to execute batch");
+            close();
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to execute batch")
+                                                    .withCause(e)
+                                                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+        if (closed) {
+            return;
+        }
+
+        logger.atDebug().setCause(t).addKeyValue("query", sql).log("Client cancelled batch");
+        close();
+    }
+
+    @Override
+    public synchronized void onCompleted() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            flush();
+            close();
+            responseObserver.onCompleted();
+        } catch (Throwable e) {
+            logger.atError().setCause(e).addKeyValue("query", sql).log("Failed to commit batch");
+            close();
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to execute batch")
+                                                    .withCause(e)
+                                                    .asRuntimeException());
+        }
+    }
+
+    private synchronized void release() {
+        if (!closed) {
+            logger.atDebug().addKeyValue("query", sql).log("Batch call ended before the client half-closed");
+            close();
+        }
+    }
+
+    private void flush() {
+        if (handle != null && handle.isInTransaction()) {
+            handle.commit();
+            replicaRouter.recordWrite(handle);
+        }
+        pending.forEach(responseObserver::onNext);
+        pending.clear();
+    }
+
+    private void close() {
+        closed = true;
+        pending.clear();
+        if (handle != null) {
+            try {
+                callDeadline.close();
+                if (handle.isInTransaction()) {
+                    handle.rollback();
+                }
+            } finally {
+                handle.close();
+            }
+        }
+    }
+}
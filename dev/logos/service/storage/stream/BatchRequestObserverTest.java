@@ -0,0 +1,73 @@
+package dev.logos.service.storage.stream;
+
+import dev.logos.service.storage.replica.ReplicaRouter;
+import io.grpc.stub.StreamObserver;
+import org.jdbi.v3.core.Handle;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.*;
+
+public class BatchRequestObserverTest {
+    private final AtomicBoolean inTransaction = new AtomicBoolean(false);
+    private final Handle handle = mock(Handle.class);
+    private final ReplicaRouter replicaRouter = mock(ReplicaRouter.class);
+    @SuppressWarnings("unchecked")
+    private final StreamObserver<String> responseObserver = mock(StreamObserver.class);
+
+    private BatchRequestObserver<String, String> observer(int flushSize) {
+        when(handle.isInTransaction()).thenAnswer(invocation -> inTransaction.get());
+        doAnswer(invocation -> {
+            inTransaction.set(true);
+            return handle;
+        }).when(handle).begin();
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            return handle;
+        }).when(handle).commit();
+        when(replicaRouter.openWriter()).thenReturn(handle);
+
+        return new BatchRequestObserver<>(replicaRouter, flushSize, responseObserver,
+                (batchHandle, request) -> request.toUpperCase(), "select 1");
+    }
+
+    @Test
+    public void flush_commitsAndRecordsWriteBeforeSendingResponses() {
+        BatchRequestObserver<String, String> observer = observer(2);
+
+        observer.onNext("a");
+        verify(responseObserver, never()).onNext(any());
+
+        observer.onNext("b");
+        observer.onNext("c");
+        observer.onCompleted();
+
+        InOrder inOrder = inOrder(handle, replicaRouter, responseObserver);
+        inOrder.verify(handle).commit();
+        inOrder.verify(replicaRouter).recordWrite(handle);
+        inOrder.verify(responseObserver).onNext("A");
+        inOrder.verify(responseObserver).onNext("B");
+        inOrder.verify(handle).commit();
+        inOrder.verify(replicaRouter).recordWrite(handle);
+        inOrder.verify(responseObserver).onNext("C");
+        inOrder.verify(handle).close();
+        inOrder.verify(responseObserver).onCompleted();
+        verify(replicaRouter, times(1)).openWriter();
+    }
+
+    @Test
+    public void clientError_rollsBackUnflushedRequestsAndReleasesHandle() {
+        BatchRequestObserver<String, String> observer = observer(10);
+
+        observer.onNext("a");
+        observer.onError(new RuntimeException("client went away"));
+
+        verify(handle).rollback();
+        verify(handle).close();
+        verify(handle, never()).commit();
+        verify(responseObserver, never()).onNext(any());
+        verify(replicaRouter, never()).recordWrite(any());
+    }
+}
@@ -0,0 +1,137 @@
+package dev.logos.service.storage.stream;
+
+import dev.logos.service.storage.module.StatementTimeout;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ties the statements run on a handle to the gRPC call they serve, so a cancelled or expired call stops its query
+ * instead of holding the connection and the server thread until Postgres finishes.
+ * <p>
+ * While watching, a cancellation of the call cancels whichever statement is running on the handle, and statements
+ * started afterwards fail before they are sent. If the call has a deadline, {@link #limit()} also sets
+ * {@code statement_timeout} for the current transaction to the time remaining, so the backend stops the query by itself
+ * even if the cancel request is lost. It never raises the {@link StatementTimeout} the pool's connections were opened
+ * with, and does nothing when that timeout would fire first anyway.
+ */
+public final class CallDeadline implements StatementCustomizer, Context.CancellationListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CallDeadline.class);
+
+    // pgjdbc opens a new connection to send a cancel request, which must not block the thread that expired the call.
+    private static final Executor CANCEL_EXECUTOR = command -> Thread.ofVirtual().name("statement-cancel").start(command);
+
+    private final Handle handle;
+    private final Context context;
+    private Statement statement;
+    private boolean cancelled = false;
+    private boolean ownsTransaction = false;
+
+    private CallDeadline(Handle handle, Context context) {
+        this.handle = handle;
+        this.context = context;
+    }
+
+    /**
+     * Starts watching the current call for statements created on {@code handle} from now on. Does no database work.
+     */
+    public static CallDeadline watch(Handle handle) {
+        CallDeadline callDeadline = new CallDeadline(handle, Context.current());
+        handle.addCustomizer(callDeadline);
+        callDeadline.context.addListener(callDeadline, CANCEL_EXECUTOR);
+        return callDeadline;
+    }
+
+    /**
+     * Bounds the current transaction's {@code statement_timeout} by the call's remaining deadline, if it has one and
+     * it is shorter than the pool's own timeout. A transaction is begun if the handle is not in one, and is rolled back
+     * by {@link #close()} unless it is committed with {@link #commit()} first. pgjdbc sends the {@code BEGIN} with the
+     * {@code SET LOCAL}, so this costs one round trip when it applies and none otherwise.
+     */
+    public void limit() {
+        Deadline deadline = context.getDeadline();
+        if (deadline == null) {
+            return;
+        }
+
+        long remaining = Math.max(1, deadline.timeRemaining(TimeUnit.MILLISECONDS));
+        long poolTimeout = handle.getConfig(StatementTimeout.class).getTimeout().toMillis();
+        if (poolTimeout > 0 && remaining >= poolTimeout) {
+            return;
+        }
+
+        if (!handle.isInTransaction()) {
+            handle.begin();
+            ownsTransaction = true;
+        }
+
+        handle.execute("SET LOCAL statement_timeout = " + remaining);
+    }
+
+    /**
+     * Commits the transaction begun by {@link #limit()}, if any. Writes must be committed before their position in the
+     * WAL is recorded for read-your-writes, and before any of their results are sent, so a client never sees rows from
+     * a write that is then rolled back.
+     */
+    public void commit() {
+        if (ownsTransaction && handle.isInTransaction()) {
+            handle.commit();
+        }
+        ownsTransaction = false;
+    }
+
+    @Override
+    public synchronized void beforeExecution(PreparedStatement stmt, StatementContext ctx) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Call was cancelled before the statement was sent", "57014");
+        }
+        statement = stmt;
+    }
+
+    @Override
+    public synchronized void cancelled(Context context) {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+
+        if (statement == null) {
+            return;
+        }
+
+        try {
+            // A no-op if the statement has already finished, so it cannot cancel a later one on the same connection.
+            statement.cancel();
+            logger.atDebug().setCause(context.cancellationCause()).log("Cancelled statement for cancelled call");
+        } catch (SQLException e) {
+            logger.atWarn().setCause(e).log("Failed to cancel statement for cancelled call");
+        }
+    }
+
+    /**
+     * Stops watching the call and rolls back the transaction begun by {@link #limit()} if it was not committed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            cancelled = true;
+            statement = null;
+        }
+        context.removeListener(this);
+
+        if (ownsTransaction && handle.isInTransaction()) {
+            handle.rollback();
+        }
+        ownsTransaction = false;
+    }
+}
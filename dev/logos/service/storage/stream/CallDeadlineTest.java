@@ -0,0 +1,106 @@
+package dev.logos.service.storage.stream;
+
+import dev.logos.service.storage.module.StatementTimeout;
+import io.grpc.Context;
+import org.jdbi.v3.core.Handle;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class CallDeadlineTest {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean inTransaction = new AtomicBoolean(false);
+    private final Handle handle = mock(Handle.class);
+
+    @After
+    public void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    private CallDeadline watch(Duration poolTimeout, Long deadlineSeconds) throws Exception {
+        when(handle.getConfig(StatementTimeout.class)).thenReturn(new StatementTimeout().setTimeout(poolTimeout));
+        when(handle.isInTransaction()).thenAnswer(invocation -> inTransaction.get());
+        doAnswer(invocation -> {
+            inTransaction.set(true);
+            return handle;
+        }).when(handle).begin();
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            return handle;
+        }).when(handle).commit();
+
+        Context context = deadlineSeconds == null
+                ? Context.current()
+                : Context.current().withDeadlineAfter(deadlineSeconds, TimeUnit.SECONDS, scheduler);
+        return context.call(() -> CallDeadline.watch(handle));
+    }
+
+    @Test
+    public void limit_withoutDeadline_doesNoDatabaseWork() throws Exception {
+        watch(Duration.ofSeconds(30), null).limit();
+
+        verify(handle, never()).begin();
+        verify(handle, never()).execute(anyString());
+    }
+
+    @Test
+    public void limit_deadlineBeyondPoolTimeout_doesNoDatabaseWork() throws Exception {
+        watch(Duration.ofSeconds(30), 60L).limit();
+
+        verify(handle, never()).begin();
+        verify(handle, never()).execute(anyString());
+    }
+
+    @Test
+    public void limit_deadlineWithinPoolTimeout_setsLocalTimeoutInOwnTransaction() throws Exception {
+        try (CallDeadline callDeadline = watch(Duration.ofSeconds(30), 5L)) {
+            callDeadline.limit();
+
+            verify(handle).begin();
+            verify(handle).execute(startsWith("SET LOCAL statement_timeout = "));
+        }
+
+        verify(handle).rollback();
+    }
+
+    @Test
+    public void limit_withoutPoolTimeout_alwaysSetsLocalTimeout() throws Exception {
+        watch(Duration.ZERO, 3600L).limit();
+
+        verify(handle).execute(startsWith("SET LOCAL statement_timeout = "));
+    }
+
+    @Test
+    public void limit_insideCallersTransaction_leavesItToTheCaller() throws Exception {
+        CallDeadline callDeadline = watch(Duration.ZERO, 5L);
+        inTransaction.set(true);
+
+        callDeadline.limit();
+        callDeadline.commit();
+        callDeadline.close();
+
+        verify(handle, never()).begin();
+        verify(handle, never()).commit();
+        verify(handle, never()).rollback();
+    }
+
+    @Test
+    public void commit_keepsClose_fromRollingBack() throws Exception {
+        try (CallDeadline callDeadline = watch(Duration.ZERO, 5L)) {
+            callDeadline.limit();
+            callDeadline.commit();
+        }
+
+        verify(handle).commit();
+        verify(handle, never()).rollback();
+    }
+}
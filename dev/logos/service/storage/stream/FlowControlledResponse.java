@@ -0,0 +1,182 @@
+package dev.logos.service.storage.stream;
+
+import dev.logos.jfr.StorageQueryEvent;
+import dev.logos.service.storage.replica.ReplicaRouter;
+import dev.logos.trace.Span;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.result.ResultIterable;
+import org.jdbi.v3.core.result.ResultIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams query results to a gRPC client only as fast as the transport drains them.
+ * <p>
+ * Rows are pulled from the JDBC cursor while the call reports {@link ServerCallStreamObserver#isReady()}, and the
+ * remainder is resumed from the call's on-ready handler. The handle, its {@link CallDeadline} and the query's
+ * {@link StorageQueryEvent} and {@link Span} are owned by this class once streaming starts and are released when the results are
+ * exhausted, the query fails or the client cancels.
+ * <p>
+ * The transaction begun by {@link CallDeadline#limit()} is committed as soon as the query has run and before the first
+ * row is sent. Its rows are already buffered by pgjdbc at that point; a query with a fetch size runs in the
+ * {@link ReadOnlyCursor} transaction instead, which stays open until the handle is released.
+ */
+public class FlowControlledResponse<T> implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(FlowControlledResponse.class);
+
+    private final ServerCallStreamObserver<T> responseObserver;
+    private final Handle handle;
+    private final CallDeadline callDeadline;
+    private final ReplicaRouter replicaRouter;
+    private final boolean write;
+    private final StorageQueryEvent queryEvent;
+    private final Span querySpan;
+    private final ResultIterable<T> resultIterable;
+    private final String sql;
+    private ResultIterator<T> results;
+    private boolean closed = false;
+
+    private FlowControlledResponse(
+            ServerCallStreamObserver<T> responseObserver,
+            Handle handle,
+            CallDeadline callDeadline,
+            ReplicaRouter replicaRouter,
+            boolean write,
+            StorageQueryEvent queryEvent,
+            Span querySpan,
+            ResultIterable<T> resultIterable,
+            String sql
+    ) {
+        this.responseObserver = responseObserver;
+        this.handle = handle;
+        this.callDeadline = callDeadline;
+        this.replicaRouter = replicaRouter;
+        this.write = write;
+        this.queryEvent = queryEvent;
+        this.querySpan = querySpan;
+        this.resultIterable = resultIterable;
+        this.sql = sql;
+    }
+
+    /**
+     * Starts streaming {@code resultIterable} to {@code responseObserver}. Must be called from the RPC handler
+     * method itself, before it returns, so the on-ready and on-cancel handlers can still be registered. When
+     * {@code write} is set the query ran on the writer, and its position is recorded with {@code replicaRouter} once
+     * committed, so the caller's next read can wait for a replica that has it.
+     */
+    public static <T> void stream(
+            StreamObserver<T> responseObserver,
+            Handle handle,
+            CallDeadline callDeadline,
+            ReplicaRouter replicaRouter,
+            boolean write,
+            StorageQueryEvent queryEvent,
+            Span querySpan,
+            ResultIterable<T> resultIterable,
+            String sql
+    ) {
+        if (!(responseObserver instanceof ServerCallStreamObserver<T> serverCallStreamObserver)) {
+            // Not attached to a live call (e.g. invoked directly); there is no transport to wait for.
+            try (ResultIterator<T> results = resultIterable.iterator()) {
+                commit(callDeadline, replicaRouter, write, handle);
+                results.forEachRemaining(result -> {
+                    responseObserver.onNext(result);
+                    queryEvent.row();
+                });
+                queryEvent.complete();
+                querySpan.attribute("db.rows", queryEvent.rows);
+                responseObserver.onCompleted();
+            } catch (Throwable e) {
+                querySpan.status("ERROR");
+                fail(responseObserver, sql, e);
+            } finally {
+                release(handle, callDeadline, queryEvent, querySpan);
+            }
+            return;
+        }
+
+        FlowControlledResponse<T> response =
+                new FlowControlledResponse<>(serverCallStreamObserver, handle, callDeadline, replicaRouter, write,
+                        queryEvent, querySpan, resultIterable, sql);
+
+        serverCallStreamObserver.setOnCancelHandler(response::cancel);
+        serverCallStreamObserver.setOnReadyHandler(response);
+        response.run();
+    }
+
+    @Override
+    public synchronized void run() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            if (results == null) {
+                results = resultIterable.iterator();
+                commit(callDeadline, replicaRouter, write, handle);
+            }
+
+            while (responseObserver.isReady()) {
+                if (!results.hasNext()) {
+                    queryEvent.complete();
+                    querySpan.attribute("db.rows", queryEvent.rows);
+                    close();
+                    responseObserver.onCompleted();
+                    return;
+                }
+                responseObserver.onNext(results.next());
+                queryEvent.row();
+            }
+        } catch (Throwable e) {
+            querySpan.status("ERROR");
+            fail(responseObserver, sql, e);
+            close();
+        }
+    }
+
+    private synchronized void cancel() {
+        if (!closed) {
+            logger.atDebug().addKeyValue("query", sql).log("Client cancelled streaming query");
+            querySpan.status("CANCELLED");
+            close();
+        }
+    }
+
+    private void close() {
+        closed = true;
+        try {
+            if (results != null) {
+                results.close();
+            }
+        } finally {
+            release(handle, callDeadline, queryEvent, querySpan);
+        }
+    }
+
+    private static void commit(CallDeadline callDeadline, ReplicaRouter replicaRouter, boolean write, Handle handle) {
+        callDeadline.commit();
+        if (write) {
+            replicaRouter.recordWrite(handle);
+        }
+    }
+
+    private static void release(Handle handle, CallDeadline callDeadline, StorageQueryEvent queryEvent, Span querySpan) {
+        queryEvent.close();
+        querySpan.end();
+        try {
+            callDeadline.close();
+        } finally {
+            ReadOnlyCursor.release(handle);
+        }
+    }
+
+    private static void fail(StreamObserver<?> responseObserver, String sql, Throwable e) {
+        logger.atError().setCause(e).addKeyValue("query", sql).log("Failed to execute query");
+        responseObserver.onError(Status.INTERNAL.withDescription("Failed to execute query")
+                                                .withCause(e)
+                                                .asRuntimeException());
+    }
+}
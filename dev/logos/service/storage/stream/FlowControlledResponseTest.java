@@ -0,0 +1,287 @@
+package dev.logos.service.storage.stream;
+
+import dev.logos.jfr.StorageQueryEvent;
+import dev.logos.service.storage.replica.ReadYourWritesInterceptor;
+import dev.logos.service.storage.replica.ReplicaOptions;
+import dev.logos.service.storage.replica.ReplicaRouter;
+import dev.logos.trace.Span;
+import io.grpc.*;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.result.ResultIterable;
+import org.jdbi.v3.core.result.ResultIterator;
+import org.jdbi.v3.core.statement.Query;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class FlowControlledResponseTest {
+    private final Handle handle = mock(Handle.class);
+    private final CallDeadline callDeadline = mock(CallDeadline.class);
+    private final ReplicaRouter replicaRouter = mock(ReplicaRouter.class);
+    private Server server;
+    private ManagedChannel channel;
+
+    @After
+    public void shutdown() {
+        if (channel != null) {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ResultIterable<String> rows(String... rows) {
+        Iterator<String> iterator = List.of(rows).iterator();
+        ResultIterator<String> results = mock(ResultIterator.class);
+        when(results.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(results.next()).thenAnswer(invocation -> iterator.next());
+        doAnswer(invocation -> {
+            iterator.forEachRemaining(invocation.<Consumer<String>>getArgument(0));
+            return null;
+        }).when(results).forEachRemaining(any());
+
+        ResultIterable<String> resultIterable = mock(ResultIterable.class);
+        when(resultIterable.iterator()).thenReturn(results);
+        return resultIterable;
+    }
+
+    private void stream(StreamObserver<String> responseObserver, ResultIterable<String> rows) {
+        FlowControlledResponse.stream(responseObserver, handle, callDeadline, replicaRouter, false,
+                StorageQueryEvent.start("test"), Span.current().child("test"), rows, "select 1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void stream_commitsBeforeFirstRowIsSent() {
+        ServerCallStreamObserver<String> responseObserver = mock(ServerCallStreamObserver.class);
+        when(responseObserver.isReady()).thenReturn(true);
+
+        stream(responseObserver, rows("a", "b"));
+
+        InOrder inOrder = inOrder(callDeadline, responseObserver);
+        inOrder.verify(callDeadline).commit();
+        inOrder.verify(responseObserver).onNext("a");
+        inOrder.verify(responseObserver).onNext("b");
+        inOrder.verify(callDeadline).close();
+        inOrder.verify(responseObserver).onCompleted();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void stream_withoutLiveCall_commitsBeforeFirstRowIsSent() {
+        StreamObserver<String> responseObserver = mock(StreamObserver.class);
+
+        stream(responseObserver, rows("a"));
+
+        InOrder inOrder = inOrder(callDeadline, responseObserver);
+        inOrder.verify(callDeadline).commit();
+        inOrder.verify(responseObserver).onNext("a");
+        inOrder.verify(responseObserver).onCompleted();
+        inOrder.verify(callDeadline).close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ServerCallStreamObserver<String> liveCall(AtomicBoolean ready) {
+        ServerCallStreamObserver<String> responseObserver = mock(ServerCallStreamObserver.class);
+        when(responseObserver.isReady()).thenAnswer(invocation -> ready.get());
+        return responseObserver;
+    }
+
+    private static Runnable handler(ServerCallStreamObserver<String> responseObserver, boolean onReady) {
+        ArgumentCaptor<Runnable> handler = ArgumentCaptor.forClass(Runnable.class);
+        if (onReady) {
+            verify(responseObserver).setOnReadyHandler(handler.capture());
+        } else {
+            verify(responseObserver).setOnCancelHandler(handler.capture());
+        }
+        return handler.getValue();
+    }
+
+    @Test
+    public void stream_pausesWhileTransportIsNotReady() {
+        AtomicBoolean ready = new AtomicBoolean(true);
+        ServerCallStreamObserver<String> responseObserver = liveCall(ready);
+        doAnswer(invocation -> {
+            ready.set(false);
+            return null;
+        }).when(responseObserver).onNext(any());
+
+        stream(responseObserver, rows("a", "b", "c"));
+
+        verify(responseObserver).onNext("a");
+        verify(responseObserver, never()).onNext("b");
+        verify(handle, never()).close();
+
+        ready.set(true);
+        handler(responseObserver, true).run();
+        verify(responseObserver).onNext("b");
+        verify(responseObserver, never()).onNext("c");
+
+        ready.set(true);
+        doNothing().when(responseObserver).onNext(any());
+        handler(responseObserver, true).run();
+
+        InOrder inOrder = inOrder(responseObserver, handle);
+        inOrder.verify(responseObserver).onNext("c");
+        inOrder.verify(handle).close();
+        inOrder.verify(responseObserver).onCompleted();
+    }
+
+    @Test
+    public void stream_notReadyAtStart_runsQueryButSendsNothingUntilReady() {
+        AtomicBoolean ready = new AtomicBoolean(false);
+        ServerCallStreamObserver<String> responseObserver = liveCall(ready);
+        ResultIterable<String> rows = rows("a");
+
+        stream(responseObserver, rows);
+
+        verify(rows).iterator();
+        verify(responseObserver, never()).onNext(any());
+
+        ready.set(true);
+        handler(responseObserver, true).run();
+
+        verify(responseObserver).onNext("a");
+        verify(responseObserver).onCompleted();
+    }
+
+    @Test
+    public void cancel_releasesHandleAndStopsStreaming() throws Exception {
+        AtomicBoolean ready = new AtomicBoolean(false);
+        ServerCallStreamObserver<String> responseObserver = liveCall(ready);
+        ResultIterable<String> rows = rows("a", "b");
+
+        stream(responseObserver, rows);
+        handler(responseObserver, false).run();
+
+        verify(rows.iterator()).close();
+        verify(callDeadline).close();
+        verify(handle).close();
+
+        ready.set(true);
+        handler(responseObserver, true).run();
+        verify(responseObserver, never()).onNext(any());
+        verify(responseObserver, never()).onCompleted();
+        verify(handle, times(1)).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void queryFailure_reportsInternalAndReleasesHandle() {
+        ServerCallStreamObserver<String> responseObserver = liveCall(new AtomicBoolean(true));
+        ResultIterable<String> rows = mock(ResultIterable.class);
+        when(rows.iterator()).thenThrow(new IllegalStateException("connection reset"));
+
+        stream(responseObserver, rows);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        assertEquals(Status.Code.INTERNAL, ((StatusRuntimeException) error.getValue()).getStatus().getCode());
+        verify(callDeadline).close();
+        verify(handle).close();
+        verify(responseObserver, never()).onCompleted();
+    }
+
+    private static final MethodDescriptor.Marshaller<String> MARSHALLER = new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            try {
+                return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private static final MethodDescriptor<String, String> LIST = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+            .setFullMethodName("svc/list")
+            .setRequestMarshaller(MARSHALLER)
+            .setResponseMarshaller(MARSHALLER)
+            .build();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void writer_sendsWalPositionTrailerAfterCommit() throws Exception {
+        Query lsnQuery = mock(Query.class);
+        ResultIterable<String> lsn = mock(ResultIterable.class);
+        when(handle.createQuery("select pg_current_wal_lsn()::text")).thenReturn(lsnQuery);
+        when(lsnQuery.mapTo(String.class)).thenReturn(lsn);
+        when(lsn.one()).thenReturn("0/16B3748");
+        ReplicaRouter router = new ReplicaRouter(mock(Jdbi.class), Optional.of(mock(Jdbi.class)), new ReplicaOptions(true));
+
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                                       .addService(ServerInterceptors.intercept(
+                                               ServerServiceDefinition.builder("svc")
+                                                                      .addMethod(LIST, ServerCalls.asyncServerStreamingCall(
+                                                                              (request, responseObserver) -> FlowControlledResponse.stream(
+                                                                                      responseObserver, handle, callDeadline, router, true,
+                                                                                      StorageQueryEvent.start("test"), Span.current().child("test"),
+                                                                                      rows("a", "b"), "select 1")))
+                                                                      .build(),
+                                               new ReadYourWritesInterceptor()))
+                                       .build()
+                                       .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+
+        List<String> received = new ArrayList<>();
+        CompletableFuture<Metadata> trailers = new CompletableFuture<>();
+        ClientCall<String, String> call = channel.newCall(LIST, CallOptions.DEFAULT);
+        call.start(new ClientCall.Listener<>() {
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onClose(Status status, Metadata closeTrailers) {
+                trailers.complete(closeTrailers);
+            }
+        }, new Metadata());
+        call.sendMessage("request");
+        call.halfClose();
+        call.request(Integer.MAX_VALUE);
+
+        assertEquals("0/16B3748", trailers.get(5, TimeUnit.SECONDS).get(ReadYourWritesInterceptor.WAL_LSN_KEY));
+        assertEquals(List.of("a", "b"), received);
+        InOrder inOrder = inOrder(callDeadline, lsnQuery);
+        inOrder.verify(callDeadline).commit();
+        inOrder.verify(lsnQuery).mapTo(String.class);
+    }
+
+    @Test
+    public void reader_doesNotRecordWrite() {
+        stream(liveCall(new AtomicBoolean(true)), rows("a"));
+
+        verify(replicaRouter, never()).recordWrite(any());
+    }
+}
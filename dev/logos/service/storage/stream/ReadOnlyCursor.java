@@ -0,0 +1,39 @@
+package dev.logos.service.storage.stream;
+
+import org.jdbi.v3.core.Handle;
+
+/**
+ * pgjdbc only honours a statement's fetch size outside of autocommit, otherwise it buffers the whole result set
+ * before returning the first row. Handlers that stream large results wrap their query in a read-only transaction
+ * opened here so rows arrive in fetch-size chunks.
+ */
+public final class ReadOnlyCursor {
+    private ReadOnlyCursor() {
+    }
+
+    public static void begin(Handle handle) {
+        handle.setReadOnly(true);
+        handle.begin();
+    }
+
+    /**
+     * Ends the transaction opened by {@link #begin(Handle)}, if any. Nothing was written, so it is rolled back.
+     */
+    public static void end(Handle handle) {
+        if (handle.isInTransaction()) {
+            handle.rollback();
+        }
+    }
+
+    /**
+     * Ends any open transaction and closes the handle, so a handle abandoned mid-stream does not trip Jdbi's
+     * improperly-closed-transaction check.
+     */
+    public static void release(Handle handle) {
+        try {
+            end(handle);
+        } finally {
+            handle.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package dev.logos.service.storage.stream;
+
+import org.jdbi.v3.core.Handle;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class ReadOnlyCursorTest {
+    private final Handle handle = mock(Handle.class);
+
+    @Test
+    public void begin_marksHandleReadOnlyBeforeOpeningTransaction() {
+        ReadOnlyCursor.begin(handle);
+
+        InOrder inOrder = inOrder(handle);
+        inOrder.verify(handle).setReadOnly(true);
+        inOrder.verify(handle).begin();
+    }
+
+    @Test
+    public void end_rollsBackOpenTransaction() {
+        when(handle.isInTransaction()).thenReturn(true);
+
+        ReadOnlyCursor.end(handle);
+
+        verify(handle).rollback();
+        verify(handle, never()).commit();
+    }
+
+    @Test
+    public void end_withoutTransaction_doesNothing() {
+        ReadOnlyCursor.end(handle);
+
+        verify(handle, never()).rollback();
+    }
+
+    @Test
+    public void release_closesHandleEvenIfRollbackFails() {
+        when(handle.isInTransaction()).thenReturn(true);
+        when(handle.rollback()).thenThrow(new IllegalStateException("connection closed"));
+
+        assertThrows(IllegalStateException.class, () -> ReadOnlyCursor.release(handle));
+
+        verify(handle).close();
+    }
+}
@@ -183,7 +183,8 @@ public class K8sModule extends AbstractModule {
                                     .imagePullPolicy(ImagePullPolicy.ALWAYS)
                                     .envVariables(containerEnv)
                                     .volumeMounts(volumeMounts)
-                                    .ports(List.of(ContainerPort.builder().number(8081).build()))
+                                    .ports(List.of(ContainerPort.builder().number(8081).build(),
+                                                   ContainerPort.builder().number(9090).name("metrics").build()))
                                     .securityContext(ContainerSecurityContextProps.builder()
                                                                                   .ensureNonRoot(true)
                                                                                   .user(1000)
@@ -0,0 +1,25 @@
+package dev.logos.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes each span as a structured log line, so traces can be read from a pod's logs, or a file they are written to,
+ * without a collector.
+ */
+public class LogSpanExporter implements SpanExporter {
+    private static final Logger logger = LoggerFactory.getLogger(LogSpanExporter.class);
+
+    @Override
+    public void export(SpanData span) {
+        logger.atInfo()
+              .addKeyValue("traceId", span.traceId())
+              .addKeyValue("spanId", span.spanId())
+              .addKeyValue("parentSpanId", span.parentSpanId())
+              .addKeyValue("start", span.start())
+              .addKeyValue("durationMicros", span.durationNanos() / 1000)
+              .addKeyValue("status", span.status())
+              .addKeyValue("attributes", span.attributes())
+              .log(span.name());
+    }
+}
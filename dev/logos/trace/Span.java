@@ -0,0 +1,145 @@
+package dev.logos.trace;
+
+import io.grpc.Context;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timed operation within a trace. The span of the call being served is carried in the gRPC {@link Context}, so code
+ * running on the call's behalf starts children with {@code Span.current().child(name)} without having a
+ * {@link Tracer} to hand. Outside a traced call {@link #current()} is a no-op span whose children are no-ops too, so
+ * instrumented code costs next to nothing when tracing is not installed.
+ * <p>
+ * Closing a span ends it, so it can be used as a try-with-resources resource. Spans of a trace whose caller cleared
+ * the sampled flag still propagate it to callees, but are not exported.
+ */
+public final class Span implements AutoCloseable {
+    static final Context.Key<Span> CONTEXT_KEY = Context.key("logos-span");
+
+    static final String SAMPLED = "01";
+
+    private static final Span NOOP = new Span(null, null, null, null, null, null);
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String flags;
+    private final String name;
+    private final Instant start;
+    private final long startNanos;
+    private final Map<String, String> attributes = new HashMap<>();
+    private final AtomicBoolean ended = new AtomicBoolean(false);
+    private volatile String status = "OK";
+
+    Span(Tracer tracer, String traceId, String spanId, String parentSpanId, String flags, String name) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.flags = flags;
+        this.name = name;
+        this.start = tracer == null ? null : Instant.now();
+        this.startNanos = tracer == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * The span of the current call, or a no-op span if there is none.
+     */
+    public static Span current() {
+        Span span = CONTEXT_KEY.get();
+        return span == null ? NOOP : span;
+    }
+
+    static String newSpanId() {
+        return "%016x".formatted(ThreadLocalRandom.current().nextLong());
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return "%016x%016x".formatted(random.nextLong(), random.nextLong());
+    }
+
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    public Span child(String name) {
+        if (tracer == null) {
+            return NOOP;
+        }
+        return new Span(tracer, traceId, newSpanId(), spanId, flags, name);
+    }
+
+    public Span attribute(String key, Object value) {
+        if (tracer != null) {
+            synchronized (attributes) {
+                attributes.put(key, String.valueOf(value));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets the status the span ends with; {@code OK} unless set.
+     */
+    public Span status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * {@code context} with this span as the current one.
+     */
+    public Context inContext(Context context) {
+        return context.withValue(CONTEXT_KEY, this);
+    }
+
+    /**
+     * This span as a W3C {@code traceparent} header value, for a callee to continue the trace from. The trace flags
+     * are the ones the trace was continued with, so a caller's sampling decision reaches every callee.
+     */
+    public String traceparent() {
+        return "00-%s-%s-%s".formatted(traceId, spanId, flags);
+    }
+
+    /**
+     * Whether the trace flags have the sampled bit set, so the span is exported when it ends.
+     */
+    public boolean isSampled() {
+        return tracer != null && (Integer.parseInt(flags, 16) & 1) != 0;
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public String spanId() {
+        return spanId;
+    }
+
+    /**
+     * Ends the span and exports it if it is sampled. Later calls do nothing.
+     */
+    public void end() {
+        if (tracer == null || !ended.compareAndSet(false, true) || !isSampled()) {
+            return;
+        }
+
+        Map<String, String> finalAttributes;
+        synchronized (attributes) {
+            finalAttributes = Map.copyOf(attributes);
+        }
+        tracer.export(new SpanData(traceId, spanId, parentSpanId, name, start, System.nanoTime() - startNanos,
+                status, finalAttributes));
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+}
@@ -0,0 +1,22 @@
+package dev.logos.trace;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A finished span, as handed to a {@link SpanExporter}.
+ *
+ * @param parentSpanId the parent's span ID, or {@code null} for a root span
+ * @param status       {@code OK}, a gRPC status code name, or {@code ERROR}
+ */
+public record SpanData(
+        String traceId,
+        String spanId,
+        String parentSpanId,
+        String name,
+        Instant start,
+        long durationNanos,
+        String status,
+        Map<String, String> attributes
+) {
+}
@@ -0,0 +1,10 @@
+package dev.logos.trace;
+
+/**
+ * Receives spans as they end. Called on the thread that ends the span, so implementations should hand off anything
+ * slow. Override the default {@link LogSpanExporter} with
+ * {@code OptionalBinder.newOptionalBinder(binder(), SpanExporter.class).setBinding().to(...)}.
+ */
+public interface SpanExporter {
+    void export(SpanData span);
+}
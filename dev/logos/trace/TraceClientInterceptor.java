@@ -0,0 +1,55 @@
+package dev.logos.trace;
+
+import com.google.inject.Singleton;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Starts a client span for each call made while a span is current, and sends it to the callee as a {@code traceparent}
+ * header so in-process and peer hops join the caller's trace. Calls made outside a traced call are left alone. Install
+ * with {@code clientInterceptor(TraceClientInterceptor.class)} in an {@code AppModule}.
+ */
+@Singleton
+public class TraceClientInterceptor implements ClientInterceptor {
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method,
+            CallOptions callOptions,
+            Channel next
+    ) {
+        Span parent = Span.current();
+        if (!parent.isRecording()) {
+            return next.newCall(method, callOptions);
+        }
+
+        Span span = parent.child(method.getFullMethodName()).attribute("rpc.kind", "client");
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                headers.discardAll(TraceServerInterceptor.TRACEPARENT);
+                headers.put(TraceServerInterceptor.TRACEPARENT, span.traceparent());
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        span.status(status.getCode().name()).end();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void cancel(String message, Throwable cause) {
+                span.status(Status.Code.CANCELLED.name()).end();
+                super.cancel(message, cause);
+            }
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package dev.logos.trace;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.OptionalBinder;
+import dev.logos.app.register.registerModule;
+
+@registerModule
+public class TraceModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        OptionalBinder.newOptionalBinder(binder(), SpanExporter.class)
+                      .setDefault().to(LogSpanExporter.class);
+    }
+}
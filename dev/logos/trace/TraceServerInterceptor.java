@@ -0,0 +1,60 @@
+package dev.logos.trace;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Starts a span for each call, continuing the caller's trace from its {@code traceparent} header, and makes it
+ * {@link Span#current()} for the call's handlers and the interceptors after this one. Install with
+ * {@code interceptor(TraceServerInterceptor.class)} in an {@code AppModule}, alongside
+ * {@code clientInterceptor(TraceClientInterceptor.class)} so the trace follows outgoing calls.
+ */
+@Singleton
+public class TraceServerInterceptor implements ServerInterceptor {
+    static final Metadata.Key<String> TRACEPARENT = Metadata.Key.of("traceparent", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final Tracer tracer;
+
+    @Inject
+    public TraceServerInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        Span span = tracer.continueFrom(headers.get(TRACEPARENT), call.getMethodDescriptor().getFullMethodName())
+                          .attribute("rpc.kind", "server");
+
+        ServerCall<ReqT, RespT> tracedCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                span.status(status.getCode().name()).end();
+                super.close(status, trailers);
+            }
+        };
+
+        Context context = span.inContext(Context.current());
+        ServerCall.Listener<ReqT> listener = Contexts.interceptCall(context, tracedCall, headers, next);
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                span.status(Status.Code.CANCELLED.name()).end();
+                super.onCancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package dev.logos.trace;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.regex.Pattern;
+
+/**
+ * Starts the spans that begin a trace or continue one from a caller, and passes ended spans to the bound
+ * {@link SpanExporter}.
+ */
+@Singleton
+public class Tracer {
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+    private static final Pattern TRACE_ID = Pattern.compile("[0-9a-f]{32}");
+    private static final Pattern SPAN_ID = Pattern.compile("[0-9a-f]{16}");
+    private static final Pattern FLAGS = Pattern.compile("[0-9a-f]{2}");
+
+    private final SpanExporter exporter;
+
+    @Inject
+    public Tracer(SpanExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    public Span root(String name) {
+        return new Span(this, Span.newTraceId(), Span.newSpanId(), null, Span.SAMPLED, name);
+    }
+
+    /**
+     * Starts a child of the span described by a W3C {@code traceparent} header, or a root span if the header is
+     * missing or malformed. The child keeps the caller's trace flags; root spans are sampled.
+     */
+    public Span continueFrom(String traceparent, String name) {
+        if (traceparent == null) {
+            return root(name);
+        }
+
+        // version-traceid-parentid-flags; later versions may append fields, which are ignored.
+        String[] parts = traceparent.trim().split("-");
+        if (parts.length < 4
+                || parts[0].length() != 2 || parts[0].equals("ff")
+                || !TRACE_ID.matcher(parts[1]).matches() || parts[1].chars().allMatch(c -> c == '0')
+                || !SPAN_ID.matcher(parts[2]).matches() || parts[2].chars().allMatch(c -> c == '0')
+                || !FLAGS.matcher(parts[3]).matches()) {
+            logger.atDebug().addKeyValue("traceparent", traceparent).log("Ignoring malformed traceparent");
+            return root(name);
+        }
+
+        return new Span(this, parts[1], Span.newSpanId(), parts[2], parts[3], name);
+    }
+
+    void export(SpanData span) {
+        try {
+            exporter.export(span);
+        } catch (RuntimeException e) {
+            logger.atWarn().setCause(e).addKeyValue("span", span.name()).log("Failed to export span");
+        }
+    }
+}
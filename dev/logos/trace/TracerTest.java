@@ -0,0 +1,94 @@
+package dev.logos.trace;
+
+import io.grpc.Context;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TracerTest {
+    private final List<SpanData> exported = new ArrayList<>();
+    private final Tracer tracer = new Tracer(exported::add);
+
+    @Test
+    public void continueFrom_joinsCallersTrace() {
+        Span span = tracer.continueFrom("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", "svc/Method");
+        span.end();
+
+        SpanData data = exported.getFirst();
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", data.traceId());
+        assertEquals("00f067aa0ba902b7", data.parentSpanId());
+        assertNotEquals("00f067aa0ba902b7", data.spanId());
+    }
+
+    @Test
+    public void traceparent_keepsCallersTraceFlags() {
+        Span unsampled = tracer.continueFrom("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00", "svc/Method");
+        Span child = unsampled.child("client");
+
+        assertEquals("00-4bf92f3577b34da6a3ce929d0e0e4736-%s-00".formatted(child.spanId()), child.traceparent());
+        assertTrue(tracer.root("svc/Method").traceparent().endsWith("-01"));
+    }
+
+    @Test
+    public void continueFrom_unsampled_doesNotExport() {
+        Span span = tracer.continueFrom("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00", "svc/Method");
+        span.child("guard").end();
+        span.end();
+
+        assertFalse(span.isSampled());
+        assertTrue(exported.isEmpty());
+    }
+
+    @Test
+    public void continueFrom_otherFlagsWithSampledBit_exports() {
+        tracer.continueFrom("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-03", "svc/Method").end();
+
+        assertEquals(1, exported.size());
+    }
+
+    @Test
+    public void continueFrom_malformedHeader_startsNewTrace() {
+        for (String traceparent : List.of(
+                "garbage",
+                "00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+                "ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01",
+                "00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01",
+                "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-1")) {
+            tracer.continueFrom(traceparent, "svc/Method").end();
+            assertNull(traceparent, exported.getLast().parentSpanId());
+        }
+    }
+
+    @Test
+    public void child_ofCurrentSpan_sharesTraceAndExportsOnce() throws Exception {
+        Span root = tracer.root("svc/Method");
+
+        Span child = root.inContext(Context.current()).call(() -> Span.current().child("guard"));
+        child.attribute("allowed", true).end();
+        child.end();
+        root.end();
+
+        assertEquals(2, exported.size());
+        assertEquals(root.traceId(), exported.get(0).traceId());
+        assertEquals(root.spanId(), exported.get(0).parentSpanId());
+        assertEquals("true", exported.get(0).attributes().get("allowed"));
+    }
+
+    @Test
+    public void current_outsideTracedCall_isNoOp() {
+        Span span = Span.current();
+
+        assertFalse(span.isRecording());
+        assertSame(span, span.child("guard"));
+        span.end();
+        assertTrue(exported.isEmpty());
+    }
+}